@@ -0,0 +1,108 @@
+package edu.brandeis.cosi103a.groupb.Decks;
+
+import edu.brandeis.cosi.atg.api.cards.Card;
+
+/**
+ * Packs a card into a short: the type's ordinal in the high bits and the
+ * copy index in the low INDEX_BITS bits.
+ *
+ * Decks, hands and supply piles inside the engine store these codes in
+ * primitive arrays instead of references to Card objects. A Card is only
+ * needed when a player or observer looks at the cards, and decode() then
+ * returns a shared instance from a table built once, so converting back
+ * never allocates. Because every code has exactly one Card, cards that
+ * come from the engine can be compared with == as well as equals().
+ */
+public final class CardCodes {
+    /** Number of low bits holding the copy index. */
+    public static final int INDEX_BITS = 10;
+
+    /** Largest copy index that can be encoded. */
+    public static final int MAX_INDEX = (1 << INDEX_BITS) - 1;
+
+    private static final Card.Type[] TYPES = Card.Type.values();
+    private static final Card[] CARDS = new Card[TYPES.length << INDEX_BITS];
+    private static final int[] VICTORY_VALUES = new int[TYPES.length];
+
+    static {
+        if (TYPES.length > 1 << (Short.SIZE - 1 - INDEX_BITS)) {
+            throw new ExceptionInInitializerError("Too many card types to encode in a short");
+        }
+        for (Card.Type type : TYPES) {
+            for (int index = 0; index <= MAX_INDEX; index++) {
+                CARDS[type.ordinal() << INDEX_BITS | index] = new Card(type, index);
+            }
+            VICTORY_VALUES[type.ordinal()] =
+                    type.getCategory() == Card.Type.Category.VICTORY ? type.getValue() : 0;
+        }
+    }
+
+    private CardCodes() {
+    }
+
+    /**
+     * Returns true if a card's index is between 0 and MAX_INDEX. Every card the
+     * engine deals can be encoded; only a card built elsewhere may not be.
+     */
+    public static boolean isEncodable(Card card) {
+        return card.getId() >= 0 && card.getId() <= MAX_INDEX;
+    }
+
+    /**
+     * Returns the code of a card.
+     *
+     * @throws IllegalArgumentException if the card's index is not between 0 and MAX_INDEX
+     */
+    public static short encode(Card card) {
+        return encode(card.getType(), card.getId());
+    }
+
+    /**
+     * Returns the code of a copy of a card type.
+     *
+     * @throws IllegalArgumentException if the index is not between 0 and MAX_INDEX
+     */
+    public static short encode(Card.Type type, int index) {
+        if (index < 0 || index > MAX_INDEX) {
+            throw new IllegalArgumentException("Card index " + index + " cannot be encoded");
+        }
+        return (short) (type.ordinal() << INDEX_BITS | index);
+    }
+
+    /**
+     * Returns the shared Card for a code.
+     */
+    public static Card decode(short code) {
+        return CARDS[code];
+    }
+
+    /**
+     * Returns the shared Card for a copy of a card type.
+     *
+     * @throws IllegalArgumentException if the index is not between 0 and MAX_INDEX
+     */
+    public static Card card(Card.Type type, int index) {
+        return CARDS[encode(type, index)];
+    }
+
+    /**
+     * Returns the ordinal of the card type in a code.
+     */
+    public static int typeOrdinal(short code) {
+        return code >>> INDEX_BITS;
+    }
+
+    /**
+     * Returns the card type in a code.
+     */
+    public static Card.Type type(short code) {
+        return TYPES[code >>> INDEX_BITS];
+    }
+
+    /**
+     * Returns the victory points a card is worth: its value for VICTORY cards, 0 otherwise.
+     */
+    public static int victoryValue(short code) {
+        return VICTORY_VALUES[code >>> INDEX_BITS];
+    }
+}
@@ -7,6 +7,16 @@ public class DrawDeck extends PlayerDeck {
         super();
     }
 
+    /**
+     * Turns lazy shuffling on or off. With lazy shuffling, a reshuffle costs
+     * nothing up front and each draw picks a random card from those not yet
+     * drawn, so a turn that draws five cards does five steps of work.
+     */
+    @Override
+    public void setLazyShuffle(boolean lazy) {
+        super.setLazyShuffle(lazy);
+    }
+
     @Override
     public String toString() {
         return "Draw Deck: " + super.toString();
@@ -1,50 +1,186 @@
 package edu.brandeis.cosi103a.groupb.Decks;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 import edu.brandeis.cosi.atg.api.cards.*;
 
+/**
+ * A pile of cards owned by a player. Cards are added to and drawn from the top.
+ *
+ * The cards are kept as short codes (see CardCodes) in a plain array that
+ * grows as needed, bottom card first, and only become Card objects when they
+ * are drawn or looked at.
+ * A deck belongs to a single game and is never shared between threads, so
+ * nothing is synchronized. Counts of each card type and category are kept up
+ * to date as cards come and go, so composition queries need no scan.
+ *
+ * With lazy shuffling, shuffle() does not reorder anything. It marks the
+ * cards as unshuffled, and each draw from the unshuffled cards picks one of
+ * them uniformly at random: a Fisher-Yates shuffle carried out one step per
+ * draw. The cards come out in the same distribution as with a full shuffle,
+ * but the cost follows the number of cards drawn, not the size of the deck.
+ */
 public abstract class PlayerDeck {
-    protected Stack<Card> deck;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Card.Type.Category[] CATEGORIES = Card.Type.Category.values();
+
+    private short[] cards = new short[INITIAL_CAPACITY];
+    private int size = 0;
+    private final List<Card> view = new CardView();
+    private RandomGenerator random = new SplittableRandom();
+    private int victoryPoints = 0;
+    private boolean lazyShuffle = false;
+    private int unshuffled = 0; // bottom cards whose order has not been drawn yet
+    private int[] typeCounts = new int[Card.Type.values().length];
+    private int[] categoryCounts = new int[CATEGORIES.length];
 
     public PlayerDeck() {
-        deck = new Stack<>();
     }
 
-    // Add a card to the discard pile
+    /**
+     * Sets the source of randomness used when this deck is shuffled.
+     * The engine gives each deck its own generator split from the game seed,
+     * so a seeded game always shuffles the same way.
+     */
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Turns lazy shuffling on or off for later shuffles (see the class comment).
+     */
+    protected void setLazyShuffle(boolean lazy) {
+        this.lazyShuffle = lazy;
+    }
+
+    /**
+     * Adds a card to the top of the deck.
+     * @throws IllegalArgumentException if the card's index cannot be encoded (see CardCodes)
+     */
     public void addCard(Card card) {
-        deck.push(card);
+        addCode(CardCodes.encode(card));
     }
 
-    // Remove and return a card from the discard pile
+    // Add an encoded card to the top of the deck
+    public void addCode(short code) {
+        ensureCapacity(size + 1);
+        cards[size++] = code;
+        victoryPoints += CardCodes.victoryValue(code);
+        Card.Type type = CardCodes.type(code);
+        typeCounts[type.ordinal()]++;
+        categoryCounts[type.getCategory().ordinal()]++;
+    }
+
+    // Remove and return the top card of the deck
     public Card drawCard() {
-        if (!deck.isEmpty()) {
-            return deck.pop();
+        return size > 0 ? CardCodes.decode(drawCode()) : null; // null when no cards are left
+    }
+
+    /**
+     * Removes the top card and returns its code.
+     * @throws IllegalStateException if the deck is empty
+     */
+    public short drawCode() {
+        if (size == 0) {
+            throw new IllegalStateException("The deck is empty");
+        }
+        if (size <= unshuffled) {
+            // The top card is still unshuffled: choose it now from the unshuffled cards
+            int j = random.nextInt(size);
+            short tmp = cards[j];
+            cards[j] = cards[size - 1];
+            cards[size - 1] = tmp;
+            unshuffled = size - 1;
         }
-        return null; // No cards left
+        short code = cards[--size];
+        victoryPoints -= CardCodes.victoryValue(code);
+        Card.Type type = CardCodes.type(code);
+        typeCounts[type.ordinal()]--;
+        categoryCounts[type.getCategory().ordinal()]--;
+        return code;
     }
 
-    // Retrieve multiple cards from the deck
+    /**
+     * Returns a read-only view of the cards, bottom card first. The view is not
+     * a copy: it always shows the deck's current contents, so copy it if a
+     * snapshot is needed. With lazy shuffling, the order of cards that have not
+     * been shuffled yet says nothing about the order they will be drawn in.
+     */
     public List<Card> getCards() {
-        List<Card> cards = new ArrayList<>();
-        cards.addAll(deck);
-        return cards;
+        return view;
     }
 
-    // Shuffle the discard pile
+    // Shuffle the deck (or, with lazy shuffling, leave the order to be chosen as cards are drawn)
     public void shuffle() {
-        Collections.shuffle(deck);
+        if (lazyShuffle) {
+            unshuffled = size;
+        } else {
+            shuffle(random);
+        }
     }
 
+    // Shuffle the pile with the given source of randomness (Fisher-Yates)
+    public void shuffle(RandomGenerator random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            short tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
+        }
+        unshuffled = 0;
+    }
+
+    /**
+     * Shuffles this deck and puts all of its cards on top of another deck,
+     * leaving this one empty. When the other deck is empty (as when the
+     * discard pile becomes the new draw pile) the two decks simply trade
+     * their storage, so no card is copied. If the other deck also shuffles
+     * lazily, the shuffle is left to it.
+     * @param newDeck: the deck that receives the cards
+     */
     public void moveDeck(PlayerDeck newDeck) {
         if (this.isEmpty()) return;
-        this.shuffle();
+        boolean deferred = newDeck.lazyShuffle && newDeck.isEmpty();
+        if (!deferred) {
+            this.shuffle(this.random);
+        }
 
-        while (!this.isEmpty()) { 
-            Card card = this.drawCard();
-            if (card != null) {
-                newDeck.addCard(card);
+        if (newDeck.isEmpty()) {
+            short[] swapCards = newDeck.cards;
+            newDeck.cards = this.cards;
+            this.cards = swapCards;
+            int[] swapTypes = newDeck.typeCounts;
+            newDeck.typeCounts = this.typeCounts;
+            this.typeCounts = swapTypes;
+            int[] swapCategories = newDeck.categoryCounts;
+            newDeck.categoryCounts = this.categoryCounts;
+            this.categoryCounts = swapCategories;
+            newDeck.size = this.size;
+            newDeck.victoryPoints = this.victoryPoints;
+        } else {
+            newDeck.ensureCapacity(newDeck.size + this.size);
+            System.arraycopy(this.cards, 0, newDeck.cards, newDeck.size, this.size);
+            newDeck.size += this.size;
+            newDeck.victoryPoints += this.victoryPoints;
+            for (int t = 0; t < typeCounts.length; t++) {
+                newDeck.typeCounts[t] += this.typeCounts[t];
+            }
+            for (int c = 0; c < categoryCounts.length; c++) {
+                newDeck.categoryCounts[c] += this.categoryCounts[c];
             }
+            Arrays.fill(this.typeCounts, 0);
+            Arrays.fill(this.categoryCounts, 0);
+        }
+        newDeck.unshuffled = deferred ? newDeck.size : newDeck.unshuffled;
+        this.size = 0;
+        this.victoryPoints = 0;
+        this.unshuffled = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > cards.length) {
+            cards = Arrays.copyOf(cards, Math.max(capacity, cards.length * 2));
         }
     }
 
@@ -54,25 +190,80 @@ public abstract class PlayerDeck {
      */
     public void addAllCards(List<Card> list) {
         for (Card card: list) {
-            this.deck.push(card);
+            this.addCard(card);
+        }
+    }
+
+    /**
+     * Replaces the contents of this deck with a copy of another deck's cards,
+     * in the same order. Used when a game is forked.
+     * @param other: the deck to copy
+     */
+    public void copyFrom(PlayerDeck other) {
+        if (cards.length < other.size) {
+            cards = new short[other.cards.length];
         }
+        System.arraycopy(other.cards, 0, cards, 0, other.size);
+        this.size = other.size;
+        this.victoryPoints = other.victoryPoints;
+        this.unshuffled = other.unshuffled;
+        System.arraycopy(other.typeCounts, 0, typeCounts, 0, typeCounts.length);
+        System.arraycopy(other.categoryCounts, 0, categoryCounts, 0, categoryCounts.length);
+    }
+
+    /**
+     * Returns the total victory points of the cards in this deck.
+     * The total is kept up to date as cards are added and drawn, so no scan is needed.
+     */
+    public int getVictoryPoints() {
+        return victoryPoints;
+    }
+
+    /**
+     * Returns how many cards of a type are in this deck.
+     */
+    public int getCount(Card.Type type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    /**
+     * Returns how many cards of a category (money, victory, action) are in this deck.
+     */
+    public int getCount(Card.Type.Category category) {
+        return categoryCounts[category.ordinal()];
     }
 
     // Check if discard pile is empty
     public boolean isEmpty() {
-        return deck.isEmpty();
+        return size == 0;
     }
 
     public int size() {
-        return deck.size();
+        return size;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Card card : deck) {
-            sb.append(card).append("\n");
+        for (int i = 0; i < size; i++) {
+            sb.append(CardCodes.decode(cards[i])).append("\n");
         }
         return sb.toString();
     }
+
+    /**
+     * Read-only list over the deck's current cards, returned by getCards().
+     */
+    private final class CardView extends AbstractList<Card> implements RandomAccess {
+        @Override
+        public Card get(int index) {
+            Objects.checkIndex(index, size);
+            return CardCodes.decode(cards[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
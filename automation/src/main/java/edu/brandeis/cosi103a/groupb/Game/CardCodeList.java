@@ -0,0 +1,82 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+import java.util.*;
+
+import edu.brandeis.cosi.atg.api.cards.Card;
+import edu.brandeis.cosi103a.groupb.Decks.CardCodes;
+
+/**
+ * A growable list of cards stored as short codes (see CardCodes), used for
+ * the two halves of the active player's hand.
+ *
+ * view() is a read-only List of Card over the current contents, decoding
+ * each card as it is read.
+ */
+final class CardCodeList {
+    private short[] codes = new short[8];
+    private int size = 0;
+    private final List<Card> view = new View();
+
+    int size() {
+        return size;
+    }
+
+    short get(int index) {
+        Objects.checkIndex(index, size);
+        return codes[index];
+    }
+
+    void add(short code) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        codes[size++] = code;
+    }
+
+    /**
+     * Removes the first occurrence of a code, keeping the order of the rest.
+     *
+     * @return True if the code was found
+     */
+    boolean remove(short code) {
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == code) {
+                System.arraycopy(codes, i + 1, codes, i, size - i - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void copyFrom(CardCodeList other) {
+        if (codes.length < other.size) {
+            codes = new short[other.codes.length];
+        }
+        System.arraycopy(other.codes, 0, codes, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * Returns a read-only view of the cards. The view is not a copy.
+     */
+    List<Card> view() {
+        return view;
+    }
+
+    private final class View extends AbstractList<Card> implements RandomAccess {
+        @Override
+        public Card get(int index) {
+            return CardCodes.decode(CardCodeList.this.get(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
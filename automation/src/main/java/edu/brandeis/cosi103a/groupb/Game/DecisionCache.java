@@ -0,0 +1,165 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+import java.util.*;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.brandeis.cosi.atg.api.GameState;
+import edu.brandeis.cosi.atg.api.cards.Card;
+import edu.brandeis.cosi.atg.api.decisions.*;
+
+/**
+ * Shared, immutable Decision objects for the engine's option lists.
+ *
+ * There is only one BuyDecision or GainCardDecision per card type and one
+ * EndPhaseDecision per phase, so these are created once for all games.
+ * Decisions about a specific card are created the first time that card is
+ * offered and reused for the rest of the game. Buy and gain option lists are
+ * also cached, since they only change when the money available or the set of
+ * non-empty supply piles changes.
+ *
+ * Each engine owns its own cache; it is not thread-safe.
+ */
+class DecisionCache {
+    private static final Card.Type[] TYPES = Card.Type.values();
+    private static final BuyDecision[] BUY = new BuyDecision[TYPES.length];
+    private static final GainCardDecision[] GAIN = new GainCardDecision[TYPES.length];
+    private static final EndPhaseDecision[] END_PHASE = new EndPhaseDecision[GameState.TurnPhase.values().length];
+    private static final int MAX_COST;
+
+    static {
+        int maxCost = 0;
+        for (Card.Type type : TYPES) {
+            BUY[type.ordinal()] = new BuyDecision(type);
+            GAIN[type.ordinal()] = new GainCardDecision(type);
+            maxCost = Math.max(maxCost, type.getCost());
+        }
+        for (GameState.TurnPhase phase : GameState.TurnPhase.values()) {
+            END_PHASE[phase.ordinal()] = new EndPhaseDecision(phase);
+        }
+        MAX_COST = maxCost;
+    }
+
+    private final Map<Card, PlayCardDecision> playDecisions = new HashMap<>();
+    private final Map<Card, DiscardCardDecision> discardDecisions = new HashMap<>();
+    private final Map<Card, TrashCardDecision> trashDecisions = new HashMap<>();
+
+    // Buy and gain lists indexed by money (or max cost), valid for one set of non-empty piles
+    private long cachedMask = -1;
+    @SuppressWarnings("unchecked")
+    private final ImmutableList<Decision>[] buyOptions = new ImmutableList[MAX_COST + 1];
+    @SuppressWarnings("unchecked")
+    private final ImmutableList<Decision>[] gainOptions = new ImmutableList[MAX_COST + 1];
+
+    // Scratch list reused by every option list the engine builds
+    private final List<Decision> options = new ArrayList<>();
+
+    static BuyDecision buy(Card.Type type) {
+        return BUY[type.ordinal()];
+    }
+
+    static GainCardDecision gain(Card.Type type) {
+        return GAIN[type.ordinal()];
+    }
+
+    static EndPhaseDecision endPhase(GameState.TurnPhase phase) {
+        return END_PHASE[phase.ordinal()];
+    }
+
+    PlayCardDecision play(Card card) {
+        return playDecisions.computeIfAbsent(card, PlayCardDecision::new);
+    }
+
+    DiscardCardDecision discard(Card card) {
+        return discardDecisions.computeIfAbsent(card, DiscardCardDecision::new);
+    }
+
+    TrashCardDecision trash(Card card) {
+        return trashDecisions.computeIfAbsent(card, TrashCardDecision::new);
+    }
+
+    /**
+     * Clears the scratch list and starts a new option list.
+     */
+    List<Decision> begin() {
+        options.clear();
+        return options;
+    }
+
+    /**
+     * Returns the option list built since the last call to begin().
+     */
+    ImmutableList<Decision> build() {
+        return ImmutableList.copyOf(options);
+    }
+
+    /**
+     * Returns the BUY phase options: one BuyDecision for every non-empty pile
+     * the player can afford, followed by the option to end the phase.
+     *
+     * @param types The types in the supply, in the order they are offered
+     * @param counts Cards left in the supply, indexed by Card.Type.ordinal()
+     * @param availableMask Bit set for every type with cards left
+     * @param money The player's spendable money
+     */
+    ImmutableList<Decision> buyOptions(Card.Type[] types, int[] counts, long availableMask, int money) {
+        if (money < 0) {
+            return ImmutableList.of(endPhase(GameState.TurnPhase.BUY));
+        }
+        int key = Math.min(money, MAX_COST);
+        refreshMask(availableMask);
+        ImmutableList<Decision> cached = buyOptions[key];
+        if (cached == null) {
+            ImmutableList.Builder<Decision> builder = ImmutableList.builder();
+            for (Card.Type type : types) {
+                if (counts[type.ordinal()] > 0 && key >= type.getCost()) {
+                    builder.add(buy(type));
+                }
+            }
+            builder.add(endPhase(GameState.TurnPhase.BUY));
+            cached = builder.build();
+            buyOptions[key] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Returns a GainCardDecision for every non-empty pile costing at most maxCost.
+     * The list is empty if nothing can be gained.
+     *
+     * @param types The types in the supply, in the order they are offered
+     * @param counts Cards left in the supply, indexed by Card.Type.ordinal()
+     * @param availableMask Bit set for every type with cards left
+     * @param maxCost The most a gained card may cost
+     */
+    ImmutableList<Decision> gainOptions(Card.Type[] types, int[] counts, long availableMask, int maxCost) {
+        if (maxCost < 0) {
+            return ImmutableList.of();
+        }
+        int key = Math.min(maxCost, MAX_COST);
+        refreshMask(availableMask);
+        ImmutableList<Decision> cached = gainOptions[key];
+        if (cached == null) {
+            ImmutableList.Builder<Decision> builder = ImmutableList.builder();
+            for (Card.Type type : types) {
+                if (counts[type.ordinal()] > 0 && type.getCost() <= key) {
+                    builder.add(gain(type));
+                }
+            }
+            cached = builder.build();
+            gainOptions[key] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Drops the cached buy and gain lists if a supply pile has run out since they were built.
+     */
+    private void refreshMask(long mask) {
+        if (mask != cachedMask) {
+            cachedMask = mask;
+            Arrays.fill(buyOptions, null);
+            Arrays.fill(gainOptions, null);
+        }
+    }
+}
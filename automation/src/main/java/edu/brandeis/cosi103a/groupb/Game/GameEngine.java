@@ -10,33 +10,166 @@ import edu.brandeis.cosi.atg.api.*;
 import edu.brandeis.cosi.atg.api.cards.Card;
 import edu.brandeis.cosi.atg.api.decisions.*;
 import edu.brandeis.cosi.atg.api.event.*;
+import edu.brandeis.cosi103a.groupb.Decks.CardCodes;
 import edu.brandeis.cosi103a.groupb.Decks.DrawDeck;
 import edu.brandeis.cosi103a.groupb.Player.AtgPlayer;
 
-public class GameEngine implements Engine {
-    private GameDeck deck;
+public class GameEngine implements Engine, ScoreProvider {
+    private static final Card.Type[] CARD_TYPES = Card.Type.values();
+
     private final AtgPlayer player1;
     private final AtgPlayer player2;
     private final GameObserver observer;
-    private GameState gameState;
-    private final List<Card> physicalDeck = new ArrayList<>();
+    private final TurnState turn = new TurnState();
+    private final DecisionCache decisions = new DecisionCache();
+    // Supply state indexed by Card.Type.ordinal(); the GameDeck view is only built when needed
+    private final SupplyPile[] physicalDeck = new SupplyPile[CARD_TYPES.length];
+    private final int[] supplyCounts = new int[CARD_TYPES.length];
+    private Card.Type[] supplyTypes;
+    private long availableMask = 0; // bit set for every type with cards left
+    private GameDeck deck; // cached view of the counts, null after the supply changes
     private int turnCount = 1; //For logging
+    private final int[][] cardsBought = new int[2][CARD_TYPES.length]; // per player, by type ordinal
+    private final int[][] cardsTrashed = new int[2][CARD_TYPES.length]; // per player, by type ordinal
+    private final int[] bugsReceived = new int[2]; // BUGs given to each player by EVERGREEN_TEST
     private int cardTotalCount = 0;
-
-    private static GameEngine currentEngine;
+    private final long seed;
+    private final SplittableRandom random;
+    private TraceSink trace = TraceSink.CONSOLE;
+    private int supplySize = 0;
+    // Seating and position, kept in fields so that a forked game can carry on from them
+    private AtgPlayer[] turnOrder;
+    private int currentSeat = 0;
+    private boolean midTurn = false;
+    private AtgPlayer lastDecider; // player asked for the most recent decision
+    private boolean timeLimited = false;
+    private long deadline; // System.nanoTime() by which the game must end, if time limited
+    // The caches above belong to the thread playing the game. Other threads read what it publishes.
+    private final Object publishLock = new Object();
+    private volatile Thread gameThread; // thread inside play() or playOut(), or null
+    private volatile Published published;
 
     public GameEngine(AtgPlayer player1, AtgPlayer player2, GameObserver observer, GameDeck deck) {
+        this(player1, player2, observer, deck, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates an engine whose shuffles and turn order are all derived from one seed.
+     * Two engines built with the same seed and players play identical games.
+     */
+    public GameEngine(AtgPlayer player1, AtgPlayer player2, GameObserver observer, GameDeck deck, long seed) {
         this.player1 = player1;
         this.player2 = player2;
         this.observer = observer;
-        this.deck = deck;
-        initializePhysicalDeck();
-        this.gameState = null;
-        currentEngine = this;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        initializePhysicalDeck(deck);
+        player1.setScoreProvider(this);
+        player2.setScoreProvider(this);
+    }
+
+    /**
+     * Copies a running game onto two stand-in players. Used by fork().
+     */
+    private GameEngine(GameEngine original, AtgPlayer standIn1, AtgPlayer standIn2, long seed) {
+        this.player1 = standIn1;
+        this.player2 = standIn2;
+        this.observer = (state, event) -> { };
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.trace = TraceSink.SILENT;
+
+        // Supply: piles share their card arrays, the views are immutable
+        for (int i = 0; i < CARD_TYPES.length; i++) {
+            if (original.physicalDeck[i] != null) {
+                this.physicalDeck[i] = new SupplyPile(original.physicalDeck[i]);
+            }
+        }
+        System.arraycopy(original.supplyCounts, 0, this.supplyCounts, 0, CARD_TYPES.length);
+        this.supplyTypes = original.supplyTypes;
+        this.availableMask = original.availableMask;
+        this.deck = original.deck;
+        this.supplySize = original.supplySize;
+        this.cardTotalCount = original.cardTotalCount;
+
+        // Players: copy the decks, share the immutable hands
+        copyPlayer(original.player1, standIn1);
+        copyPlayer(original.player2, standIn2);
+
+        // Position in the game
+        this.turnCount = original.turnCount;
+        for (int p = 0; p < 2; p++) {
+            System.arraycopy(original.cardsBought[p], 0, this.cardsBought[p], 0, CARD_TYPES.length);
+            System.arraycopy(original.cardsTrashed[p], 0, this.cardsTrashed[p], 0, CARD_TYPES.length);
+            this.bugsReceived[p] = original.bugsReceived[p];
+        }
+        this.currentSeat = original.currentSeat;
+        this.midTurn = original.midTurn;
+        if (original.turnOrder != null) {
+            this.turnOrder = new AtgPlayer[] {standInFor(original, original.turnOrder[0]), standInFor(original, original.turnOrder[1])};
+        }
+        if (original.turn.getPlayer() != null) {
+            this.turn.copyFrom(original.turn, standInFor(original, original.turn.getPlayer()));
+        }
+
+        standIn1.setScoreProvider(this);
+        standIn2.setScoreProvider(this);
+    }
+
+    private void copyPlayer(AtgPlayer from, AtgPlayer to) {
+        to.getDrawDeck().copyFrom(from.getDrawDeck());
+        to.getDiscardDeck().copyFrom(from.getDiscardDeck());
+        to.getDrawDeck().setRandom(random.split());
+        to.getDrawDeck().setLazyShuffle(true);
+        to.getDiscardDeck().setRandom(random.split());
+        to.setHand(from.getHand());
+    }
+
+    private AtgPlayer standInFor(GameEngine original, AtgPlayer player) {
+        return player == original.player1 ? this.player1 : this.player2;
+    }
+
+    /**
+     * Creates an independent copy of this game, at its current position, in which
+     * two stand-in players take over the seats. Search-based players can roll the
+     * copy out with playOut() to evaluate a position.
+     *
+     * The copy shares everything that is immutable (supply card arrays, hands, the
+     * GameDeck view) and copies the rest, so it is cheap enough to fork many times
+     * per decision. It is silent, reports to no observer, and draws its randomness
+     * from the given seed, so forking never disturbs this game's own shuffles.
+     *
+     * Note that the stand-ins receive the real order of both draw decks; shuffle
+     * them first if the fork should not see hidden information.
+     *
+     * @param standIn1 Plays player 1's seat in the copy
+     * @param standIn2 Plays player 2's seat in the copy
+     * @param seed Seed for the copy's shuffles
+     * @return The forked game
+     */
+    public GameEngine fork(AtgPlayer standIn1, AtgPlayer standIn2, long seed) {
+        return new GameEngine(this, standIn1, standIn2, seed);
     }
 
     @EngineCreator
     public static Engine createEngine(AtgPlayer player1, AtgPlayer player2, GameObserver observer) {
+        return new GameEngine(player1, player2, observer, createGameDeck());
+    }
+
+    /**
+     * Creates an engine for a reproducible game. Replaying with the same seed and
+     * the same players produces the same game, card for card.
+     * A plain factory: the framework creates engines through the
+     * three-argument createEngine, the only one marked with @EngineCreator.
+     */
+    public static Engine createEngine(AtgPlayer player1, AtgPlayer player2, GameObserver observer, long seed) {
+        return new GameEngine(player1, player2, observer, createGameDeck(), seed);
+    }
+
+    /**
+     * Returns the supply every game starts with.
+     */
+    public static GameDeck createGameDeck() {
         // Encapsulate the creation of the game deck
         List<Card.Type> actionCards = Arrays.stream(Card.Type.values())
         .filter(type -> type.getCategory() == Card.Type.Category.ACTION)
@@ -53,33 +186,85 @@ public class GameEngine implements Engine {
         for (Card.Type actionType : actionCards) {
             cardCounts.put(actionType, 10);
         }
-        GameDeck deck = new GameDeck(ImmutableMap.copyOf(cardCounts));
-        return new GameEngine(player1, player2, observer, deck);
+        return new GameDeck(ImmutableMap.copyOf(cardCounts));
     }
 
-    private void initializePhysicalDeck() {
-        for (Card.Type type : this.deck.getCardTypes()) {
-            int count = this.deck.getNumAvailable(type);
-            for (int i = 0; i < count; i++) {
-                physicalDeck.add(new Card(type, i)); // Create a new card and add it to the deck
+    /**
+     * Builds one supply pile per card type. Each pile is shuffled so that
+     * copies are handed out in random order, as with the old single shuffled deck.
+     */
+    private void initializePhysicalDeck(GameDeck initialDeck) {
+        SplittableRandom supplyRandom = random.split();
+        List<Card.Type> types = new ArrayList<>();
+        int totalCards = 0;
+        // Visit the types in declaration order so a seeded game shuffles the same piles in the same order
+        for (Card.Type type : CARD_TYPES) {
+            if (!initialDeck.getCardCounts().containsKey(type)) {
+                continue;
+            }
+            int count = initialDeck.getNumAvailable(type);
+            SupplyPile pile = new SupplyPile(type, count);
+            pile.shuffle(supplyRandom);
+            physicalDeck[type.ordinal()] = pile;
+            supplyCounts[type.ordinal()] = count;
+            if (count > 0) {
+                availableMask |= 1L << type.ordinal();
             }
+            types.add(type);
+            totalCards += count;
             this.cardTotalCount = count;
         }
-        Collections.shuffle(physicalDeck); // Shuffle the deck
-        System.out.println("Physical deck initialized with " + physicalDeck.size() + " cards.");
+        this.supplyTypes = types.toArray(new Card.Type[0]);
+        this.supplySize = totalCards;
     }
 
+    /**
+     * Takes a card of the given type from its supply pile.
+     */
     private Card drawCardFromGameDeck(Card.Type cardType) {
-        // Search for a card of the specified type in the physical deck
-        for (Card card : physicalDeck) {
-            if (card.getType() == cardType) {
-                physicalDeck.remove(card); // Remove the card from the physical deck
-                //System.out.println("DEBUG: Removing card of type " + cardType + " from the physical deck.");
-                return card; // Return the drawn card
+        return CardCodes.decode(drawCodeFromGameDeck(cardType));
+    }
+
+    /**
+     * Takes a card of the given type from its supply pile in constant time
+     * and returns its code (see CardCodes).
+     * Only the primitive count is updated; the GameDeck view is rebuilt the
+     * next time someone asks for it.
+     */
+    private short drawCodeFromGameDeck(Card.Type cardType) {
+        int index = cardType.ordinal();
+        SupplyPile pile = physicalDeck[index];
+        if (pile == null || supplyCounts[index] == 0) {
+            throw new IllegalStateException("No cards of type " + cardType + " are available in the physical deck.");
+        }
+        short card = pile.takeCode();
+        if (--supplyCounts[index] == 0) {
+            availableMask &= ~(1L << index);
+        }
+        this.deck = null;
+        return card;
+    }
+
+    /**
+     * Returns the number of cards of a type left in the supply.
+     */
+    private int supplyCount(Card.Type type) {
+        return supplyCounts[type.ordinal()];
+    }
+
+    /**
+     * Returns a read-only GameDeck view of the supply counts. The view is built
+     * at most once per change to the supply, and only when a snapshot needs it.
+     */
+    private GameDeck supplyView() {
+        if (deck == null) {
+            ImmutableMap.Builder<Card.Type, Integer> counts = ImmutableMap.builder();
+            for (Card.Type type : supplyTypes) {
+                counts.put(type, supplyCounts[type.ordinal()]);
             }
+            deck = new GameDeck(counts.build());
         }
-        // If no card of the specified type is found, throw an exception
-        throw new IllegalStateException("No cards of type " + cardType + " are available in the physical deck.");
+        return deck;
     }
     
     /**
@@ -89,84 +274,135 @@ public class GameEngine implements Engine {
      */
     private void initializeGameState(AtgPlayer player) throws PlayerViolationException {
         DrawDeck drawDeck = player.getDrawDeck();
+        // Each deck gets its own generator so the player's shuffles do not depend on the other player's
+        drawDeck.setRandom(random.split());
+        drawDeck.setLazyShuffle(true);
+        player.getDiscardDeck().setRandom(random.split());
     
         // Add 7 Bitcoin cards to the player's draw deck
         for (int i = 0; i < 7; i++) {
-            Card card = drawCardFromGameDeck(Card.Type.BITCOIN); // Explicitly draw a Bitcoin card
-            drawDeck.addCard(card); // Add to player's DrawDeck
+            short card = drawCodeFromGameDeck(Card.Type.BITCOIN); // Explicitly draw a Bitcoin card
+            drawDeck.addCode(card); // Add to player's DrawDeck
         }
     
         // Add 3 Method cards to the player's draw deck
         for (int i = 0; i < 3; i++) {
-            Card card = drawCardFromGameDeck(Card.Type.METHOD); // Explicitly draw a Method card
-            drawDeck.addCard(card); // Add to player's DrawDeck
+            short card = drawCodeFromGameDeck(Card.Type.METHOD); // Explicitly draw a Method card
+            drawDeck.addCode(card); // Add to player's DrawDeck
         }
-        Map<Card.Type, Integer> cardCounts = new HashMap<>(this.deck.getCardCounts());
-        cardCounts.put(Card.Type.BITCOIN, cardCounts.get(Card.Type.BITCOIN) - 7);
-        cardCounts.put(Card.Type.METHOD, cardCounts.get(Card.Type.METHOD) - 3);
-        this.deck = new GameDeck(ImmutableMap.copyOf(cardCounts));
         // Shuffle the player's draw deck
         drawDeck.shuffle();
     
-        System.out.println("Initialized " + player.getName() + "'s draw deck.");
-        this.gameState = new GameState(
-            player.getName(),
-            new Hand(ImmutableList.copyOf(new ArrayList<Card>()), ImmutableList.copyOf(new ArrayList<Card>())),
-            GameState.TurnPhase.ACTION,
-            1, // Starting actions
-            0, // Starting money
-            1, // Starting buys
-            deck
-        );
+        if (trace.isEnabled()) trace.println("Initialized " + player.getName() + "'s draw deck.");
+        turn.begin(player, GameState.TurnPhase.ACTION, 1, 0, 1);
         this.distributeCard(player);
     }
 
     @Override
     public ImmutableList<Player.ScorePair> play() throws PlayerViolationException {
-        Random rand = new Random();
-        int seed = rand.nextInt(2) + 1;
-
-        if (seed == 1) {
-            System.out.println(player1.getName() + ", you got lucky this time. You get to start first!");
-            System.out.println(player2.getName() + ", don't be upset. Maybe your luck will come later!\n");
-
-            // Initialize the game
-            initializeGameState(player1);
-            initializeGameState(player2);
-
-            while (!isGameOver()) {
-                processTurn(player1);
-                if (isGameOver()) break;
-                processTurn(player2);
-                turnCount++;
-            }
+        boolean claimed = claimGameThread();
+        try {
+            return playNewGame();
+        } finally {
+            releaseGameThread(claimed);
+        }
+    }
+
+    private ImmutableList<Player.ScorePair> playNewGame() throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Physical deck initialized with " + supplySize + " cards.");
+        int firstPlayer = random.nextInt(2) + 1;
+
+        if (firstPlayer == 1) {
+            if (trace.isEnabled()) trace.println(player1.getName() + ", you got lucky this time. You get to start first!");
+            if (trace.isEnabled()) trace.println(player2.getName() + ", don't be upset. Maybe your luck will come later!\n");
+            turnOrder = new AtgPlayer[] {player1, player2};
         } else {
-            System.out.println(player2.getName() + ", you got lucky this time. You get to start first!");
-            System.out.println(player1.getName() + ", don't be upset. Maybe your luck will come later!\n");
-
-            // Initialize the game
-            initializeGameState(player2);
-            initializeGameState(player1);
-
-            while (!isGameOver()) {
-                processTurn(player2);
-                if (isGameOver()) break;
-                processTurn(player1);
-                turnCount++;
-            }
+            if (trace.isEnabled()) trace.println(player2.getName() + ", you got lucky this time. You get to start first!");
+            if (trace.isEnabled()) trace.println(player1.getName() + ", don't be upset. Maybe your luck will come later!\n");
+            turnOrder = new AtgPlayer[] {player2, player1};
+        }
+
+        // Initialize the game
+        initializeGameState(turnOrder[0]);
+        initializeGameState(turnOrder[1]);
+        currentSeat = 0;
+
+        return playToEnd();
+    }
+
+    /**
+     * Plays the game from its current position to the end. For a new game this
+     * is called by play(); for a fork it continues the turn that was in progress
+     * when the fork was taken, then plays the remaining turns.
+     *
+     * @return The final scores, highest first
+     * @throws IllegalStateException if the game has not been started
+     */
+    public ImmutableList<Player.ScorePair> playOut() throws PlayerViolationException {
+        boolean claimed = claimGameThread();
+        try {
+            return playToEnd();
+        } finally {
+            releaseGameThread(claimed);
+        }
+    }
+
+    private ImmutableList<Player.ScorePair> playToEnd() throws PlayerViolationException {
+        if (turnOrder == null) {
+            throw new IllegalStateException("The game has not been started yet");
+        }
+        if (midTurn) {
+            resumeTurn(turnOrder[currentSeat]);
+            endTurn();
         }
+        while (!isGameOver()) {
+            processTurn(turnOrder[currentSeat]);
+            endTurn();
+        }
+
+        // Check the running totals against a full recount (only with assertions enabled)
+        assert scoresMatchRecount() : "Running victory point totals do not match a recount";
 
         // Return the final scores as an ImmutableList
         return computeScores();
     }
 
+    /**
+     * Passes play to the other seat. A round ends after the second player's turn.
+     */
+    private void endTurn() {
+        if (currentSeat == 1) {
+            turnCount++;
+        }
+        currentSeat ^= 1;
+    }
 
     private void processTurn(AtgPlayer player) throws PlayerViolationException {
+        midTurn = true;
         // NEW: Process Action Phase before existing phases.
         handleActionPhase(player);
         handleMoneyPhase(player);
         handleBuyPhase(player);
         handleCleanupPhase(player);
+        midTurn = false;
+    }
+
+    /**
+     * Finishes a turn from the phase recorded in the turn state. A turn that was
+     * forked during a card effect (DISCARD, GAIN or REACTION) carries on in the
+     * ACTION phase; the rest of that effect is not replayed.
+     */
+    private void resumeTurn(AtgPlayer player) throws PlayerViolationException {
+        GameState.TurnPhase phase = turn.getPhase();
+        if (phase != GameState.TurnPhase.MONEY && phase != GameState.TurnPhase.BUY && phase != GameState.TurnPhase.CLEANUP) {
+            turn.setPhase(GameState.TurnPhase.ACTION);
+            runActionPhase(player);
+        }
+        // Each phase handler does nothing if the turn is already past its phase
+        handleMoneyPhase(player);
+        handleBuyPhase(player);
+        handleCleanupPhase(player);
+        midTurn = false;
     }
 
     /**
@@ -175,309 +411,178 @@ public class GameEngine implements Engine {
      */
     private void handleActionPhase(AtgPlayer player) throws PlayerViolationException {
         // Initialize Action Phase with 1 starting action.
-        observer.notifyEvent(gameState, new GameEvent(player.getName() + " -- begins ACTION phase."));
+        notifyEvent(new GameEvent(player.getName() + " -- begins ACTION phase."));
         // Reinitialize the state for a new player
-        this.gameState = new GameState(
-            player.getName(),
-            player.getHand(),
-            GameState.TurnPhase.ACTION, 
-            1,
-            0,
-            1,
-            deck
-        );
+        turn.begin(player, player.getHand(), GameState.TurnPhase.ACTION, 1, 0, 1);
+        runActionPhase(player);
+    }
+
+    private void runActionPhase(AtgPlayer player) throws PlayerViolationException {
         // Loop until the player chooses to end the Action Phase.
-        while (gameState.getTurnPhase() == GameState.TurnPhase.ACTION && gameState.getAvailableActions() >= 1) {
-            List<Decision> options = new ArrayList<>();
-            List<Card> unplayedActions = new ArrayList<>();
+        while (turn.getPhase() == GameState.TurnPhase.ACTION && turn.getActions() >= 1) {
+            List<Decision> options = decisions.begin();
             // List all unplayed action cards in hand (assumes Card.Type.Category.ACTION is defined)
-            for (Card card : gameState.getCurrentPlayerHand().getUnplayedCards()) {
+            for (Card card : turn.getUnplayed()) {
                 if (card.getType().getCategory() == Card.Type.Category.ACTION && card.getType() != Card.Type.MONITORING) {
-                    unplayedActions.add(card);
-                    options.add(new PlayCardDecision(card));
+                    options.add(decisions.play(card));
                 }
             }
             // Always provide an option to end the Action Phase.
-            options.add(new EndPhaseDecision(GameState.TurnPhase.ACTION));
-            ImmutableList<Decision> immutableOptions = ImmutableList.copyOf(options);
-            Decision decision = player.makeDecision(gameState, immutableOptions, Optional.empty());
+            options.add(DecisionCache.endPhase(GameState.TurnPhase.ACTION));
+            Decision decision = decide(player, decisions.build());
             if (decision instanceof PlayCardDecision playDecision) {
                 Card actionCard = playDecision.getCard();
-                observer.notifyEvent(gameState, new PlayCardEvent(actionCard, player.getName()));
-                // Remove played card from unplayed set and add to played set.
-                List<Card> updatedUnplayed = new ArrayList<>(gameState.getCurrentPlayerHand().getUnplayedCards());
-                updatedUnplayed.remove(actionCard);
-                List<Card> playedCards = new ArrayList<>(gameState.getCurrentPlayerHand().getPlayedCards());
-                playedCards.add(actionCard);
-                Hand newHand = new Hand(ImmutableList.copyOf(playedCards), ImmutableList.copyOf(updatedUnplayed));
-                gameState = new GameState(
-                    player.getName(),
-                    newHand,
-                    gameState.getTurnPhase(),
-                    gameState.getAvailableActions()-1,
-                    gameState.getSpendableMoney(),
-                    gameState.getAvailableBuys(),
-                    deck
-                );
-                this.updatePlayerHand(player);
+                notifyEvent(new PlayCardEvent(actionCard, player.getName()));
+                // Move the card from the unplayed set to the played set.
+                turn.play(actionCard);
+                turn.addActions(-1);
                 // Dispatch the action card effect based on card type.
                 switch (actionCard.getType()) {
                     case BACKLOG:
-                        gameState = processBacklogEffect(player, gameState);
+                        processBacklogEffect(player);
                         break;
                     case HACK:
-                        gameState = processHackEffect(player, gameState);
+                        processHackEffect(player);
                         break;
                     case DAILY_SCRUM:
-                        gameState = processDailyScrumEffect(player, gameState);
+                        processDailyScrumEffect(player);
                         break;
                     case IPO:
-                        gameState = processIpoEffect(player, gameState);
+                        processIpoEffect(player);
                         break;
                     case CODE_REVIEW:
-                        gameState = processCodeReviewEffect(player, gameState);
+                        processCodeReviewEffect(player);
                         break;
                     case TECH_DEBT:
-                        gameState = processTechDebtEffect(player, gameState);
+                        processTechDebtEffect(player);
                         break;
                     case REFACTOR:
-                        gameState = processRefactorEffect(player, gameState);
+                        processRefactorEffect(player);
                         break;
                     case PARALLELIZATION:
-                        gameState = processParallelizationEffect(player, gameState);
+                        processParallelizationEffect(player);
                         break;
                     case EVERGREEN_TEST:
-                        gameState = processEvergreenTestEffect(player, gameState);
+                        processEvergreenTestEffect(player);
                         break;
                     default:
-                        System.out.println("Action effect for " + actionCard.getType() + " is not implemented.");
+                        if (trace.isEnabled()) trace.println("Action effect for " + actionCard.getType() + " is not implemented.");
                         break;
                 }
             } else if (decision instanceof EndPhaseDecision) {
                 // End the Action Phase and transition to the Money Phase.
-                gameState = new GameState(
-                    player.getName(),
-                    gameState.getCurrentPlayerHand(),
-                    GameState.TurnPhase.MONEY,
-                    0, // Reset available actions
-                    gameState.getSpendableMoney(),
-                    gameState.getAvailableBuys(),
-                    deck
-                );
-                observer.notifyEvent(gameState, new GameEvent(player.getName() + " -- ends ACTION phase."));
+                turn.setPhase(GameState.TurnPhase.MONEY);
+                turn.setActions(0);
+                notifyEvent(new GameEvent(player.getName() + " -- ends ACTION phase."));
             } else {
                 throw new PlayerViolationException("Invalid decision in ACTION phase");
             }
         }
-        gameState = new GameState(
-            player.getName(),
-            gameState.getCurrentPlayerHand(),
-            GameState.TurnPhase.MONEY,
-            0, // Reset available actions
-            gameState.getSpendableMoney(),
-            gameState.getAvailableBuys(),
-            deck
-        );
+        turn.setPhase(GameState.TurnPhase.MONEY);
+        turn.setActions(0);
     }
 
     private void handleMoneyPhase(AtgPlayer player) throws PlayerViolationException {    
         // 1). Allow the player to play cards to earn money
-        while (gameState.getTurnPhase() == GameState.TurnPhase.MONEY) {
-            List<Decision> options = new ArrayList<>();
-            List<Card> updatedUnplayedCards = new ArrayList<>(gameState.getCurrentPlayerHand().getUnplayedCards());
-            List<Card> playedCards = new ArrayList<>(gameState.getCurrentPlayerHand().getPlayedCards());
+        while (turn.getPhase() == GameState.TurnPhase.MONEY) {
+            List<Decision> options = decisions.begin();
     
             // Add options to play money cards
-            for (Card card : updatedUnplayedCards) {
+            for (Card card : turn.getUnplayed()) {
                 if (card.getType().getCategory() == Card.Type.Category.MONEY) { // Player can only play money cards
-                    options.add(new PlayCardDecision(card));
+                    options.add(decisions.play(card));
                 }
             }
     
             // Add an option to end the Money Phase
-            options.add(new EndPhaseDecision(GameState.TurnPhase.MONEY));
-    
-           //System.out.println("DEBUG: Available decisions -> " + options.size());
-    
-            // Convert options to an ImmutableList
-            ImmutableList<Decision> immutableOptions = ImmutableList.copyOf(options);
+            options.add(DecisionCache.endPhase(GameState.TurnPhase.MONEY));
     
-            // Create an empty Optional<Event>
-            Optional<Event> optionalEvent = Optional.empty();
-    
-            // Call makeDecision with all required arguments
-            Decision decision = player.makeDecision(gameState, immutableOptions, optionalEvent);
+            Decision decision = decide(player, decisions.build());
     
             if (decision instanceof PlayCardDecision playCardDecision) {
                 Card playedCard = playCardDecision.getCard();
-                updatedUnplayedCards.remove(playedCard);
-                playedCards.add(playedCard);
-                observer.notifyEvent(gameState, new PlayCardEvent(playedCard, player.getName()));
-    
+                notifyEvent(new PlayCardEvent(playedCard, player.getName()));
+                turn.play(playedCard);
                 // ✅ Increase spendable money when playing a money card
-                int newMoney = gameState.getSpendableMoney() + playedCard.getType().getValue();
-                //System.out.println("DEBUG: Updated spendable money: " + newMoney);
-                Hand newHand = new Hand(
-                    ImmutableList.copyOf(playedCards),
-                    ImmutableList.copyOf(updatedUnplayedCards)
-                );
-                // ✅ Update the game state with increased money
-                gameState = new GameState(
-                    player.getName(), 
-                    newHand,
-                    gameState.getTurnPhase(),
-                    gameState.getAvailableActions(),
-                    newMoney,
-                    gameState.getAvailableBuys(),
-                    deck
-                );
-                this.updatePlayerHand(player);
+                turn.addMoney(playedCard.getType().getValue());
             } else if (decision instanceof EndPhaseDecision) {
                 // End the Money Phase and move to the Buy Phase
-                gameState = new GameState(
-                    player.getName(),
-                    gameState.getCurrentPlayerHand(),
-                    GameState.TurnPhase.BUY,
-                    gameState.getAvailableActions(),
-                    gameState.getSpendableMoney(),
-                    gameState.getAvailableBuys(),
-                    deck
-                );
+                turn.setPhase(GameState.TurnPhase.BUY);
             } else {
                 throw new PlayerViolationException("Invalid decision in MONEY phase");
             }
         }
+        player.setHand(turn.hand());
     }
     
     private void handleBuyPhase(AtgPlayer player) throws PlayerViolationException {
-        //System.out.println("DEBUG: Entering BUY phase. Available money: " + gameState.getSpendableMoney());
-    
-        while (gameState.getTurnPhase() == GameState.TurnPhase.BUY && gameState.getAvailableBuys() >= 1) {
-            List<Decision> options = new ArrayList<>();
-    
-            // ✅ Add buyable cards based on money
-            for (Card.Type type : deck.getCardTypes()) {
-                if (deck.getNumAvailable(type) > 0 && gameState.getSpendableMoney() >= type.getCost()) {
-                    //System.out.println("DEBUG: Adding buy option for " + type + " (Cost: " + type.getCost() + ", Value: " + type.getValue() + ")");
-                    options.add(new BuyDecision(type));
-                }
-            }
-    
-            // Add an option to end the Buy Phase
-            options.add(new EndPhaseDecision(GameState.TurnPhase.BUY));
-    
-            //System.out.println("DEBUG: Available decisions in BUY phase -> " + options.size());
-    
-            // Convert options to an ImmutableList
-            ImmutableList<Decision> immutableOptions = ImmutableList.copyOf(options);
-    
-            // Create an empty Optional<Event>
-            Optional<Event> optionalEvent = Optional.empty();
-    
-            // Call makeDecision with all required arguments
-            Decision decision = player.makeDecision(gameState, immutableOptions, optionalEvent);
+        while (turn.getPhase() == GameState.TurnPhase.BUY && turn.getBuys() >= 1) {
+            // ✅ Buyable cards based on money, plus the option to end the Buy Phase.
+            // The list only changes when the money or the set of non-empty piles does.
+            Decision decision = decide(player, decisions.buyOptions(supplyTypes, supplyCounts, availableMask, turn.getMoney()));
     
             if (decision instanceof BuyDecision buyDecision) {
                 Card.Type boughtCard = buyDecision.getCardType();
-                observer.notifyEvent(gameState, new GainCardEvent(boughtCard, player.getName()));
+                notifyEvent(new GainCardEvent(boughtCard, player.getName()));
+                cardsBought[player == player1 ? 0 : 1][boughtCard.ordinal()]++;
     
                 // Add the bought card to the player's discard deck & remove the card from the physical deck and gamedeck
-                player.getDiscardDeck().addCard(drawCardFromGameDeck(boughtCard));
-                Map<Card.Type, Integer> cardCounts = new HashMap<>(this.deck.getCardCounts());
-                cardCounts.put(boughtCard, cardCounts.get(boughtCard) - 1);
-                this.deck = new GameDeck(ImmutableMap.copyOf(cardCounts));
+                player.getDiscardDeck().addCode(drawCodeFromGameDeck(boughtCard));
     
-                // ✅ Deduct money after buying
-                int newMoney = gameState.getSpendableMoney() - boughtCard.getCost();
-    
-                //System.out.println("DEBUG: Updated spendable money after buying: " + newMoney);
-                //System.out.println("DEBUG: Updated " + player.getName() + "'s discard deck:");
-                System.out.println(player.getDiscardDeck());
-    
-                // ✅ Update game state after a purchase
-                gameState = new GameState(
-                    player.getName(),
-                    gameState.getCurrentPlayerHand(),
-                    gameState.getTurnPhase(),
-                    gameState.getAvailableActions(),
-                    newMoney,
-                    gameState.getAvailableBuys() - 1,
-                    deck
-                );
+                // ✅ Deduct money and a buy after buying
+                turn.addMoney(-boughtCard.getCost());
+                turn.addBuys(-1);
+                if (trace.isEnabled()) trace.println(player.getDiscardDeck().toString());
             } else if (decision instanceof EndPhaseDecision) {
                 // End the Buy Phase and move to the Cleanup Phase
-                gameState = new GameState(
-                    player.getName(),
-                    gameState.getCurrentPlayerHand(),
-                    GameState.TurnPhase.CLEANUP,
-                    gameState.getAvailableActions(),
-                    gameState.getSpendableMoney(),
-                    gameState.getAvailableBuys(),
-                    deck
-                );
+                turn.setPhase(GameState.TurnPhase.CLEANUP);
             } else {
                 throw new PlayerViolationException("Invalid decision in BUY phase");
             }
         }
-        gameState = new GameState(
-            player.getName(),
-            gameState.getCurrentPlayerHand(),
-            GameState.TurnPhase.CLEANUP,
-            gameState.getAvailableActions(),
-            gameState.getSpendableMoney(),
-            gameState.getAvailableBuys(),
-            deck
-        );
+        turn.setPhase(GameState.TurnPhase.CLEANUP);
     }
     
     private void handleCleanupPhase(AtgPlayer player) throws PlayerViolationException {
         // Put hand into discard deck
-        List<Card> cardsToMove = new ArrayList<>();
-        cardsToMove.addAll(gameState.getCurrentPlayerHand().getPlayedCards());
-        cardsToMove.addAll(gameState.getCurrentPlayerHand().getUnplayedCards());
-        player.getDiscardDeck().addAllCards(cardsToMove);
-        //System.out.println("DEBUG: Discarding current hand...");
-        //System.out.println("DEBUG: Updated " + player.getName() + "'s discard deck:");
-        System.out.println(player.getDiscardDeck());
+        turn.addHandTo(player.getDiscardDeck());
+        if (trace.isEnabled()) trace.println(player.getDiscardDeck().toString());
         this.distributeCard(player); // draw 5 new cards at the end of each turn
-        observer.notifyEvent(gameState, new GameEvent(player.getName() + "'s turn ends"));
+        notifyEvent(new GameEvent(player.getName() + "'s turn ends"));
     }
 
     private void distributeCard(AtgPlayer player) throws PlayerViolationException {
-        List<Card> startingHand = new ArrayList<>();
-        player.setHand(new Hand(
-            ImmutableList.copyOf(new ArrayList<Card>()), // Played cards (empty at the start)
-            ImmutableList.copyOf(new ArrayList<Card>()))
-        );
+        // Start an empty hand for the player, keeping the current phase
+        turn.begin(player, turn.getPhase(), 0, 0, 0);
         // Draw 5 cards
-        Hand newHand = this.playerDrawCard(player, 5);    
-        //System.out.println("DEBUG: Assigning hand to " + player.getName() + ":\n" + startingHand + "\n");
-        // Update the GameState after dealing a hand
-        this.gameState = new GameState(
-            player.getName(),
-            newHand,
-            gameState.getTurnPhase(), 
-            0,
-            0,
-            0,
-            deck
-        );
-        this.updatePlayerHand(player);
-        observer.notifyEvent(gameState, new GameEvent(player.getName() + " -- " + "Turn " + turnCount + "."));
+        this.playerDrawCard(player, 5);
+        player.setHand(turn.hand());
+        notifyEvent(new GameEvent(player.getName() + " -- " + "Turn " + turnCount + "."));
     }
 
     private boolean isGameOver() {
-        return deck.getNumAvailable(Card.Type.FRAMEWORK) == 0;
+        return supplyCount(Card.Type.FRAMEWORK) == 0;
     }
 
-    public static List<Player.ScorePair> getCurrentScores() {
-        if (currentEngine == null) {
-            throw new IllegalStateException("GameEngine has not been initialized yet");
+    /**
+     * Returns the current scores, highest first. Safe to call from any thread:
+     * while another thread is playing the game, this returns the scores as of
+     * the last event or decision.
+     */
+    @Override
+    public List<Player.ScorePair> getCurrentScores() {
+        if (Thread.currentThread() != gameThread) {
+            synchronized (publishLock) {
+                if (gameThread == null) {
+                    return computeScores();
+                }
+            }
+            Published view = published;
+            return view == null ? ImmutableList.of() : view.scores(player1, player2);
         }
-        return currentEngine.computeScores();
+        return computeScores();
     }
 
-
     private ImmutableList<Player.ScorePair> computeScores() {
         List<Player.ScorePair> scores = new ArrayList<>();
         scores.add(new Player.ScorePair(player1, calculateScore(player1)));
@@ -490,16 +595,33 @@ public class GameEngine implements Engine {
         return ImmutableList.copyOf(scores);
     }
 
+    /**
+     * Returns a player's score from the running victory point totals kept by
+     * their decks and the current turn, without scanning any cards.
+     */
     private int calculateScore(AtgPlayer player) {
+        int score = player.getDiscardDeck().getVictoryPoints() + player.getDrawDeck().getVictoryPoints();
+        // Add cards from the player's current hand if it's their turn
+        if (turn.getPlayer() == player) {
+            score += turn.getVictoryPoints();
+        }
+        return score;
+    }
+
+    /**
+     * Recounts a player's score from every card they own. Only used to check
+     * the running totals when assertions are enabled.
+     */
+    private int recountScore(AtgPlayer player) {
         // Retrieve all cards from the player's discard and draw decks
         List<Card> playerMainDeck = new ArrayList<>();
         playerMainDeck.addAll(player.getDiscardDeck().getCards()); // Get all cards from discard deck
         playerMainDeck.addAll(player.getDrawDeck().getCards());       // Get all cards from draw deck
     
         // Add cards from the player's current hand if it's their turn
-        if (gameState != null && gameState.getCurrentPlayerName().equals(player.getName())) {
-            playerMainDeck.addAll(gameState.getCurrentPlayerHand().getPlayedCards());
-            playerMainDeck.addAll(gameState.getCurrentPlayerHand().getUnplayedCards());
+        if (turn.getPlayer() == player) {
+            playerMainDeck.addAll(turn.getPlayed());
+            playerMainDeck.addAll(turn.getUnplayed());
         }
     
         // Calculate the score based on VICTORY cards
@@ -510,539 +632,632 @@ public class GameEngine implements Engine {
             }
         }
         return score;
-    }   
+    }
+
+    private boolean scoresMatchRecount() {
+        return calculateScore(player1) == recountScore(player1)
+            && calculateScore(player2) == recountScore(player2);
+    }
 
     // --- Action Card Helper Methods ---
 
     // Detailed implementations for each action card effect in GameEngine
 
     // BACKLOG: +1 Action; Discard any number of cards, then draw that many.
-    private GameState processBacklogEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing BACKLOG effect for " + player.getName());
-        // Grant bonus action.
-        int bonusActions = 1;
+    private void processBacklogEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing BACKLOG effect for " + player.getName());
         int totalDiscarded = 0;
         
-        // Simulate a discard phase.
-        List<Card> currentUnplayed = new ArrayList<>(state.getCurrentPlayerHand().getUnplayedCards());
-        
         // Repeatedly prompt the player for a discard decision.
-        while (!currentUnplayed.isEmpty()) {
+        while (!turn.getUnplayed().isEmpty()) {
             // Build available discard options from current hand.
-            List<Decision> discardOptions = new ArrayList<>();
-            for (Card card : currentUnplayed) {
-                discardOptions.add(new DiscardCardDecision(card));
+            List<Decision> discardOptions = decisions.begin();
+            for (Card card : turn.getUnplayed()) {
+                discardOptions.add(decisions.discard(card));
             }
             // Also include an option to end discarding.
-            discardOptions.add(new EndPhaseDecision(GameState.TurnPhase.DISCARD));
+            discardOptions.add(DecisionCache.endPhase(GameState.TurnPhase.DISCARD));
             
-            ImmutableList<Decision> options = ImmutableList.copyOf(discardOptions);
             // Prompt the player (using their decision method).
-            Decision decision = player.makeDecision(state, options, Optional.empty());
+            Decision decision = decide(player, decisions.build());
             if (decision instanceof DiscardCardDecision discardDecision) {
                 Card discarded = discardDecision.getCard();
-                currentUnplayed.remove(discarded);
+                turn.removeFromHand(discarded);
                 totalDiscarded++;
                 player.getDiscardDeck().addCard(discarded);
-                observer.notifyEvent(state, new DiscardCardEvent(discarded.getType(), player.getName()));
-                System.out.println(player.getName() + " discards " + discarded + " via BACKLOG.");
+                notifyEvent(new DiscardCardEvent(discarded.getType(), player.getName()));
+                if (trace.isEnabled()) trace.println(player.getName() + " discards " + discarded + " via BACKLOG.");
             } else if (decision instanceof EndPhaseDecision) {
                 break;
             } else {
                 throw new PlayerViolationException("Invalid decision during BACKLOG discard phase");
             }
         }
-        System.out.println(player.getName() + " discards " + totalDiscarded + " card(s) via BACKLOG.");
-        player.setHand(new Hand(player.getHand().getPlayedCards(), ImmutableList.copyOf(currentUnplayed)));
-        // Draw as many cards as were discarded.
-        Hand newHand = this.playerDrawCard(player, totalDiscarded);
-        player.setHand(newHand);
-        int newActions = state.getAvailableActions() + bonusActions;
-        System.out.println(player.getName() + " no. of actions after BACKLOG: " + newActions);
-        // Update the GameState with the new hand and bonus actions.
-        return new GameState(
-                state.getCurrentPlayerName(),
-                newHand,
-                state.getTurnPhase(),
-                newActions,
-                state.getSpendableMoney(),
-                state.getAvailableBuys(),
-                state.getDeck()
-        );
+        if (trace.isEnabled()) trace.println(player.getName() + " discards " + totalDiscarded + " card(s) via BACKLOG.");
+        // Draw as many cards as were discarded, and grant the bonus action.
+        this.playerDrawCard(player, totalDiscarded);
+        turn.addActions(1);
+        if (trace.isEnabled()) trace.println(player.getName() + " no. of actions after BACKLOG: " + turn.getActions());
     }
 
     // HACK: (Attack card) +2 Money; Each other player discards down to 3 cards in hand.
-    private GameState processHackEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing HACK effect for " + player.getName());
+    private void processHackEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing HACK effect for " + player.getName());
         // The active player gains +2 money.
-        int newMoney = state.getSpendableMoney() + 2;
+        turn.addMoney(2);
         
         // Identify the opponent (assuming a two-player game)
         AtgPlayer opponent = (player == this.player1) ? this.player2 : this.player1;
         
         // Check opponent's unplayed hand for a MONITORING card.
-        List<Card> oppUnplayed = new ArrayList<>(opponent.getHand().getUnplayedCards());
-        boolean hasMonitoring = false;
-        for (Card card : oppUnplayed) {
-            if (card.getType() == Card.Type.MONITORING) {
-                hasMonitoring = true;
-                break;
-            }
-        }
+        ImmutableList<Decision> reactionOptions = monitoringReactions(opponent);
         // If a MONITORING card is available, prompt with reaction options.
-        if (hasMonitoring) {
-            List<Decision> reactionOptions = new ArrayList<>();
-            for (Card card : oppUnplayed) {
-                if (card.getType() == Card.Type.MONITORING) {
-                    reactionOptions.add(new PlayCardDecision(card)); // Option to reveal
-                }
-            }
-            // Also include an option to not react.
-            reactionOptions.add(new EndPhaseDecision(GameState.TurnPhase.REACTION));
-            ImmutableList<Decision> reactionDecisions = ImmutableList.copyOf(reactionOptions);
-            Decision reaction = opponent.makeDecision(state, reactionDecisions, Optional.empty());
+        if (!reactionOptions.isEmpty()) {
+            Decision reaction = ask(opponent, currentState(), reactionOptions);
             if (reaction instanceof PlayCardDecision playCardDecision) {
                 Card chosenCard = playCardDecision.getCard();
                 // Opponent reveals a MONITORING card and avoids the attack.
-                System.out.println(opponent.getName() + " reveals a MONITORING card to avoid HACK attack.");
-                observer.notifyEvent(state, new PlayCardEvent(chosenCard, opponent.getName()));
+                if (trace.isEnabled()) trace.println(opponent.getName() + " reveals a MONITORING card to avoid HACK attack.");
+                notifyEvent(new PlayCardEvent(chosenCard, opponent.getName()));
                 // gain 2 cards
-                Hand newHand = this.playerDrawCard(opponent, 2);
-                opponent.setHand(newHand);
+                this.playerDrawCard(opponent, 2);
             } else {
                 // Opponent did not reveal; force discard down to 3 cards.
-                System.out.println(opponent.getName() + " does not reveal MONITORING; must discard down to 3 cards.");
-                GameState newState = new GameState(
-                    opponent.getName(),
-                    opponent.getHand(),
-                    GameState.TurnPhase.DISCARD,
-                    0,
-                    0,
-                    0,
-                    state.getDeck()
-                );
-                forcedDiscardDownTo3(opponent, newState);
+                if (trace.isEnabled()) trace.println(opponent.getName() + " does not reveal MONITORING; must discard down to 3 cards.");
+                forcedDiscardDownTo3(opponent);
             }
         } else {
             // No monitoring available; force discard.
-            System.out.println(opponent.getName() + " lacks MONITORING and must discard down to 3 cards.");
-            GameState newState = new GameState(
-                opponent.getName(),
-                opponent.getHand(),
-                GameState.TurnPhase.DISCARD,
-                0,
-                0,
-                0,
-                state.getDeck()
-            );
-            forcedDiscardDownTo3(opponent, newState);
+            if (trace.isEnabled()) trace.println(opponent.getName() + " lacks MONITORING and must discard down to 3 cards.");
+            forcedDiscardDownTo3(opponent);
         }
-        System.out.println(player.getName() + " gains 2 money from HACK attack. Money now: " + newMoney);
-        // Update active player's state with the bonus money.
-        return new GameState(
-            state.getCurrentPlayerName(),
-            state.getCurrentPlayerHand(),
-            GameState.TurnPhase.ACTION,
-            state.getAvailableActions(),
-            newMoney,
-            state.getAvailableBuys(),
-            state.getDeck()
-        );
+        if (trace.isEnabled()) trace.println(player.getName() + " gains 2 money from HACK attack. Money now: " + turn.getMoney());
+    }
+
+    /**
+     * Builds the reaction options for an attacked player: one per MONITORING card
+     * in their hand, plus the option not to react. Returns an empty list if the
+     * player holds no MONITORING card.
+     */
+    private ImmutableList<Decision> monitoringReactions(AtgPlayer opponent) {
+        List<Decision> reactionOptions = decisions.begin();
+        for (Card card : opponent.getHand().getUnplayedCards()) {
+            if (card.getType() == Card.Type.MONITORING) {
+                reactionOptions.add(decisions.play(card)); // Option to reveal
+            }
+        }
+        if (reactionOptions.isEmpty()) {
+            return ImmutableList.of();
+        }
+        // Also include an option to not react.
+        reactionOptions.add(DecisionCache.endPhase(GameState.TurnPhase.REACTION));
+        return decisions.build();
     }
     
     /**
      * Helper to force the opponent to discard until their unplayed hand size is at most 3.
      * Discard decisions (without an EndPhase option) are repeatedly prompted.
      */
-    private void forcedDiscardDownTo3(AtgPlayer opponent, GameState state) throws PlayerViolationException {
-        while(opponent.getHand().getUnplayedCards().size() > 3) {
-            List<Decision> discardOptions = new ArrayList<>();
+    private void forcedDiscardDownTo3(AtgPlayer opponent) throws PlayerViolationException {
+        if (opponent.getHand().getUnplayedCards().size() <= 3) {
+            if (trace.isEnabled()) trace.println(opponent.getName() + " now has " + opponent.getHand().getUnplayedCards().size() + " unplayed card(s).");
+            return;
+        }
+        GameState state = new GameState(
+            opponent.getName(),
+            opponent.getHand(),
+            GameState.TurnPhase.DISCARD,
+            0,
+            0,
+            0,
+            supplyView()
+        );
+        List<Card> unplayed = new ArrayList<>(opponent.getHand().getUnplayedCards());
+        while (unplayed.size() > 3) {
+            List<Decision> discardOptions = decisions.begin();
             // Build a discard option for every card in the opponent's unplayed hand.
-            for (Card card : opponent.getHand().getUnplayedCards()) {
-                discardOptions.add(new DiscardCardDecision(card));
+            for (Card card : unplayed) {
+                discardOptions.add(decisions.discard(card));
             }
-            ImmutableList<Decision> options = ImmutableList.copyOf(discardOptions);
-            Decision decision = opponent.makeDecision(state, options, Optional.empty());
+            Decision decision = ask(opponent, state, decisions.build());
             if (decision instanceof DiscardCardDecision discardDecision) {
                 Card discarded = discardDecision.getCard();
-                // Update the opponent's hand: remove the discarded card.
-                List<Card> played = new ArrayList<>(opponent.getHand().getPlayedCards());
-                List<Card> unplayed = new ArrayList<>(opponent.getHand().getUnplayedCards());
+                // Remove the discarded card and add it to the opponent's discard deck.
+                short code = TurnState.dealtCode(opponent, discarded);
                 unplayed.remove(discarded);
-                opponent.setHand(new Hand(ImmutableList.copyOf(played), ImmutableList.copyOf(unplayed)));
-                // Add discarded card to opponent's discard deck.
-                opponent.getDiscardDeck().addCard(discarded);
-                observer.notifyEvent(state, new DiscardCardEvent(discarded.getType(), opponent.getName()));
-                System.out.println(opponent.getName() + " discards " + discarded + " due to HACK attack.");
+                opponent.getDiscardDeck().addCode(code);
+                notifyEvent(new DiscardCardEvent(discarded.getType(), opponent.getName()));
+                if (trace.isEnabled()) trace.println(opponent.getName() + " discards " + discarded + " due to HACK attack.");
             } else {
                 throw new PlayerViolationException("Invalid decision during forced discard for HACK.");
             }
         }
-        System.out.println(opponent.getName() + " now has " + opponent.getHand().getUnplayedCards().size() + " unplayed card(s).");
+        opponent.setHand(new Hand(opponent.getHand().getPlayedCards(), ImmutableList.copyOf(unplayed)));
+        if (trace.isEnabled()) trace.println(opponent.getName() + " now has " + unplayed.size() + " unplayed card(s).");
     }
 
     // DAILY_SCRUM: +4 Cards, +1 Buy; Each other player draws a card.
-    private GameState processDailyScrumEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing DAILY_SCRUM effect for " + player.getName());
-        // Draw 4 cards for the player.
-        Hand newHand = this.playerDrawCard(player, 4);
-        // Increase available buys by 1.
-        int newBuys = state.getAvailableBuys() + 1;
-        player.setHand(newHand);
-        System.out.println(player.getName() + " draws 4 cards. The available buy is updated to: " + newBuys);
+    private void processDailyScrumEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing DAILY_SCRUM effect for " + player.getName());
+        // Draw 4 cards for the player and increase available buys by 1.
+        this.playerDrawCard(player, 4);
+        turn.addBuys(1);
+        if (trace.isEnabled()) trace.println(player.getName() + " draws 4 cards. The available buy is updated to: " + turn.getBuys());
         // Draw a card for the opponent, assuming there are only 2 players for now
-        AtgPlayer opponent = null;
-        if (player != this.player1) {
-            opponent = this.player1;
-        } else {
-            opponent = this.player2;
-        }
-        // Draw a card for the opponent.
-        Hand opponentNewHand = this.playerDrawCard(opponent, 1);
-        opponent.setHand(opponentNewHand);
-        return new GameState(
-                state.getCurrentPlayerName(),
-                newHand,
-                state.getTurnPhase(),
-                state.getAvailableActions(),
-                state.getSpendableMoney(),
-                newBuys,
-                state.getDeck());
+        AtgPlayer opponent = (player == this.player1) ? this.player2 : this.player1;
+        this.playerDrawCard(opponent, 1);
     }
 
     // IPO: +2 Cards, +1 Action, +2 Money.
-    private GameState processIpoEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing IPO effect for " + player.getName());
+    private void processIpoEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing IPO effect for " + player.getName());
         // Draw 2 cards
-        Hand newHand = this.playerDrawCard(player, 2);
-        int newActions = state.getAvailableActions() + 1;
-        int newMoney = state.getSpendableMoney() + 2;
-        player.setHand(newHand);
-        System.out.println(player.getName() + " draws 2 cards. The available actions now are " + newActions + " and money are updated to: " + newMoney);
-        return new GameState(
-                state.getCurrentPlayerName(),
-                newHand,
-                state.getTurnPhase(),
-                newActions,
-                newMoney,
-                state.getAvailableBuys(),
-                state.getDeck());
+        this.playerDrawCard(player, 2);
+        turn.addActions(1);
+        turn.addMoney(2);
+        if (trace.isEnabled()) trace.println(player.getName() + " draws 2 cards. The available actions now are " + turn.getActions() + " and money are updated to: " + turn.getMoney());
     }
 
     // CODE_REVIEW: +1 Card, +2 Actions.
-    private GameState processCodeReviewEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing CODE_REVIEW effect for " + player.getName());
+    private void processCodeReviewEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing CODE_REVIEW effect for " + player.getName());
         // Draw 1 card
-        Hand newHand = this.playerDrawCard(player, 1);
-        int newActions = state.getAvailableActions() + 2;
-        System.out.println(player.getName() + " draws 1 card. The available actions are updated to: " + newActions);
-        player.setHand(newHand);
-        return new GameState(
-                state.getCurrentPlayerName(),
-                newHand,
-                state.getTurnPhase(),
-                newActions,
-                state.getSpendableMoney(),
-                state.getAvailableBuys(),
-                state.getDeck());
+        this.playerDrawCard(player, 1);
+        turn.addActions(2);
+        if (trace.isEnabled()) trace.println(player.getName() + " draws 1 card. The available actions are updated to: " + turn.getActions());
     }
 
     // TECH_DEBT: +1 Card, +1 Action, +1 Money; Discard one card per empty Supply pile.
-    private GameState processTechDebtEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing TECH_DEBT effect for " + player.getName());
+    private void processTechDebtEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing TECH_DEBT effect for " + player.getName());
         // Count empty supply piles.
-        int emptySupplies = 0;
-        for (Map.Entry<Card.Type, Integer> entry : state.getDeck().getCardCounts().entrySet()) {
-            if (entry.getValue() == 0)
-                emptySupplies++;
-        }
+        int emptySupplies = supplyTypes.length - Long.bitCount(availableMask);
         
-        // Draw one card.
-        Hand newHand = this.playerDrawCard(player, 1);
-        List<Card> currentUnplayed = new ArrayList<>(newHand.getUnplayedCards());
-        // Grant bonus action and money.
-        int newActions = state.getAvailableActions() + 1;
-        int newMoney = state.getSpendableMoney() + 1;
-
+        // Draw one card and grant bonus action and money.
+        this.playerDrawCard(player, 1);
+        turn.addActions(1);
+        turn.addMoney(1);
         
         // For each empty supply, prompt the player to discard a card.
         for (int i = 0; i < emptySupplies; i++) {
-            if (currentUnplayed.isEmpty()) break;
-            List<Decision> discardOptions = new ArrayList<>();
-            for (Card card : currentUnplayed) {
-                discardOptions.add(new DiscardCardDecision(card));
+            if (turn.getUnplayed().isEmpty()) break;
+            List<Decision> discardOptions = decisions.begin();
+            for (Card card : turn.getUnplayed()) {
+                discardOptions.add(decisions.discard(card));
             }
             // No EndPhaseDecision here because discarding is mandatory.
-            ImmutableList<Decision> options = ImmutableList.copyOf(discardOptions);
-            Decision decision = player.makeDecision(state, options, Optional.empty());
+            Decision decision = decide(player, decisions.build());
             if (decision instanceof DiscardCardDecision discardDecision) {
                 Card discarded = discardDecision.getCard();
-                currentUnplayed.remove(discarded);
-                observer.notifyEvent(state, new DiscardCardEvent(discarded.getType(), player.getName()));
+                turn.removeFromHand(discarded);
+                notifyEvent(new DiscardCardEvent(discarded.getType(), player.getName()));
                 player.getDiscardDeck().addCard(discarded);
-                System.out.println(player.getName() + " discards " + discarded + " due to TECH_DEBT.");
+                if (trace.isEnabled()) trace.println(player.getName() + " discards " + discarded + " due to TECH_DEBT.");
             } else {
                 throw new PlayerViolationException("Invalid decision during TECH_DEBT discard phase");
             }
         }
-        Hand updatedHand = new Hand(state.getCurrentPlayerHand().getPlayedCards(), ImmutableList.copyOf(currentUnplayed));
-        player.setHand(updatedHand);
-        System.out.println(player.getName() + " updated actions are " + newActions + " and buys are " + newMoney);
-        return new GameState(
-                state.getCurrentPlayerName(),
-                newHand,
-                state.getTurnPhase(),
-                newActions,
-                newMoney,
-                state.getAvailableBuys(),
-                state.getDeck()
-        );
+        if (trace.isEnabled()) trace.println(player.getName() + " updated actions are " + turn.getActions() + " and buys are " + turn.getMoney());
     }
 
     // REFACTOR: Trash a card from hand; Gain a card costing up to 2 more than the trashed card.
-    private GameState processRefactorEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing REFACTOR effect for " + player.getName());
-        List<Card> currentUnplayed = new ArrayList<>(state.getCurrentPlayerHand().getUnplayedCards());
-        if (currentUnplayed.isEmpty()) {
-            System.out.println(player.getName() + " has no card to trash for REFACTOR.");
-            return state;
+    private void processRefactorEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing REFACTOR effect for " + player.getName());
+        if (turn.getUnplayed().isEmpty()) {
+            if (trace.isEnabled()) trace.println(player.getName() + " has no card to trash for REFACTOR.");
+            return;
         }
         // Build trash decisions from unplayed cards.
-        List<Decision> trashOptions = new ArrayList<>();
-        for (Card card : currentUnplayed) {
-            trashOptions.add(new TrashCardDecision(card));
+        List<Decision> trashOptions = decisions.begin();
+        for (Card card : turn.getUnplayed()) {
+            trashOptions.add(decisions.trash(card));
         }
-        ImmutableList<Decision> options = ImmutableList.copyOf(trashOptions);
-        Decision decision = player.makeDecision(state, options, Optional.empty());
+        Decision decision = decide(player, decisions.build());
         int maxCost = 0;
         if (decision instanceof TrashCardDecision trashDecision) {
             Card trashed = trashDecision.getCard();
             // Determine the maximum cost for the gain: trashed card cost + 2.
             maxCost = trashed.getType().getCost() + 2;
-            currentUnplayed.remove(trashed);
-            observer.notifyEvent(state, new TrashCardEvent(trashed.getType(), player.getName()));
-            System.out.println(player.getName() + " trashes " + trashed + " via REFACTOR.");
+            turn.removeFromHand(trashed);
+            cardsTrashed[player == player1 ? 0 : 1][trashed.getType().ordinal()]++;
+            notifyEvent(new TrashCardEvent(trashed.getType(), player.getName()));
+            if (trace.isEnabled()) trace.println(player.getName() + " trashes " + trashed + " via REFACTOR.");
         } else {
             throw new PlayerViolationException("Invalid decision in REFACTOR effect");
         }
-        List<Decision> gainOptions = new ArrayList<>();
-        for (Card.Type type : state.getDeck().getCardTypes()) {
-            if (state.getDeck().getNumAvailable(type) > 0 && type.getCost() <= maxCost) {
-                gainOptions.add(new GainCardDecision(type));
-            }
-        }
-        Hand newHand = new Hand(state.getCurrentPlayerHand().getPlayedCards(), ImmutableList.copyOf(currentUnplayed));
-        ImmutableList<Decision> immutableOptions = ImmutableList.copyOf(gainOptions);
-        // Update the state for makeDecision
-        GameState newState = new GameState(
-            state.getCurrentPlayerName(),
-            newHand,
-            GameState.TurnPhase.GAIN,
-            state.getAvailableActions(),
-            state.getSpendableMoney(),
-            state.getAvailableBuys(),
-            state.getDeck()
-        );
+        ImmutableList<Decision> gainOptions = decisions.gainOptions(supplyTypes, supplyCounts, availableMask, maxCost);
         // No available options
-        if (immutableOptions.isEmpty()) {
-            System.out.println(player.getName() + " has no valid gain options after trashing for REFACTOR.");
-            return newState;
-        } else {
-            Decision gainDecision = player.makeDecision(newState, immutableOptions, Optional.empty());
-            if (gainDecision instanceof GainCardDecision gainCardDecision) {
-                Card.Type gainType = gainCardDecision.getCardType();
-                if (state.getDeck().getNumAvailable(gainType) > 0 && gainType.getCost() <= maxCost) {
-                    player.getDiscardDeck().addCard(drawCardFromGameDeck(gainType));
-                    observer.notifyEvent(state, new GainCardEvent(gainType, player.getName()));
-                    Map<Card.Type, Integer> cardCounts = new HashMap<>(this.deck.getCardCounts());
-                    cardCounts.put(gainType, cardCounts.get(gainType) - 1);
-                    this.deck = new GameDeck(ImmutableMap.copyOf(cardCounts));
-                    System.out.println(player.getName() + " gains a " + gainType + " card via REFACTOR.");
-                } else {
-                    System.out.println(player.getName() + " attempted to gain an invalid card type for REFACTOR.");
-                }
+        if (gainOptions.isEmpty()) {
+            if (trace.isEnabled()) trace.println(player.getName() + " has no valid gain options after trashing for REFACTOR.");
+            return;
+        }
+        // The gain decision is made in the GAIN phase, then play returns to the ACTION phase
+        turn.setPhase(GameState.TurnPhase.GAIN);
+        Decision gainDecision = decide(player, gainOptions);
+        if (gainDecision instanceof GainCardDecision gainCardDecision) {
+            Card.Type gainType = gainCardDecision.getCardType();
+            if (supplyCount(gainType) > 0 && gainType.getCost() <= maxCost) {
+                player.getDiscardDeck().addCode(drawCodeFromGameDeck(gainType));
+                notifyEvent(new GainCardEvent(gainType, player.getName()));
+                if (trace.isEnabled()) trace.println(player.getName() + " gains a " + gainType + " card via REFACTOR.");
             } else {
-                throw new PlayerViolationException("Invalid decision in REFACTOR gain phase");
+                if (trace.isEnabled()) trace.println(player.getName() + " attempted to gain an invalid card type for REFACTOR.");
             }
-        }        
-        // update the gamestate with new deck
-        return new GameState(
-                newState.getCurrentPlayerName(),
-                newState.getCurrentPlayerHand(),
-                GameState.TurnPhase.ACTION,
-                newState.getAvailableActions(),
-                newState.getSpendableMoney(),
-                newState.getAvailableBuys(),
-                this.deck
-        );
+        } else {
+            throw new PlayerViolationException("Invalid decision in REFACTOR gain phase");
+        }
+        turn.setPhase(GameState.TurnPhase.ACTION);
     }
 
     // PARALLELIZATION: You may play an Action card from your hand twice.
-    private GameState processParallelizationEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing PARALLELIZATION effect for " + player.getName());
+    private void processParallelizationEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing PARALLELIZATION effect for " + player.getName());
         // List the unplayed action cards (excluding PARALLELIZATION itself)
-        List<Card> unplayed = new ArrayList<>(state.getCurrentPlayerHand().getUnplayedCards());
-        List<Decision> possibleActions = new ArrayList<>();
-        for (Card card : unplayed) {
+        List<Decision> possibleActions = decisions.begin();
+        for (Card card : turn.getUnplayed()) {
             if (card.getType().getCategory() == Card.Type.Category.ACTION &&
                 card.getType() != Card.Type.PARALLELIZATION) {
-                possibleActions.add(new PlayCardDecision(card));
+                possibleActions.add(decisions.play(card));
             }
         }
         if (possibleActions.isEmpty()) {
-            System.out.println("No available action to duplicate.");
-            return state;
+            if (trace.isEnabled()) trace.println("No available action to duplicate.");
+            return;
         }
-        ImmutableList<Decision> immutableOptions = ImmutableList.copyOf(possibleActions);
-        // For simulation, choose the first action card.
-        Decision gainDecision = player.makeDecision(state, immutableOptions, Optional.empty());
+        Decision gainDecision = decide(player, decisions.build());
         if (gainDecision instanceof PlayCardDecision playCardDecision) {
             Card chosenCard = playCardDecision.getCard();
-            System.out.println(player.getName() + " chooses to play " + chosenCard + " twice due to PARALLELIZATION.");
-            observer.notifyEvent(state, new PlayCardEvent(chosenCard, player.getName()));
+            if (trace.isEnabled()) trace.println(player.getName() + " chooses to play " + chosenCard + " twice due to PARALLELIZATION.");
+            notifyEvent(new PlayCardEvent(chosenCard, player.getName()));
             // Execute the chosen action's effect twice.
-            switch (chosenCard.getType()) {
-                case BACKLOG:
-                    state = processBacklogEffect(player, state);
-                    state = processBacklogEffect(player, state);
-                    break;
-                case HACK:
-                    state = processHackEffect(player, state);
-                    state = processHackEffect(player, state);
-                    break;
-                case DAILY_SCRUM:
-                    state = processDailyScrumEffect(player, state);
-                    state = processDailyScrumEffect(player, state);
-                    break;
-                case IPO:
-                    state = processIpoEffect(player, state);
-                    state = processIpoEffect(player, state);
-                    break;
-                case CODE_REVIEW:
-                    state = processCodeReviewEffect(player, state);
-                    state = processCodeReviewEffect(player, state);
-                    break;
-                case TECH_DEBT:
-                    state = processTechDebtEffect(player, state);
-                    state = processTechDebtEffect(player, state);
-                    break;
-                case REFACTOR:
-                    state = processRefactorEffect(player, state);
-                    state = processRefactorEffect(player, state);
-                    break;
-                case EVERGREEN_TEST:
-                    state = processEvergreenTestEffect(player, state);
-                    state = processEvergreenTestEffect(player, state);
-                    break;
-                default:
-                    System.out.println("No handling for " + chosenCard.getType() + " in PARALLELIZATION.");
-                    break;
+            for (int i = 0; i < 2; i++) {
+                switch (chosenCard.getType()) {
+                    case BACKLOG:
+                        processBacklogEffect(player);
+                        break;
+                    case HACK:
+                        processHackEffect(player);
+                        break;
+                    case DAILY_SCRUM:
+                        processDailyScrumEffect(player);
+                        break;
+                    case IPO:
+                        processIpoEffect(player);
+                        break;
+                    case CODE_REVIEW:
+                        processCodeReviewEffect(player);
+                        break;
+                    case TECH_DEBT:
+                        processTechDebtEffect(player);
+                        break;
+                    case REFACTOR:
+                        processRefactorEffect(player);
+                        break;
+                    case EVERGREEN_TEST:
+                        processEvergreenTestEffect(player);
+                        break;
+                    default:
+                        if (trace.isEnabled()) trace.println("No handling for " + chosenCard.getType() + " in PARALLELIZATION.");
+                        break;
+                }
             }
         } else {
             throw new PlayerViolationException("Invalid decision in PARALLELIZATION effect");
         }
-        return state;
     }
 
     // EVERGREEN_TEST: (Attack card) +2 Cards; Each other player gains a BUG.
     // Incorporates monitoring reaction: opponents with a MONITORING card may reveal it to avoid gaining a BUG.
-    private GameState processEvergreenTestEffect(AtgPlayer player, GameState state) throws PlayerViolationException {
-        System.out.println("Processing EVERGREEN_TEST effect for " + player.getName());
+    private void processEvergreenTestEffect(AtgPlayer player) throws PlayerViolationException {
+        if (trace.isEnabled()) trace.println("Processing EVERGREEN_TEST effect for " + player.getName());
         
         // Active player draws 2 cards as before.
-        Hand newHand = this.playerDrawCard(player, 2);
-        player.setHand(newHand);
+        this.playerDrawCard(player, 2);
         // Identify the opponent.
         AtgPlayer opponent = (player == this.player1) ? this.player2 : this.player1;
-        List<Card> oppUnplayed = new ArrayList<>(opponent.getHand().getUnplayedCards());
-        boolean hasMonitoring = false;
-        for (Card card : oppUnplayed) {
-            if (card.getType() == Card.Type.MONITORING) {
-                hasMonitoring = true;
-                break;
-            }
-        }
+        ImmutableList<Decision> reactionOptions = monitoringReactions(opponent);
         // Query the users if they use MONITORING card to avoid the attack.
-        if (hasMonitoring) {
-            List<Decision> reactionOptions = new ArrayList<>();
-            for (Card card : oppUnplayed) {
-                if (card.getType() == Card.Type.MONITORING) {
-                    reactionOptions.add(new PlayCardDecision(card));
-                }
-            }
-            reactionOptions.add(new EndPhaseDecision(GameState.TurnPhase.REACTION));
-            ImmutableList<Decision> reactionDecisions = ImmutableList.copyOf(reactionOptions);
-            Decision reaction = opponent.makeDecision(state, reactionDecisions, Optional.empty());
+        if (!reactionOptions.isEmpty()) {
+            Decision reaction = ask(opponent, currentState(), reactionOptions);
             if (reaction instanceof PlayCardDecision playCardDecision) {
-                // Opponent reveals MONITORING and avoids gaining a BUG.
                 Card chosenCard = playCardDecision.getCard();
                 // Opponent reveals a MONITORING card and avoids the attack.
-                System.out.println(opponent.getName() + " reveals a MONITORING card to avoid EVERGREEN attack.");
-                observer.notifyEvent(state, new PlayCardEvent(chosenCard, opponent.getName()));
+                if (trace.isEnabled()) trace.println(opponent.getName() + " reveals a MONITORING card to avoid EVERGREEN attack.");
+                notifyEvent(new PlayCardEvent(chosenCard, opponent.getName()));
                 // gain 2 cards
-                Hand oppNewHand = this.playerDrawCard(opponent, 2);
-                opponent.setHand(oppNewHand);
+                this.playerDrawCard(opponent, 2);
             } else {
                 // Opponent does not react; add a BUG to their discard deck.
-                System.out.println(opponent.getName() + " does not reveal MONITORING and gains a BUG card.");
-                addBugToOpponent(opponent, state);
+                if (trace.isEnabled()) trace.println(opponent.getName() + " does not reveal MONITORING and gains a BUG card.");
+                addBugToOpponent(opponent);
             }
         } else {
-            System.out.println(opponent.getName() + " lacks MONITORING and gains a BUG card.");
-            addBugToOpponent(opponent, state);
+            if (trace.isEnabled()) trace.println(opponent.getName() + " lacks MONITORING and gains a BUG card.");
+            addBugToOpponent(opponent);
         }
-        
-        // Return updated GameState for the active player.
-        return new GameState(
-            state.getCurrentPlayerName(),
-            newHand,
-            state.getTurnPhase(),
-            state.getAvailableActions(),
-            state.getSpendableMoney(),
-            state.getAvailableBuys(),
-            state.getDeck()
-        );
     }
     
     /**
      * Helper method to add a BUG card to the opponent's discard deck.
      * Assumes BUG is defined as a Card.Type in your API.
      */
-    private void addBugToOpponent(AtgPlayer opponent, GameState state) {
-        Card bugCard = new Card(Card.Type.BUG, this.cardTotalCount++);
-        opponent.getDiscardDeck().addCard(bugCard);
-        observer.notifyEvent(state, new GainCardEvent(Card.Type.BUG, opponent.getName()));
-        System.out.println("BUG card added to " + opponent.getName() + "'s discard deck due to EVERGREEN_TEST.");
+    private void addBugToOpponent(AtgPlayer opponent) {
+        // The index only tells BUG cards apart, so it wraps around to stay encodable
+        short bugCard = CardCodes.encode(Card.Type.BUG, this.cardTotalCount++ & CardCodes.MAX_INDEX);
+        opponent.getDiscardDeck().addCode(bugCard);
+        bugsReceived[opponent == player1 ? 0 : 1]++;
+        notifyEvent(new GainCardEvent(Card.Type.BUG, opponent.getName()));
+        if (trace.isEnabled()) trace.println("BUG card added to " + opponent.getName() + "'s discard deck due to EVERGREEN_TEST.");
+    }
+
+    /**
+     * Asks the active player to choose among the given options. The player's
+     * hand is brought up to date and an immutable GameState is built only here,
+     * at the point a decision is actually needed.
+     */
+    private Decision decide(AtgPlayer player, ImmutableList<Decision> options) {
+        player.setHand(turn.hand());
+        return ask(player, currentState(), options);
+    }
+
+    /**
+     * Asks any player, active or not, for a decision. Every decision goes
+     * through here, so the time limit is checked before each one,
+     * getLastDecider() always names the player who was asked, and an
+     * exception thrown by the player comes out as a PlayerFailureException.
+     */
+    private Decision ask(AtgPlayer player, GameState state, ImmutableList<Decision> options) {
+        if (timeLimited && System.nanoTime() - deadline > 0) {
+            throw new GameTimeoutException("Game exceeded its time limit in round " + turnCount);
+        }
+        lastDecider = player;
+        try {
+            return player.makeDecision(state, options, Optional.empty());
+        } catch (RuntimeException e) {
+            throw new PlayerFailureException(player, e);
+        }
+    }
+
+    private void notifyEvent(Event event) {
+        observer.notifyEvent(currentState(), event);
+    }
+
+    /**
+     * Builds (or reuses) the state of the current turn and publishes it for
+     * other threads. Only called by the thread playing the game, or while no
+     * thread is.
+     */
+    private GameState currentState() {
+        GameState state = turn.getPlayer() == null ? null : turn.snapshot(supplyView());
+        int score1 = calculateScore(player1);
+        int score2 = calculateScore(player2);
+        Published last = published;
+        if (last == null || last.state != state || last.score1 != score1 || last.score2 != score2) {
+            published = new Published(state, supplyView(), score1, score2);
+        }
+        return state;
     }
 
     /**
-     * Updates the active player's hand field with the current hand stored in gameState.
-     * Assumes that AtgPlayer now provides a setHand(Hand hand) method.
+     * Marks the calling thread as the one playing the game. Waits for any other
+     * thread that is building a state while the game is idle.
+     *
+     * @return False if the thread already held the game (playOut() called from play())
      */
-    private void updatePlayerHand(AtgPlayer player) {
-        player.setHand(gameState.getCurrentPlayerHand());
+    private boolean claimGameThread() {
+        synchronized (publishLock) {
+            if (gameThread == Thread.currentThread()) {
+                return false;
+            }
+            if (gameThread != null) {
+                throw new IllegalStateException("The game is already being played by another thread");
+            }
+            gameThread = Thread.currentThread();
+            return true;
+        }
     }
 
-    private Hand playerDrawCard(AtgPlayer player, int numCards) {
-        List<Card> unplayed = new ArrayList<>(player.getHand().getUnplayedCards());
-        List<Card> played = new ArrayList<>(player.getHand().getPlayedCards());
+    private void releaseGameThread(boolean claimed) {
+        if (claimed) {
+            synchronized (publishLock) {
+                currentState();
+                gameThread = null;
+            }
+        }
+    }
+
+    /**
+     * Draws cards for a player. Cards drawn by the active player go straight into
+     * the turn record; cards drawn by the other player are added to their Hand.
+     */
+    private void playerDrawCard(AtgPlayer player, int numCards) {
+        boolean active = player == turn.getPlayer();
+        List<Card> drawnCards = new ArrayList<>();
         for (int i = 0; i < numCards; i++) {
             if (player.getDrawDeck().isEmpty()) {
                 player.getDiscardDeck().moveDeck(player.getDrawDeck());
             }
-            Card drawn = player.getDrawDeck().drawCard();
-            if (drawn != null) {
-                unplayed.add(drawn);
+            if (!player.getDrawDeck().isEmpty()) {
+                short code = player.getDrawDeck().drawCode();
+                if (active) {
+                    turn.addToHand(code);
+                } else {
+                    drawnCards.add(CardCodes.decode(code));
+                }
+                if (trace.isEnabled()) trace.println(player.getName() + " draws " + CardCodes.decode(code) + " from draw deck.");
             } else { // This will not likely happen
-                System.out.println("WARNING: Player " + player.getName() + " does not have enough cards to draw a full hand!");
+                if (trace.isEnabled()) trace.println("WARNING: Player " + player.getName() + " does not have enough cards to draw a full hand!");
                 break;
             }
-            System.out.println(player.getName() + " draws " + drawn + " from draw deck.");
         }
-        return new Hand(ImmutableList.copyOf(played), ImmutableList.copyOf(unplayed));
+        if (!active && !drawnCards.isEmpty()) {
+            List<Card> unplayed = new ArrayList<>(player.getHand().getUnplayedCards());
+            unplayed.addAll(drawnCards);
+            player.setHand(new Hand(player.getHand().getPlayedCards(), ImmutableList.copyOf(unplayed)));
+        }
+    }
+
+    /**
+     * Sets where the engine's diagnostic messages are written. Defaults to
+     * TraceSink.CONSOLE; use TraceSink.SILENT for batch simulations.
+     */
+    public void setTraceSink(TraceSink trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Limits how long the game may run, counting from this call. Once the
+     * limit has passed, the next decision the engine asks for throws
+     * GameTimeoutException instead. A player that never returns from a
+     * decision is not interrupted.
+     *
+     * @param millis The limit in milliseconds, or 0 for no limit
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimited = millis > 0;
+        this.deadline = System.nanoTime() + millis * 1_000_000L;
+    }
+
+    /**
+     * Returns the player who was asked for the most recent decision. If play()
+     * throws a PlayerViolationException or a GameTimeoutException, this is the
+     * player whose decision caused it. An exception thrown by a player's own
+     * decision comes out as a PlayerFailureException, which names the player.
+     *
+     * @return The player, or null if no decision has been asked for
+     */
+    public AtgPlayer getLastDecider() {
+        return lastDecider;
+    }
+
+    /**
+     * Returns the current supply counts as a read-only GameDeck. Types whose
+     * pile has run out stay in the view with a count of 0.
+     */
+    public GameDeck getDeck() {
+        if (Thread.currentThread() != gameThread) {
+            synchronized (publishLock) {
+                if (gameThread == null) {
+                    return supplyView();
+                }
+            }
+            Published view = published;
+            return view == null ? null : view.deck;
+        }
+        return supplyView();
+    }
+
+    /**
+     * Returns the number of the current round, counting from 1. A round is one
+     * turn for each player; after play() returns this is the length of the game.
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * Returns which player took the first turn.
+     *
+     * @return 1 or 2, or 0 if the game has not been started
+     */
+    public int getFirstPlayer() {
+        if (turnOrder == null) {
+            return 0;
+        }
+        return turnOrder[0] == player1 ? 1 : 2;
+    }
+
+    /**
+     * Returns how many cards of each type a player has bought so far. Cards
+     * gained any other way (from action cards, or BUGs from an opponent) are
+     * not counted.
+     *
+     * @param playerNumber 1 or 2
+     * @return A new array indexed by Card.Type ordinal
+     */
+    public int[] getCardsBought(int playerNumber) {
+        return cardsBought[playerNumber - 1].clone();
+    }
+
+    /**
+     * Returns how many cards of each type a player has trashed so far. Like
+     * purchases, trashing is announced to both players, so this reveals
+     * nothing hidden.
+     *
+     * @param playerNumber 1 or 2
+     * @return A new array indexed by Card.Type ordinal
+     */
+    public int[] getCardsTrashed(int playerNumber) {
+        return cardsTrashed[playerNumber - 1].clone();
+    }
+
+    /**
+     * Returns how many BUG cards a player has been given by the other
+     * player's EVERGREEN_TEST. These do not come from the supply.
+     *
+     * @param playerNumber 1 or 2
+     */
+    public int getBugsReceived(int playerNumber) {
+        return bugsReceived[playerNumber - 1];
+    }
+
+    /**
+     * Returns a player's number in this game, as used by getCardsBought().
+     *
+     * @return 1 or 2, or 0 if the player is not in this game
+     */
+    public int getPlayerNumber(AtgPlayer player) {
+        return player == player1 ? 1 : player == player2 ? 2 : 0;
+    }
+
+    /**
+     * Returns the seed this game was created with, so that it can be replayed.
+     */
+    public long getSeed() {
+        return seed;
     }
 
+    /**
+     * Returns the state of the current turn, or null if no turn has started yet.
+     *
+     * Safe to call from any thread. The thread playing the game gets a state
+     * built on demand and reused until the turn changes. Any other thread gets
+     * the state that was published at the last event or decision. That state
+     * is immutable and never the one being updated.
+     */
     public GameState getGameState() {
-        return this.gameState;
+        if (Thread.currentThread() != gameThread) {
+            synchronized (publishLock) {
+                if (gameThread == null) {
+                    return currentState();
+                }
+            }
+            Published view = published;
+            return view == null ? null : view.state;
+        }
+        return currentState();
+    }
+
+    /**
+     * A consistent picture of the game published for other threads.
+     */
+    private static final class Published {
+        private final GameState state;
+        private final GameDeck deck;
+        private final int score1;
+        private final int score2;
+
+        Published(GameState state, GameDeck deck, int score1, int score2) {
+            this.state = state;
+            this.deck = deck;
+            this.score1 = score1;
+            this.score2 = score2;
+        }
+
+        ImmutableList<Player.ScorePair> scores(AtgPlayer player1, AtgPlayer player2) {
+            Player.ScorePair first = new Player.ScorePair(player1, score1);
+            Player.ScorePair second = new Player.ScorePair(player2, score2);
+            return score2 > score1 ? ImmutableList.of(second, first) : ImmutableList.of(first, second);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+/**
+ * Thrown by the engine when a game runs past the time limit set with
+ * GameEngine.setTimeLimit().
+ */
+public class GameTimeoutException extends RuntimeException {
+    public GameTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+import edu.brandeis.cosi103a.groupb.Player.AtgPlayer;
+
+/**
+ * Thrown by the engine when a player's makeDecision() throws. The player's
+ * exception is the cause, so a failure inside a strategy can be told apart
+ * from an error in the engine itself.
+ */
+public class PlayerFailureException extends RuntimeException {
+    private final transient AtgPlayer player;
+
+    public PlayerFailureException(AtgPlayer player, RuntimeException cause) {
+        super(player.getName() + "'s decision threw " + cause, cause);
+        this.player = player;
+    }
+
+    /**
+     * Returns the player whose decision threw.
+     */
+    public AtgPlayer getPlayer() {
+        return player;
+    }
+}
@@ -0,0 +1,19 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+import java.util.List;
+
+import edu.brandeis.cosi.atg.api.Player;
+
+/**
+ * Gives read access to the scores of one running game.
+ * Each GameEngine hands itself to its players and controllers through this
+ * interface, so several games can run side by side without sharing state.
+ */
+public interface ScoreProvider {
+    /**
+     * Returns the current score of every player in the game, highest first.
+     *
+     * @return The players' current scores
+     */
+    List<Player.ScorePair> getCurrentScores();
+}
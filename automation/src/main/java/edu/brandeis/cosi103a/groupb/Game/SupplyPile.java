@@ -0,0 +1,107 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import edu.brandeis.cosi.atg.api.cards.Card;
+import edu.brandeis.cosi103a.groupb.Decks.CardCodes;
+
+/**
+ * A single supply pile holding every remaining copy of one card type.
+ * Cards are kept as short codes (see CardCodes) in a fixed-size array used
+ * as a stack, so taking a card from the pile is a constant-time operation.
+ *
+ * Taking a card never writes to the array, so copies of a pile made with
+ * the copy constructor share it and only keep their own size.
+ */
+public class SupplyPile {
+    private final Card.Type type;
+    private short[] cards;
+    private int size;
+    private boolean shared = false;
+
+    /**
+     * Creates a pile with the given number of copies of a card type.
+     * Copies are numbered 0 to count - 1.
+     *
+     * @param type The card type held by this pile
+     * @param count The number of copies in the pile
+     * @throws IllegalArgumentException if count is more than CardCodes.MAX_INDEX + 1
+     */
+    public SupplyPile(Card.Type type, int count) {
+        this.type = type;
+        this.cards = new short[count];
+        for (int i = 0; i < count; i++) {
+            cards[i] = CardCodes.encode(type, i);
+        }
+        this.size = count;
+    }
+
+    /**
+     * Creates a copy of a pile in constant time. The copy shares the card array
+     * with the original; taking cards from one does not affect the other.
+     *
+     * @param other The pile to copy
+     */
+    public SupplyPile(SupplyPile other) {
+        this.type = other.type;
+        this.cards = other.cards;
+        this.size = other.size;
+        this.shared = true;
+        other.shared = true;
+    }
+
+    /**
+     * Shuffles the remaining cards so that copies are handed out in random order.
+     *
+     * @param random Source of randomness
+     */
+    public void shuffle(RandomGenerator random) {
+        if (shared) {
+            // Copy on write so other piles sharing the array are unaffected
+            cards = Arrays.copyOf(cards, cards.length);
+            shared = false;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            short tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
+        }
+    }
+
+    /**
+     * Removes and returns the top card of the pile.
+     *
+     * @return The card taken from the pile
+     * @throws IllegalStateException if the pile is empty
+     */
+    public Card take() {
+        return CardCodes.decode(takeCode());
+    }
+
+    /**
+     * Removes the top card of the pile and returns its code.
+     *
+     * @return The code of the card taken from the pile
+     * @throws IllegalStateException if the pile is empty
+     */
+    public short takeCode() {
+        if (size == 0) {
+            throw new IllegalStateException("No cards of type " + type + " are available in the physical deck.");
+        }
+        return cards[--size];
+    }
+
+    public Card.Type getType() {
+        return type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
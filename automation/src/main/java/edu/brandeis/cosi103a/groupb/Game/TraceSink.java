@@ -0,0 +1,55 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+/**
+ * Destination for the engine's diagnostic messages (cards drawn, effects
+ * processed, deck contents).
+ *
+ * The engine checks isEnabled() before building a message, so with SILENT
+ * no strings are built and nothing is written to the console.
+ */
+public interface TraceSink {
+    /**
+     * Writes every message to standard output.
+     */
+    TraceSink CONSOLE = new TraceSink() {
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void println(String message) {
+            System.out.println(message);
+        }
+    };
+
+    /**
+     * Discards every message. Used for batch simulations.
+     */
+    TraceSink SILENT = new TraceSink() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void println(String message) {
+            // Do nothing (silent)
+        }
+    };
+
+    /**
+     * Returns whether messages are written anywhere. Callers should check
+     * this before building a message.
+     *
+     * @return True if messages are recorded, false if they are discarded
+     */
+    boolean isEnabled();
+
+    /**
+     * Writes one line of diagnostic output.
+     *
+     * @param message The message to write
+     */
+    void println(String message);
+}
@@ -0,0 +1,251 @@
+package edu.brandeis.cosi103a.groupb.Game;
+
+import java.util.*;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.brandeis.cosi.atg.api.*;
+import edu.brandeis.cosi.atg.api.cards.Card;
+import edu.brandeis.cosi103a.groupb.Decks.CardCodes;
+import edu.brandeis.cosi103a.groupb.Decks.PlayerDeck;
+import edu.brandeis.cosi103a.groupb.Player.AtgPlayer;
+
+/**
+ * Mutable record of the active player's turn: their hand and the remaining
+ * actions, money and buys.
+ *
+ * The engine updates this record in place as cards are played. An immutable
+ * Hand or GameState is only built when a player or observer asks for one,
+ * and is cached until the next change. The cards in hand are kept as short
+ * codes (see CardCodes) and are only turned into Card objects for those views.
+ */
+class TurnState {
+    private static final Hand EMPTY_HAND = new Hand(ImmutableList.of(), ImmutableList.of());
+
+    private AtgPlayer player;
+    private final CardCodeList played = new CardCodeList();
+    private final CardCodeList unplayed = new CardCodeList();
+    private GameState.TurnPhase phase;
+    private int actions;
+    private int money;
+    private int buys;
+    private int victoryPoints;
+
+    // Cached immutable views, cleared whenever the turn changes
+    private Hand hand;
+    private GameState snapshot;
+    private GameDeck snapshotDeck;
+
+    /**
+     * Starts a new turn record for a player holding the given hand.
+     *
+     * @throws PlayerViolationException if the hand holds a card the engine never dealt
+     */
+    void begin(AtgPlayer player, Hand hand, GameState.TurnPhase phase, int actions, int money, int buys)
+            throws PlayerViolationException {
+        begin(player, phase, actions, money, buys);
+        for (Card card : hand.getPlayedCards()) {
+            short code = dealtCode(player, card);
+            played.add(code);
+            victoryPoints += CardCodes.victoryValue(code);
+        }
+        for (Card card : hand.getUnplayedCards()) {
+            short code = dealtCode(player, card);
+            unplayed.add(code);
+            victoryPoints += CardCodes.victoryValue(code);
+        }
+        this.hand = hand;
+    }
+
+    /**
+     * Copies another turn record, giving the turn to the given player.
+     * The cached Hand and GameState are immutable and are shared.
+     */
+    void copyFrom(TurnState other, AtgPlayer player) {
+        this.player = player;
+        played.copyFrom(other.played);
+        unplayed.copyFrom(other.unplayed);
+        this.phase = other.phase;
+        this.actions = other.actions;
+        this.money = other.money;
+        this.buys = other.buys;
+        this.victoryPoints = other.victoryPoints;
+        this.hand = other.hand;
+        // The snapshot names the original player, so it is not shared
+        this.snapshot = null;
+    }
+
+    /**
+     * Starts a new turn record for a player with an empty hand.
+     */
+    void begin(AtgPlayer player, GameState.TurnPhase phase, int actions, int money, int buys) {
+        this.player = player;
+        played.clear();
+        unplayed.clear();
+        victoryPoints = 0;
+        this.phase = phase;
+        this.actions = actions;
+        this.money = money;
+        this.buys = buys;
+        this.hand = EMPTY_HAND;
+        this.snapshot = null;
+    }
+
+    /**
+     * Returns the code of a card that a player handed to the engine, in their
+     * hand or in a decision. Every card the engine deals can be encoded, so a
+     * card that cannot be was made up by the player.
+     *
+     * @throws PlayerViolationException if the card cannot be encoded
+     */
+    static short dealtCode(AtgPlayer player, Card card) throws PlayerViolationException {
+        if (!CardCodes.isEncodable(card)) {
+            throw new PlayerViolationException(player.getName() + " used a card the engine never dealt: " + card);
+        }
+        return CardCodes.encode(card);
+    }
+
+    AtgPlayer getPlayer() {
+        return player;
+    }
+
+    /**
+     * Read-only view of the cards in hand that have not been played yet.
+     */
+    List<Card> getUnplayed() {
+        return unplayed.view();
+    }
+
+    /**
+     * Read-only view of the cards played this turn.
+     */
+    List<Card> getPlayed() {
+        return played.view();
+    }
+
+    GameState.TurnPhase getPhase() {
+        return phase;
+    }
+
+    int getActions() {
+        return actions;
+    }
+
+    int getMoney() {
+        return money;
+    }
+
+    int getBuys() {
+        return buys;
+    }
+
+    /**
+     * Returns the victory points of all cards in the hand, played or not.
+     */
+    int getVictoryPoints() {
+        return victoryPoints;
+    }
+
+    /**
+     * Moves a card from the unplayed part of the hand to the played part.
+     *
+     * @throws PlayerViolationException if the card is one the engine never dealt
+     */
+    void play(Card card) throws PlayerViolationException {
+        short code = dealtCode(player, card);
+        if (!unplayed.remove(code)) {
+            victoryPoints += CardCodes.victoryValue(code);
+        }
+        played.add(code);
+        handChanged();
+    }
+
+    /**
+     * Adds a drawn card to the unplayed part of the hand.
+     */
+    void addToHand(short code) {
+        unplayed.add(code);
+        victoryPoints += CardCodes.victoryValue(code);
+        handChanged();
+    }
+
+    /**
+     * Removes a card from the unplayed part of the hand (discarded or trashed).
+     *
+     * @throws PlayerViolationException if the card is one the engine never dealt
+     */
+    void removeFromHand(Card card) throws PlayerViolationException {
+        short code = dealtCode(player, card);
+        if (unplayed.remove(code)) {
+            victoryPoints -= CardCodes.victoryValue(code);
+        }
+        handChanged();
+    }
+
+    /**
+     * Adds every card in the hand, played cards first, to a deck. The hand
+     * itself is left as it is.
+     */
+    void addHandTo(PlayerDeck deck) {
+        for (int i = 0; i < played.size(); i++) {
+            deck.addCode(played.get(i));
+        }
+        for (int i = 0; i < unplayed.size(); i++) {
+            deck.addCode(unplayed.get(i));
+        }
+    }
+
+    void setPhase(GameState.TurnPhase phase) {
+        this.phase = phase;
+        snapshot = null;
+    }
+
+    void setActions(int actions) {
+        this.actions = actions;
+        snapshot = null;
+    }
+
+    void addActions(int delta) {
+        setActions(actions + delta);
+    }
+
+    void addMoney(int delta) {
+        this.money += delta;
+        snapshot = null;
+    }
+
+    void addBuys(int delta) {
+        this.buys += delta;
+        snapshot = null;
+    }
+
+    /**
+     * Returns the current hand, building a new immutable Hand only if the
+     * cards changed since the last call.
+     */
+    Hand hand() {
+        if (hand == null) {
+            hand = new Hand(ImmutableList.copyOf(played.view()), ImmutableList.copyOf(unplayed.view()));
+        }
+        return hand;
+    }
+
+    /**
+     * Returns an immutable GameState for the turn, reusing the last one
+     * if nothing has changed since it was built.
+     *
+     * @param deck The current supply counts
+     */
+    GameState snapshot(GameDeck deck) {
+        if (snapshot == null || snapshotDeck != deck) {
+            snapshot = new GameState(player.getName(), hand(), phase, actions, money, buys, deck);
+            snapshotDeck = deck;
+        }
+        return snapshot;
+    }
+
+    private void handChanged() {
+        hand = null;
+        snapshot = null;
+    }
+}
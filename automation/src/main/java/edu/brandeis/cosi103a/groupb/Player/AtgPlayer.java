@@ -4,6 +4,7 @@ import edu.brandeis.cosi.atg.api.Hand;
 import edu.brandeis.cosi.atg.api.Player;
 import edu.brandeis.cosi103a.groupb.Decks.DiscardDeck;
 import edu.brandeis.cosi103a.groupb.Decks.DrawDeck;
+import edu.brandeis.cosi103a.groupb.Game.ScoreProvider;
 
 /**
  * Interface representing a player in the ATG card game.
@@ -39,4 +40,14 @@ public interface AtgPlayer extends Player {
      * @param hand The new hand to set
      */
     public void setHand(Hand hand);
+
+    /**
+     * Gives the player access to the scores of the game it is playing in.
+     * Called by the engine when the game is created. Players that do not
+     * look at scores can ignore it.
+     * 
+     * @param scoreProvider The scores of the player's current game
+     */
+    public default void setScoreProvider(ScoreProvider scoreProvider) {
+    }
 }
@@ -27,6 +27,7 @@ public class BigMoneyPlayer implements AtgPlayer {
             );
 
     private final Optional<GameObserver> observer;
+    private ScoreProvider scoreProvider;
 
     /**
      * Creates a new BigMoney player with the specified name.
@@ -198,7 +199,10 @@ public class BigMoneyPlayer implements AtgPlayer {
      * @return True if this player has the highest score, false otherwise
      */
     public boolean isWinning() {
-        List<Player.ScorePair> scores = GameEngine.getCurrentScores();
+        if (scoreProvider == null) {
+            throw new IllegalStateException("GameEngine has not been initialized yet");
+        }
+        List<Player.ScorePair> scores = scoreProvider.getCurrentScores();
         
         // Find my score
         int myScore = 0;
@@ -218,6 +222,16 @@ public class BigMoneyPlayer implements AtgPlayer {
         return true;
     }
 
+    /**
+     * Stores the scores of the game this player is in, for use by isWinning().
+     * 
+     * @param scoreProvider The scores of the current game
+     */
+    @Override
+    public void setScoreProvider(ScoreProvider scoreProvider) {
+        this.scoreProvider = scoreProvider;
+    }
+
     /**
      * Returns the game observer for this player.
      * 
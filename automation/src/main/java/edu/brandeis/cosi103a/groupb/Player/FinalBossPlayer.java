@@ -24,7 +24,7 @@ import edu.brandeis.cosi.atg.api.event.Event;
 import edu.brandeis.cosi103a.groupb.Decks.DiscardDeck;
 import edu.brandeis.cosi103a.groupb.Decks.DrawDeck;
 import edu.brandeis.cosi103a.groupb.Game.ConsoleGameObserver;
-import edu.brandeis.cosi103a.groupb.Game.GameEngine;
+import edu.brandeis.cosi103a.groupb.Game.ScoreProvider;
 
 /**
  * FinalBossPlayer implements an advanced strategy for the game.
@@ -56,6 +56,7 @@ public class FinalBossPlayer implements AtgPlayer {
             );
 
     private final Optional<GameObserver> observer;
+    private ScoreProvider scoreProvider;
 
     public FinalBossPlayer(String name) {
         this.name = name;
@@ -391,7 +392,7 @@ public class FinalBossPlayer implements AtgPlayer {
         
         // Strategic decision: Skip buying last Framework if not winning
         // This prevents ending the game when behind, giving more time to catch up
-        if (!isWinning() && state.getDeck().getNumAvailable(Card.Type.FRAMEWORK) == 1) {
+        if (state.getDeck().getNumAvailable(Card.Type.FRAMEWORK) == 1 && !isWinning()) {
             options = ImmutableList.copyOf(options.stream()
                 .filter(d -> !(d instanceof BuyDecision && ((BuyDecision)d).getCardType() == Card.Type.FRAMEWORK))
                 .collect(Collectors.toList()));
@@ -559,17 +560,9 @@ public class FinalBossPlayer implements AtgPlayer {
                 count++;
             }
         }
-        // Also count cards in draw and discard piles
-        for (Card card : drawDeck.getCards()) {
-            if (card.getType().getCategory() == Card.Type.Category.MONEY) {
-                count++;
-            }
-        }
-        for (Card card : discardDeck.getCards()) {
-            if (card.getType().getCategory() == Card.Type.Category.MONEY) {
-                count++;
-            }
-        }
+        // Also count cards in draw and discard piles (the decks keep their own counts)
+        count += drawDeck.getCount(Card.Type.Category.MONEY);
+        count += discardDeck.getCount(Card.Type.Category.MONEY);
         return count;
     }
 
@@ -584,17 +577,9 @@ public class FinalBossPlayer implements AtgPlayer {
                 count++;
             }
         }
-        // Also count cards in draw and discard piles
-        for (Card card : drawDeck.getCards()) {
-            if (card.getType().getCategory() == Card.Type.Category.ACTION) {
-                count++;
-            }
-        }
-        for (Card card : discardDeck.getCards()) {
-            if (card.getType().getCategory() == Card.Type.Category.ACTION) {
-                count++;
-            }
-        }
+        // Also count cards in draw and discard piles (the decks keep their own counts)
+        count += drawDeck.getCount(Card.Type.Category.ACTION);
+        count += discardDeck.getCount(Card.Type.Category.ACTION);
         return count;
     }
 
@@ -603,7 +588,10 @@ public class FinalBossPlayer implements AtgPlayer {
      * Used for strategic decisions like avoiding buying the last Framework when behind.
      */
     public boolean isWinning() {
-        List<Player.ScorePair> scores = GameEngine.getCurrentScores();
+        if (scoreProvider == null) {
+            throw new IllegalStateException("GameEngine has not been initialized yet");
+        }
+        List<Player.ScorePair> scores = scoreProvider.getCurrentScores();
         int myScore = 0;
         for (Player.ScorePair pair : scores) {
             if (pair.player.getName().equals(this.name)) {
@@ -619,6 +607,11 @@ public class FinalBossPlayer implements AtgPlayer {
         return true;
     }
 
+    @Override
+    public void setScoreProvider(ScoreProvider scoreProvider) {
+        this.scoreProvider = scoreProvider;
+    }
+
     @Override
     public Optional<GameObserver> getObserver() {
         return observer;
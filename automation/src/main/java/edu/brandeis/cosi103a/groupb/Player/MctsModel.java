@@ -0,0 +1,581 @@
+package edu.brandeis.cosi103a.groupb.Player;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import edu.brandeis.cosi.atg.api.cards.Card;
+
+/**
+ * Compact model of the GameEngine rules, used by MctsPlayer to play out
+ * thousands of games per decision.
+ *
+ * Cards are stored as Card.Type ordinals in plain int arrays, and discard
+ * piles only as a count per type, since they are always reshuffled before
+ * being drawn from. The search steps the model from one BUY decision to
+ * the next with applyPurchase; everything else, and every purchase below
+ * the search tree, follows the same fixed policy for both players: play
+ * every action card (non-terminal ones first), play all money, and buy by
+ * a simple Big Money rule with some random buys mixed in.
+ *
+ * The card effects follow GameEngine, with each player decision replaced
+ * by the policy. A model is not thread-safe; every search thread copies
+ * the root model into its own instance.
+ */
+class MctsModel {
+    static final Card.Type[] TYPES = Card.Type.values();
+    static final int NUM_TYPES = TYPES.length;
+
+    private static final int FRAMEWORK = Card.Type.FRAMEWORK.ordinal();
+    private static final int MODULE = Card.Type.MODULE.ordinal();
+    private static final int METHOD = Card.Type.METHOD.ordinal();
+    private static final int DOGECOIN = Card.Type.DOGECOIN.ordinal();
+    private static final int ETHEREUM = Card.Type.ETHEREUM.ordinal();
+    private static final int BUG = Card.Type.BUG.ordinal();
+    private static final int MONITORING = Card.Type.MONITORING.ordinal();
+    private static final int PARALLELIZATION = Card.Type.PARALLELIZATION.ordinal();
+
+    // Piles the buy rule tries in order, by money available and how far the game has gone
+    private static final int[] BUY_8 = { FRAMEWORK, DOGECOIN };
+    private static final int[] BUY_6 = { DOGECOIN, MODULE };
+    private static final int[] BUY_6_LATE = { MODULE, DOGECOIN };
+    private static final int[] BUY_5_LATE = { MODULE, ETHEREUM };
+    private static final int[] BUY_3 = { ETHEREUM };
+    private static final int[] BUY_3_LATE = { METHOD, ETHEREUM };
+    private static final int[] BUY_2_LATE = { METHOD };
+
+    // A game that runs this many turns past the searched decision is scored as it stands
+    private static final int MAX_TURNS = 200;
+
+    // Order in which action cards are played: cards that give actions back come first
+    private static final Card.Type[] ACTION_ORDER = {
+        Card.Type.CODE_REVIEW, Card.Type.IPO, Card.Type.TECH_DEBT, Card.Type.BACKLOG,
+        Card.Type.PARALLELIZATION, Card.Type.DAILY_SCRUM, Card.Type.EVERGREEN_TEST,
+        Card.Type.HACK, Card.Type.REFACTOR
+    };
+    private static final int[] ACTION_RANK = new int[NUM_TYPES];
+    private static final int[] VICTORY = new int[NUM_TYPES];
+    private static final int[] MONEY = new int[NUM_TYPES];
+    private static final int[] COST = new int[NUM_TYPES];
+
+    static {
+        Arrays.fill(ACTION_RANK, -1);
+        for (int i = 0; i < ACTION_ORDER.length; i++) {
+            ACTION_RANK[ACTION_ORDER[i].ordinal()] = ACTION_ORDER.length - i;
+        }
+        for (Card.Type type : TYPES) {
+            int t = type.ordinal();
+            COST[t] = type.getCost();
+            if (type.getCategory() == Card.Type.Category.VICTORY) {
+                VICTORY[t] = type.getValue();
+            } else if (type.getCategory() == Card.Type.Category.MONEY) {
+                MONEY[t] = type.getValue();
+            }
+        }
+    }
+
+    /**
+     * One player's cards. The draw pile is a stack with the top card last.
+     */
+    static final class Side {
+        int[] draw = new int[32];
+        int drawSize;
+        final int[] discard = new int[NUM_TYPES];
+        int discardSize;
+        int[] hand = new int[16];
+        int handSize;
+        int[] played = new int[16];
+        int playedSize;
+        int victoryPoints;
+
+        void copyFrom(Side other) {
+            draw = ensure(draw, other.drawSize);
+            System.arraycopy(other.draw, 0, draw, 0, other.drawSize);
+            drawSize = other.drawSize;
+            System.arraycopy(other.discard, 0, discard, 0, NUM_TYPES);
+            discardSize = other.discardSize;
+            hand = ensure(hand, other.handSize);
+            System.arraycopy(other.hand, 0, hand, 0, other.handSize);
+            handSize = other.handSize;
+            played = ensure(played, other.playedSize);
+            System.arraycopy(other.played, 0, played, 0, other.playedSize);
+            playedSize = other.playedSize;
+            victoryPoints = other.victoryPoints;
+        }
+
+        void addToDraw(int type) {
+            draw = ensure(draw, drawSize + 1);
+            draw[drawSize++] = type;
+            victoryPoints += VICTORY[type];
+        }
+
+        void addToHand(int type) {
+            hand = ensure(hand, handSize + 1);
+            hand[handSize++] = type;
+            victoryPoints += VICTORY[type];
+        }
+
+        void addToPlayed(int type) {
+            played = ensure(played, playedSize + 1);
+            played[playedSize++] = type;
+            victoryPoints += VICTORY[type];
+        }
+
+        void addToDiscard(int type) {
+            discard[type]++;
+            discardSize++;
+            victoryPoints += VICTORY[type];
+        }
+
+        /**
+         * Removes the hand card at the given index. The last card takes its place.
+         */
+        int takeFromHand(int index) {
+            int type = hand[index];
+            hand[index] = hand[--handSize];
+            return type;
+        }
+
+        void moveToPlayed(int index) {
+            int type = takeFromHand(index);
+            played = ensure(played, playedSize + 1);
+            played[playedSize++] = type;
+        }
+
+        void discardFromHand(int index) {
+            int type = takeFromHand(index);
+            discard[type]++;
+            discardSize++;
+        }
+
+        void shuffleDraw(RandomGenerator random) {
+            for (int i = drawSize - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = draw[i];
+                draw[i] = draw[j];
+                draw[j] = tmp;
+            }
+        }
+
+        /**
+         * Moves the discard pile under the draw pile and shuffles the result.
+         * Only called when the draw pile is empty, as in GameEngine.
+         */
+        void reshuffle(RandomGenerator random) {
+            draw = ensure(draw, drawSize + discardSize);
+            for (int t = 0; t < NUM_TYPES; t++) {
+                for (int n = discard[t]; n > 0; n--) {
+                    draw[drawSize++] = t;
+                }
+                discard[t] = 0;
+            }
+            discardSize = 0;
+            shuffleDraw(random);
+        }
+
+        void draw(int count, RandomGenerator random) {
+            for (int i = 0; i < count; i++) {
+                if (drawSize == 0) {
+                    reshuffle(random);
+                    if (drawSize == 0) {
+                        return;
+                    }
+                }
+                hand = ensure(hand, handSize + 1);
+                hand[handSize++] = draw[--drawSize];
+            }
+        }
+
+        int handIndexOf(int type) {
+            for (int i = 0; i < handSize; i++) {
+                if (hand[i] == type) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the index of the hand card the player would most like to get rid of.
+         */
+        int worstInHand(boolean trashing) {
+            int worst = -1;
+            int worstValue = Integer.MAX_VALUE;
+            for (int i = 0; i < handSize; i++) {
+                int value = trashing ? trashValue(hand[i]) : discardValue(hand[i]);
+                if (value < worstValue) {
+                    worstValue = value;
+                    worst = i;
+                }
+            }
+            return worst;
+        }
+
+        /**
+         * Puts the hand and the played cards into the discard pile and draws a new hand.
+         */
+        void cleanup(RandomGenerator random) {
+            for (int i = 0; i < playedSize; i++) {
+                discard[played[i]]++;
+            }
+            for (int i = 0; i < handSize; i++) {
+                discard[hand[i]]++;
+            }
+            discardSize += playedSize + handSize;
+            playedSize = 0;
+            handSize = 0;
+            draw(5, random);
+        }
+
+        private static int[] ensure(int[] array, int size) {
+            return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+        }
+    }
+
+    final int[] supply = new int[NUM_TYPES];
+    // Types that started with a supply pile; an empty one counts for TECH_DEBT
+    long supplyTypes;
+    final Side[] sides = { new Side(), new Side() };
+    int current;
+    int actions;
+    int money;
+    int buys;
+    // Turns ended since the searched decision
+    int turns;
+    boolean over;
+
+    void copyFrom(MctsModel other) {
+        System.arraycopy(other.supply, 0, supply, 0, NUM_TYPES);
+        supplyTypes = other.supplyTypes;
+        sides[0].copyFrom(other.sides[0]);
+        sides[1].copyFrom(other.sides[1]);
+        current = other.current;
+        actions = other.actions;
+        money = other.money;
+        buys = other.buys;
+        turns = other.turns;
+        over = other.over;
+    }
+
+    /**
+     * Fills in the hidden information for one rollout: shuffles the given
+     * player's draw pile, and deals the other player a new hand from a
+     * shuffled pile of all their cards in hand and draw pile.
+     */
+    void determinize(int seat, RandomGenerator random) {
+        sides[seat].shuffleDraw(random);
+        Side other = sides[1 - seat];
+        for (int i = 0; i < other.handSize; i++) {
+            other.draw = Side.ensure(other.draw, other.drawSize + 1);
+            other.draw[other.drawSize++] = other.hand[i];
+        }
+        other.handSize = 0;
+        other.shuffleDraw(random);
+        other.draw(5, random);
+    }
+
+    /**
+     * Lists the choices at the current player's BUY decision: buying nothing
+     * (-1) first, then every pile they can afford. Returns the count.
+     */
+    int legalPurchases(int[] out) {
+        int count = 0;
+        out[count++] = -1;
+        if (buys > 0) {
+            for (int t = 0; t < NUM_TYPES; t++) {
+                if (supply[t] > 0 && COST[t] <= money && (supplyTypes & (1L << t)) != 0) {
+                    out[count++] = t;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Makes one purchase at the current player's BUY decision (none, if type
+     * is negative). Once the buys run out or nothing is bought, the turn ends
+     * and the next player's turn is played up to their BUY decision, unless
+     * the game is over.
+     */
+    void applyPurchase(int type, RandomGenerator random) {
+        if (type >= 0) {
+            buy(type);
+            if (buys > 0) {
+                return;
+            }
+        }
+        endTurn(random);
+    }
+
+    /**
+     * Plays the game out with the policy from the current player's BUY
+     * decision.
+     *
+     * @return 1 if seat wins, 0.5 for a tie and 0 for a loss
+     */
+    double finish(int seat, RandomGenerator random) {
+        while (!over) {
+            buyPhase(random);
+            endTurn(random);
+        }
+        int mine = sides[seat].victoryPoints;
+        int theirs = sides[1 - seat].victoryPoints;
+        return mine > theirs ? 1.0 : mine == theirs ? 0.5 : 0.0;
+    }
+
+    boolean isOver() {
+        return over;
+    }
+
+    private void endTurn(RandomGenerator random) {
+        sides[current].cleanup(random);
+        current = 1 - current;
+        turns++;
+        // Like the engine, the game only ends between turns
+        over = supply[FRAMEWORK] == 0 || turns >= MAX_TURNS;
+        if (!over) {
+            startTurn(random);
+        }
+    }
+
+    private void startTurn(RandomGenerator random) {
+        actions = 1;
+        money = 0;
+        buys = 1;
+        actionPhase(random);
+        Side side = sides[current];
+        for (int i = side.handSize - 1; i >= 0; i--) {
+            if (MONEY[side.hand[i]] > 0) {
+                money += MONEY[side.hand[i]];
+                side.moveToPlayed(i);
+            }
+        }
+    }
+
+    private void actionPhase(RandomGenerator random) {
+        Side side = sides[current];
+        while (actions > 0) {
+            int index = bestAction(side, -1);
+            if (index < 0) {
+                return;
+            }
+            int type = side.hand[index];
+            side.moveToPlayed(index);
+            actions--;
+            if (type == PARALLELIZATION) {
+                // As in GameEngine, the doubled card stays in hand
+                int doubled = bestAction(side, PARALLELIZATION);
+                if (doubled >= 0) {
+                    int doubledType = side.hand[doubled];
+                    playEffect(doubledType, random);
+                    playEffect(doubledType, random);
+                }
+            } else {
+                playEffect(type, random);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the hand card to play next, or -1 if there is none.
+     */
+    private static int bestAction(Side side, int excluded) {
+        int best = -1;
+        int bestRank = 0;
+        for (int i = 0; i < side.handSize; i++) {
+            int type = side.hand[i];
+            if (type != excluded && ACTION_RANK[type] > bestRank) {
+                bestRank = ACTION_RANK[type];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private void playEffect(int type, RandomGenerator random) {
+        Side side = sides[current];
+        Side opponent = sides[1 - current];
+        switch (TYPES[type]) {
+            case BACKLOG: {
+                // Discard the victory cards in hand and draw as many
+                int discarded = 0;
+                for (int i = side.handSize - 1; i >= 0; i--) {
+                    if (VICTORY[side.hand[i]] != 0) {
+                        side.discardFromHand(i);
+                        discarded++;
+                    }
+                }
+                side.draw(discarded, random);
+                actions++;
+                break;
+            }
+            case HACK:
+                money += 2;
+                if (opponent.handIndexOf(MONITORING) >= 0) {
+                    opponent.draw(2, random);
+                } else {
+                    while (opponent.handSize > 3) {
+                        opponent.discardFromHand(opponent.worstInHand(false));
+                    }
+                }
+                break;
+            case DAILY_SCRUM:
+                side.draw(4, random);
+                buys++;
+                opponent.draw(1, random);
+                break;
+            case IPO:
+                side.draw(2, random);
+                actions++;
+                money += 2;
+                break;
+            case CODE_REVIEW:
+                side.draw(1, random);
+                actions += 2;
+                break;
+            case TECH_DEBT: {
+                int empty = emptyPiles();
+                side.draw(1, random);
+                actions++;
+                money++;
+                for (int i = 0; i < empty && side.handSize > 0; i++) {
+                    side.discardFromHand(side.worstInHand(false));
+                }
+                break;
+            }
+            case REFACTOR: {
+                if (side.handSize == 0) {
+                    break;
+                }
+                int trashed = side.takeFromHand(side.worstInHand(true));
+                side.victoryPoints -= VICTORY[trashed];
+                int gained = choosePurchase(supply, supplyTypes, COST[trashed] + 2);
+                if (gained >= 0) {
+                    supply[gained]--;
+                    side.addToDiscard(gained);
+                }
+                break;
+            }
+            case EVERGREEN_TEST:
+                side.draw(2, random);
+                if (opponent.handIndexOf(MONITORING) >= 0) {
+                    opponent.draw(2, random);
+                } else {
+                    opponent.addToDiscard(BUG);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void buyPhase(RandomGenerator random) {
+        while (buys > 0) {
+            int type;
+            // One buy in eight is random, so rollouts do not all follow one line of play
+            if (random.nextInt(8) == 0) {
+                type = randomPurchase(random);
+            } else {
+                type = choosePurchase(supply, supplyTypes, money);
+            }
+            if (type < 0) {
+                return;
+            }
+            buy(type);
+        }
+    }
+
+    private void buy(int type) {
+        supply[type]--;
+        money -= COST[type];
+        buys--;
+        sides[current].addToDiscard(type);
+    }
+
+    private int randomPurchase(RandomGenerator random) {
+        int chosen = -1;
+        int seen = 1;
+        // Reservoir sample over every affordable pile plus buying nothing
+        for (int t = 0; t < NUM_TYPES; t++) {
+            if (supply[t] > 0 && COST[t] <= money && (supplyTypes & (1L << t)) != 0) {
+                seen++;
+                if (random.nextInt(seen) == 0) {
+                    chosen = t;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    private int emptyPiles() {
+        int empty = 0;
+        for (int t = 0; t < NUM_TYPES; t++) {
+            if ((supplyTypes & (1L << t)) != 0 && supply[t] == 0) {
+                empty++;
+            }
+        }
+        return empty;
+    }
+
+    /**
+     * The rollout buy rule: Big Money, switching to victory cards as the
+     * FRAMEWORK pile runs low.
+     *
+     * @return The ordinal of the type to buy, or -1 to buy nothing
+     */
+    static int choosePurchase(int[] supply, long supplyTypes, int money) {
+        int frameworks = supply[FRAMEWORK];
+        int[] wanted;
+        if (money >= 8) {
+            wanted = BUY_8;
+        } else if (money >= 6) {
+            wanted = frameworks <= 4 ? BUY_6_LATE : BUY_6;
+        } else if (money >= 5) {
+            wanted = frameworks <= 5 ? BUY_5_LATE : BUY_3;
+        } else if (money >= 3) {
+            wanted = frameworks <= 2 ? BUY_3_LATE : BUY_3;
+        } else if (money >= 2 && frameworks <= 2) {
+            wanted = BUY_2_LATE;
+        } else {
+            return -1;
+        }
+        for (int type : wanted) {
+            if (supply[type] > 0 && (supplyTypes & (1L << type)) != 0) {
+                return type;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * How much a player wants to keep a card in hand this turn.
+     * Victory cards do nothing in hand, so they go first.
+     */
+    static int discardValue(int type) {
+        if (VICTORY[type] != 0) {
+            return VICTORY[type] < 0 ? -2 : -1;
+        }
+        if (MONEY[type] > 0) {
+            return MONEY[type] * 2;
+        }
+        return 3;
+    }
+
+    /**
+     * How much a player wants to keep a card in their deck for good.
+     * Trashing a BUG is always best, a BITCOIN next.
+     */
+    static int trashValue(int type) {
+        if (type == BUG) {
+            return -10;
+        }
+        return COST[type] * 2 + VICTORY[type];
+    }
+
+    /**
+     * Rank of an action card in the order the policy plays them; 0 for cards
+     * the policy never plays.
+     */
+    static int actionRank(int type) {
+        return Math.max(ACTION_RANK[type], 0);
+    }
+}
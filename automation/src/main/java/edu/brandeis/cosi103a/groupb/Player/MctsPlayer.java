@@ -0,0 +1,648 @@
+package edu.brandeis.cosi103a.groupb.Player;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.brandeis.cosi.atg.api.*;
+import edu.brandeis.cosi.atg.api.cards.Card;
+import edu.brandeis.cosi.atg.api.decisions.*;
+import edu.brandeis.cosi.atg.api.event.Event;
+import edu.brandeis.cosi103a.groupb.Decks.*;
+import edu.brandeis.cosi103a.groupb.Game.*;
+
+/**
+ * An automated player that chooses its purchases by Monte-Carlo tree search.
+ *
+ * For every BUY decision it searches a tree of the purchases both players
+ * make from the current position, played in MctsModel, a compact copy of
+ * the engine rules. Each iteration walks down the tree by the UCT rule,
+ * adds one node, plays the rest of the game out with a simple policy and
+ * backs the result up the path; the player then picks the most-visited
+ * purchase. The search is root-parallel: every worker of a fork/join pool
+ * grows its own tree, and their counts for the current options are added
+ * up. It stops after a fixed number of iterations (rollouts) or a time
+ * limit, whichever comes first.
+ *
+ * The opponent's cards are hidden, so each iteration deals them a plausible
+ * deck: everything taken from the supply that this player did not take,
+ * less the cards they trashed, plus the BUGs they were given. Since the
+ * cards drawn differ between iterations, nodes stand for a sequence of
+ * purchases, and UCT only weighs the purchases that are legal in the
+ * current deal (information set MCTS). All other decisions (playing cards,
+ * discarding, gaining) use the same simple rules as the rollouts.
+ *
+ * Rollouts are drawn from a seeded generator: the seed given to the
+ * constructor, or else one derived from the seed of the engine the player is
+ * playing in. A game between seeded engines and players therefore replays
+ * the same way, as long as the search is limited by rollouts (not time) and
+ * the pool has the same parallelism.
+ */
+public class MctsPlayer implements AtgPlayer {
+    public static final int DEFAULT_ROLLOUTS = 2000;
+
+    private static final int[] STANDARD_SUPPLY = new int[MctsModel.NUM_TYPES];
+    private static final long STANDARD_SUPPLY_TYPES;
+    // Exploration constant of the UCT rule
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    // Process-wide: rollouts run by every MctsPlayer in every game in this process, for sizing hardware
+    private static final LongAdder PROCESS_ROLLOUTS = new LongAdder();
+    // Wall-clock time during which at least one search was running, guarded by PROCESS_LOCK
+    private static final Object PROCESS_LOCK = new Object();
+    private static int activeSearches;
+    private static long busySince;
+    private static long busyNanos;
+
+    static {
+        long types = 0;
+        GameDeck supply = GameEngine.createGameDeck();
+        for (Card.Type type : supply.getCardTypes()) {
+            STANDARD_SUPPLY[type.ordinal()] = supply.getNumAvailable(type);
+            types |= 1L << type.ordinal();
+        }
+        STANDARD_SUPPLY_TYPES = types;
+    }
+
+    // Player components
+    private final String name;
+    private DiscardDeck discardDeck = new DiscardDeck();
+    private DrawDeck drawDeck = new DrawDeck();
+    private Hand hand = new Hand(
+                ImmutableList.copyOf(new ArrayList<Card>()), // Played cards (empty)
+                ImmutableList.copyOf(new ArrayList<Card>())  // Unplayed cards (empty)
+            );
+
+    private final Optional<GameObserver> observer;
+
+    // Search settings
+    private final int rollouts;
+    private final long timeLimitNanos;
+    private final ForkJoinPool pool;
+    private final boolean seeded; // true if the seed came from the constructor
+    private SplittableRandom random;
+
+    // The engine of the current game, if it is a local one
+    private GameEngine engine;
+    // Cards this player trashed, for when there is no local engine to ask
+    private final int[] trashed = new int[MctsModel.NUM_TYPES];
+
+    // Search statistics for this player
+    private long rolloutCount;
+    private long searchNanos;
+
+    /**
+     * Creates a new MCTS player that runs DEFAULT_ROLLOUTS rollouts per
+     * purchase on the common fork/join pool.
+     *
+     * @param name The player's name
+     */
+    public MctsPlayer(String name) {
+        this(name, DEFAULT_ROLLOUTS, 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new MCTS player with the given search budget.
+     *
+     * @param name The player's name
+     * @param rollouts The most rollouts per purchase, or 0 for no limit
+     * @param timeLimitMillis The most time per purchase in milliseconds, or 0 for no limit
+     * @param pool The pool the rollouts run on
+     */
+    public MctsPlayer(String name, int rollouts, long timeLimitMillis, ForkJoinPool pool) {
+        this(name, rollouts, timeLimitMillis, pool, false, 0);
+    }
+
+    /**
+     * Creates a new MCTS player with the given search budget and a fixed seed
+     * for its rollouts.
+     *
+     * @param name The player's name
+     * @param rollouts The most rollouts per purchase, or 0 for no limit
+     * @param timeLimitMillis The most time per purchase in milliseconds, or 0 for no limit
+     * @param pool The pool the rollouts run on
+     * @param seed Seed for the rollouts
+     */
+    public MctsPlayer(String name, int rollouts, long timeLimitMillis, ForkJoinPool pool, long seed) {
+        this(name, rollouts, timeLimitMillis, pool, true, seed);
+    }
+
+    private MctsPlayer(String name, int rollouts, long timeLimitMillis, ForkJoinPool pool, boolean seeded, long seed) {
+        if (rollouts <= 0 && timeLimitMillis <= 0) {
+            throw new IllegalArgumentException("MCTS player needs a rollout or time limit");
+        }
+        this.name = name;
+        this.rollouts = rollouts > 0 ? rollouts : Integer.MAX_VALUE;
+        this.timeLimitNanos = timeLimitMillis * 1_000_000L;
+        this.pool = pool;
+        this.seeded = seeded;
+        this.random = seeded ? new SplittableRandom(seed) : new SplittableRandom();
+        this.observer = Optional.of(new ConsoleGameObserver());
+    }
+
+    /**
+     * Remembers the engine of a local game, to read what the opponent has
+     * trashed and been given. Unless a seed was passed to the constructor,
+     * the rollouts are reseeded from the engine's seed and this player's seat.
+     *
+     * @param scoreProvider The scores of the player's current game
+     */
+    @Override
+    public void setScoreProvider(ScoreProvider scoreProvider) {
+        this.engine = scoreProvider instanceof GameEngine local ? local : null;
+        Arrays.fill(trashed, 0);
+        if (engine != null && !seeded) {
+            random = new SplittableRandom(engine.getSeed() + 0x9E3779B97F4A7C15L * engine.getPlayerNumber(this));
+        }
+    }
+
+    /**
+     * Returns the player's name.
+     *
+     * @return The player's name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Makes a decision based on the current game state and available options.
+     * Purchases are searched; everything else follows the rollout policy.
+     *
+     * @param state The current game state
+     * @param options Available decision options
+     * @param reason Optional event that prompted this decision
+     * @return The chosen decision
+     */
+    @Override
+    public Decision makeDecision(GameState state, ImmutableList<Decision> options, Optional<Event> reason) {
+        Decision best = null;
+        int bestValue = Integer.MIN_VALUE;
+        for (Decision option : options) {
+            int value;
+            if (option instanceof BuyDecision) {
+                return searchPurchase(state, options);
+            } else if (option instanceof PlayCardDecision play) {
+                // Action cards in the policy's order, then money cards (and MONITORING reactions)
+                int type = play.getCard().getType().ordinal();
+                value = 1000 + MctsModel.actionRank(type) * 10 + play.getCard().getValue();
+            } else if (option instanceof DiscardCardDecision discard) {
+                value = -MctsModel.discardValue(discard.getCard().getType().ordinal());
+            } else if (option instanceof TrashCardDecision trash) {
+                value = -MctsModel.trashValue(trash.getCard().getType().ordinal());
+            } else if (option instanceof GainCardDecision gain) {
+                // Gain the most expensive card on offer
+                value = gain.getCardType().getCost();
+            } else if (option instanceof EndPhaseDecision) {
+                // Stop once only cards worth keeping are left to discard
+                value = 0;
+            } else {
+                continue;
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                best = option;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("MCTS Player could not find a valid decision.");
+        }
+        if (best instanceof TrashCardDecision trash) {
+            trashed[trash.getCard().getType().ordinal()]++;
+        }
+        return best;
+    }
+
+    /**
+     * Chooses among the BUY options by searching from the current position.
+     */
+    private Decision searchPurchase(GameState state, ImmutableList<Decision> options) {
+        int[] moves = new int[options.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = options.get(i) instanceof BuyDecision buy ? buy.getCardType().ordinal() : -1;
+        }
+        if (moves.length == 1) {
+            return options.get(0);
+        }
+
+        long start = System.nanoTime();
+        long deadline = timeLimitNanos > 0 ? start + timeLimitNanos : Long.MAX_VALUE;
+        MctsModel root = buildRoot(state);
+        int workers = Math.max(1, Math.min(pool.getParallelism(), rollouts));
+        SplittableRandom[] randoms = new SplittableRandom[workers];
+        for (int i = 0; i < workers; i++) {
+            randoms[i] = random.split();
+        }
+        SearchResult result;
+        searchStarted(start);
+        try {
+            result = pool.invoke(new RolloutTask(root, moves, randoms, 0, workers, rollouts, deadline));
+        } finally {
+            searchEnded();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        rolloutCount += result.rollouts;
+        searchNanos += elapsed;
+        PROCESS_ROLLOUTS.add(result.rollouts);
+
+        // The most-visited option is the most reliable choice
+        int best = 0;
+        for (int i = 1; i < moves.length; i++) {
+            if (result.visits[i] > result.visits[best]
+                    || (result.visits[i] == result.visits[best] && result.wins[i] > result.wins[best])) {
+                best = i;
+            }
+        }
+        return options.get(best);
+    }
+
+    private static void searchStarted(long now) {
+        synchronized (PROCESS_LOCK) {
+            if (activeSearches++ == 0) {
+                busySince = now;
+            }
+        }
+    }
+
+    private static void searchEnded() {
+        synchronized (PROCESS_LOCK) {
+            if (--activeSearches == 0) {
+                busyNanos += System.nanoTime() - busySince;
+            }
+        }
+    }
+
+    /**
+     * Builds the model of the current position. This player's cards are known
+     * (though not the order of the draw pile); the opponent is given every
+     * card that has left the supply and is not in this player's deck, less
+     * what they trashed, plus the BUGs they were given. Trashes and BUGs are
+     * read from the engine when the game is local.
+     */
+    private MctsModel buildRoot(GameState state) {
+        MctsModel model = new MctsModel();
+        int[] supply = supplyCounts(state.getDeck());
+        System.arraycopy(supply, 0, model.supply, 0, supply.length);
+        model.supplyTypes = STANDARD_SUPPLY_TYPES;
+        model.current = 0;
+        model.money = state.getSpendableMoney();
+        model.buys = state.getAvailableBuys();
+
+        int[] owned = new int[MctsModel.NUM_TYPES];
+        MctsModel.Side me = model.sides[0];
+        for (Card card : drawDeck.getCards()) {
+            me.addToDraw(card.getType().ordinal());
+            owned[card.getType().ordinal()]++;
+        }
+        for (Card card : discardDeck.getCards()) {
+            me.addToDiscard(card.getType().ordinal());
+            owned[card.getType().ordinal()]++;
+        }
+        // Cards in hand are discarded at cleanup whether or not they were played
+        for (Card card : state.getCurrentPlayerHand().getAllCards()) {
+            me.addToPlayed(card.getType().ordinal());
+            owned[card.getType().ordinal()]++;
+        }
+
+        int[] myTrashed = trashed;
+        int[] theirTrashed = new int[MctsModel.NUM_TYPES];
+        int bugsGiven = 0;
+        int seat = engine == null ? 0 : engine.getPlayerNumber(this);
+        if (seat != 0) {
+            myTrashed = engine.getCardsTrashed(seat);
+            theirTrashed = engine.getCardsTrashed(3 - seat);
+            bugsGiven = engine.getBugsReceived(1) + engine.getBugsReceived(2);
+        }
+
+        MctsModel.Side opponent = model.sides[1];
+        for (int t = 0; t < MctsModel.NUM_TYPES; t++) {
+            // Taken from the supply by the opponent, less what they trashed
+            int theirs = STANDARD_SUPPLY[t] - supply[t] - owned[t] - myTrashed[t] - theirTrashed[t];
+            if (t == Card.Type.BUG.ordinal()) {
+                // BUGs are not in the supply: those not in this player's cards are the opponent's
+                theirs += bugsGiven;
+            }
+            for (int n = 0; n < theirs; n++) {
+                opponent.addToDraw(t);
+            }
+        }
+        return model;
+    }
+
+    private static int[] supplyCounts(GameDeck deck) {
+        int[] counts = new int[MctsModel.NUM_TYPES];
+        for (Card.Type type : MctsModel.TYPES) {
+            counts[type.ordinal()] = deck.getNumAvailable(type);
+        }
+        return counts;
+    }
+
+    /**
+     * Win totals and visit counts per root option, summed over the trees of one or more workers.
+     */
+    private static final class SearchResult {
+        final double[] wins;
+        final int[] visits;
+        long rollouts;
+
+        SearchResult(int options) {
+            wins = new double[options];
+            visits = new int[options];
+        }
+
+        SearchResult merge(SearchResult other) {
+            for (int i = 0; i < wins.length; i++) {
+                wins[i] += other.wins[i];
+                visits[i] += other.visits[i];
+            }
+            rollouts += other.rollouts;
+            return this;
+        }
+    }
+
+    /**
+     * Runs the rollouts of a range of workers, splitting the range in half
+     * until each task has one worker. Each worker grows its own tree in its
+     * own copy of the model, so the workers share nothing but the read-only
+     * root.
+     */
+    private static final class RolloutTask extends RecursiveTask<SearchResult> {
+        private final MctsModel root;
+        private final int[] moves;
+        private final SplittableRandom[] randoms;
+        private final int from;
+        private final int to;
+        private final int rollouts;
+        private final long deadline;
+
+        RolloutTask(MctsModel root, int[] moves, SplittableRandom[] randoms, int from, int to, int rollouts, long deadline) {
+            this.root = root;
+            this.moves = moves;
+            this.randoms = randoms;
+            this.from = from;
+            this.to = to;
+            this.rollouts = rollouts;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected SearchResult compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                RolloutTask left = new RolloutTask(root, moves, randoms, from, mid, rollouts, deadline);
+                left.fork();
+                SearchResult right = new RolloutTask(root, moves, randoms, mid, to, rollouts, deadline).compute();
+                return left.join().merge(right);
+            }
+            return runWorker();
+        }
+
+        /**
+         * Builds one search tree. Each iteration deals a fresh determinization,
+         * walks down the tree by UCT among the purchases that are legal in it,
+         * adds one node, plays the rest of the game out with the policy and
+         * backs the result up the path.
+         */
+        private SearchResult runWorker() {
+            int workers = randoms.length;
+            // Spread the budget so the workers' shares add up to exactly the total
+            int share = rollouts / workers + (from < rollouts % workers ? 1 : 0);
+            SplittableRandom random = randoms[from];
+            Node tree = new Node(null, -1, -1, moves.length);
+            int[] legal = new int[MctsModel.NUM_TYPES + 1];
+            int[] rootSlots = new int[moves.length];
+            for (int i = 0; i < rootSlots.length; i++) {
+                rootSlots[i] = i;
+            }
+            MctsModel model = new MctsModel();
+            int iterations = 0;
+            for (; iterations < share; iterations++) {
+                if ((iterations & 15) == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                model.copyFrom(root);
+                model.determinize(0, random);
+
+                // Selection and expansion; the root's children are the engine's options
+                Node node = descend(tree, rootSlots, rootSlots.length, 0, moves.length, random);
+                model.applyPurchase(node.move, random);
+                while (node.visits > 0 && !model.isOver()) {
+                    int count = model.legalPurchases(legal);
+                    if (count == 1) {
+                        // Nothing to choose, so no node
+                        model.applyPurchase(-1, random);
+                        continue;
+                    }
+                    // Children are indexed by type ordinal + 1, so buying nothing is slot 0
+                    for (int j = 0; j < count; j++) {
+                        legal[j]++;
+                    }
+                    node = descend(node, legal, count, model.current, legal.length, random);
+                    model.applyPurchase(node.move, random);
+                }
+
+                // Simulation and backpropagation
+                double result = model.finish(0, random);
+                for (Node n = node; n != null; n = n.parent) {
+                    n.visits++;
+                    n.wins += n.player == 0 ? result : 1 - result;
+                }
+            }
+
+            SearchResult result = new SearchResult(moves.length);
+            result.rollouts = iterations;
+            for (int i = 0; i < moves.length; i++) {
+                Node child = tree.children[i];
+                if (child != null) {
+                    result.wins[i] = child.wins;
+                    result.visits[i] = child.visits;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Picks the child of node to follow among the given slots. A slot
+         * without a child yet is expanded (a random one, if there are several);
+         * otherwise UCT picks the child with the best upper confidence bound,
+         * counting only the iterations in which it was legal.
+         */
+        private Node descend(Node node, int[] slots, int count, int player, int slotCount, SplittableRandom random) {
+            if (node.children == null) {
+                node.children = new Node[slotCount];
+            }
+            int untried = -1;
+            int seen = 0;
+            Node best = null;
+            double bestBound = Double.NEGATIVE_INFINITY;
+            for (int j = 0; j < count; j++) {
+                Node child = node.children[slots[j]];
+                if (child == null) {
+                    seen++;
+                    if (random.nextInt(seen) == 0) {
+                        untried = slots[j];
+                    }
+                    continue;
+                }
+                child.availability++;
+                double bound = child.wins / child.visits
+                        + EXPLORATION * Math.sqrt(Math.log(child.availability) / child.visits);
+                if (bound > bestBound) {
+                    bestBound = bound;
+                    best = child;
+                }
+            }
+            if (untried >= 0) {
+                int move = node.parent == null ? moves[untried] : untried - 1;
+                best = new Node(node, move, player, 0);
+                node.children[untried] = best;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * A node of a search tree: the position after a purchase, keyed by the
+     * purchases on the way down from the root rather than by the cards drawn,
+     * which differ from one determinization to the next.
+     */
+    private static final class Node {
+        final Node parent;
+        final int move; // type ordinal bought, or -1 for none
+        final int player; // the seat that made the move
+        Node[] children;
+        double wins; // from the point of view of player
+        int visits;
+        int availability; // iterations in which the move was legal
+
+        Node(Node parent, int move, int player, int slots) {
+            this.parent = parent;
+            this.move = move;
+            this.player = player;
+            if (slots > 0) {
+                children = new Node[slots];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rollouts this player has run.
+     *
+     * @return The total rollouts over all of this player's searches
+     */
+    public long getRolloutCount() {
+        return rolloutCount;
+    }
+
+    /**
+     * Returns the time this player has spent searching.
+     *
+     * @return The total wall-clock time of this player's searches, in nanoseconds
+     */
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * Returns this player's search speed, for sizing hardware.
+     *
+     * @return Rollouts per second of search time, or 0 if no search has run
+     */
+    public double getRolloutsPerSecond() {
+        return searchNanos == 0 ? 0 : rolloutCount * 1e9 / searchNanos;
+    }
+
+    /**
+     * Returns the number of rollouts run by every MCTS player in this process,
+     * in all games, including games running at the same time. For one
+     * player's count use getRolloutCount().
+     *
+     * @return The process-wide total since the process started or the last reset
+     */
+    public static long getProcessRollouts() {
+        return PROCESS_ROLLOUTS.sum();
+    }
+
+    /**
+     * Returns the search speed of the whole process: rollouts by every MCTS
+     * player per second of wall-clock time in which at least one search was
+     * running. Searches that overlap in parallel games count their time once,
+     * so this grows with the games run at the same time. For the speed of one
+     * player's searches use getRolloutsPerSecond().
+     *
+     * @return Process-wide rollouts per second of busy time, or 0 if no search has run
+     */
+    public static double getProcessRolloutsPerSecond() {
+        long nanos;
+        synchronized (PROCESS_LOCK) {
+            nanos = busyNanos + (activeSearches > 0 ? System.nanoTime() - busySince : 0);
+        }
+        return nanos == 0 ? 0 : PROCESS_ROLLOUTS.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * Clears the process-wide rollout statistics of all MCTS players.
+     */
+    public static void resetProcessTotals() {
+        synchronized (PROCESS_LOCK) {
+            PROCESS_ROLLOUTS.reset();
+            busyNanos = 0;
+            busySince = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the game observer for this player.
+     *
+     * @return The game observer
+     */
+    @Override
+    public Optional<GameObserver> getObserver() {
+        return observer;
+    }
+
+    /**
+     * Gets the player's discard deck.
+     *
+     * @return The player's discard deck
+     */
+    @Override
+    public DiscardDeck getDiscardDeck() {
+        return this.discardDeck;
+    }
+
+    /**
+     * Gets the player's draw deck.
+     *
+     * @return The player's draw deck
+     */
+    @Override
+    public DrawDeck getDrawDeck() {
+        return this.drawDeck;
+    }
+
+    /**
+     * Gets the player's current hand.
+     *
+     * @return The player's hand
+     */
+    @Override
+    public Hand getHand() {
+        return this.hand;
+    }
+
+    /**
+     * Sets the player's hand.
+     *
+     * @param hand The new hand to set
+     */
+    @Override
+    public void setHand(Hand hand) {
+        this.hand = hand;
+    }
+}
@@ -31,6 +31,7 @@ public class RedEyePlayer implements AtgPlayer {
             );
 
     private final Optional<GameObserver> observer;
+    private ScoreProvider scoreProvider;
 
     /**
      * Creates a new RedEye player with the specified name.
@@ -256,7 +257,10 @@ public class RedEyePlayer implements AtgPlayer {
      * @return True if this player has the highest score, false otherwise
      */
     public boolean isWinning() {
-        List<Player.ScorePair> scores = GameEngine.getCurrentScores();
+        if (scoreProvider == null) {
+            throw new IllegalStateException("GameEngine has not been initialized yet");
+        }
+        List<Player.ScorePair> scores = scoreProvider.getCurrentScores();
         
         // Find my score
         int myScore = 0;
@@ -276,6 +280,16 @@ public class RedEyePlayer implements AtgPlayer {
         return true;
     }
 
+    /**
+     * Stores the scores of the game this player is in, for use by isWinning().
+     * 
+     * @param scoreProvider The scores of the current game
+     */
+    @Override
+    public void setScoreProvider(ScoreProvider scoreProvider) {
+        this.scoreProvider = scoreProvider;
+    }
+
     /**
      * Returns the game observer for this player.
      * 
@@ -0,0 +1,12 @@
+package edu.brandeis.cosi103a.groupb.Rating;
+
+/**
+ * Thrown when a tournament refuses to resume from its checkpoint: the file
+ * is not a checkpoint, was saved with other settings, or the game record
+ * file no longer matches it.
+ */
+public class CheckpointMismatchException extends IllegalStateException {
+    public CheckpointMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,272 @@
+package edu.brandeis.cosi103a.groupb.Rating;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import edu.brandeis.cosi.atg.api.cards.Card;
+
+/**
+ * Reads the game records written by GameRecordSink, one block at a time.
+ *
+ * Each call to nextBlock() loads the next block's columns into arrays; the
+ * getters then read game i of the current block:
+ * <pre>
+ *   try (GameRecordReader reader = new GameRecordReader(path)) {
+ *       while (reader.nextBlock()) {
+ *           for (int i = 0; i &lt; reader.size(); i++) {
+ *               total += reader.getScore(1, i);
+ *           }
+ *       }
+ *   }
+ * </pre>
+ * A block that was cut short (the writer was killed while writing it) ends
+ * the file. Card types are matched by name, so files stay readable if the
+ * card list changes; counts for types that no longer exist are dropped.
+ */
+public class GameRecordReader implements Closeable {
+    private static final Card.Type[] CARD_TYPES = Card.Type.values();
+
+    private final DataInputStream in;
+    private final CountingInputStream counter;
+    private final CRC32 crc = new CRC32();
+
+    // Where the current block ends in the file, and its checksum
+    private long blockEnd = 0;
+    private long blockChecksum = 0;
+
+    // Columns of the current block
+    private int size = 0;
+    private String[] names = new String[0];
+    private long[] seeds = new long[0];
+    private byte[] firstPlayers = new byte[0];
+    private short[][] nameIndexes = new short[2][0];
+    private int[][] scores = new int[2][0];
+    private int[] turns = new int[0];
+    private short[][][] bought = new short[2][CARD_TYPES.length][0];
+
+    /**
+     * Opens a record file.
+     *
+     * @param path The file written by GameRecordSink
+     * @throws IOException If the file cannot be opened
+     */
+    public GameRecordReader(Path path) throws IOException {
+        this(Files.newInputStream(path));
+    }
+
+    /**
+     * Reads records from a stream.
+     *
+     * @param stream The blocks written by GameRecordSink; closed by close()
+     */
+    public GameRecordReader(InputStream stream) {
+        this.counter = new CountingInputStream(new BufferedInputStream(stream, 1 << 16));
+        this.in = new DataInputStream(new CheckedInputStream(counter, crc));
+    }
+
+    /**
+     * Loads the next block.
+     *
+     * @return False at the end of the file, or at a block that was cut short
+     * @throws IOException If the file cannot be read or is not a record file
+     */
+    public boolean nextBlock() throws IOException {
+        crc.reset();
+        int magic;
+        try {
+            magic = in.readInt();
+        } catch (EOFException e) {
+            size = 0;
+            return false;
+        }
+        if (magic != GameRecordSink.MAGIC) {
+            throw new IOException("Not a game record block");
+        }
+        try {
+            readBlock();
+            blockEnd = counter.count;
+            blockChecksum = crc.getValue();
+            return true;
+        } catch (EOFException e) {
+            size = 0;
+            return false;
+        }
+    }
+
+    private void readBlock() throws IOException {
+        int n = in.readInt();
+        names = new String[in.readUnsignedShort()];
+        for (int k = 0; k < names.length; k++) {
+            names[k] = in.readUTF();
+        }
+        // Position of each stored card type in today's Card.Type, or -1
+        int[] typeMap = new int[in.readUnsignedShort()];
+        for (int t = 0; t < typeMap.length; t++) {
+            typeMap[t] = ordinalOf(in.readUTF());
+        }
+
+        seeds = new long[n];
+        for (int i = 0; i < n; i++) {
+            seeds[i] = in.readLong();
+        }
+        firstPlayers = new byte[n];
+        in.readFully(firstPlayers);
+        nameIndexes = new short[][] {readShorts(n), readShorts(n)};
+        scores = new int[][] {readInts(n), readInts(n)};
+        turns = readInts(n);
+        bought = new short[2][CARD_TYPES.length][];
+        for (int p = 0; p < 2; p++) {
+            for (int t = 0; t < typeMap.length; t++) {
+                short[] column = readShorts(n);
+                if (typeMap[t] >= 0) {
+                    bought[p][typeMap[t]] = column;
+                }
+            }
+            for (int t = 0; t < CARD_TYPES.length; t++) {
+                if (bought[p][t] == null) {
+                    bought[p][t] = new short[n];
+                }
+            }
+        }
+        size = n;
+    }
+
+    private static int ordinalOf(String typeName) {
+        for (Card.Type type : CARD_TYPES) {
+            if (type.name().equals(typeName)) {
+                return type.ordinal();
+            }
+        }
+        return -1;
+    }
+
+    private short[] readShorts(int n) throws IOException {
+        short[] column = new short[n];
+        for (int i = 0; i < n; i++) {
+            column[i] = in.readShort();
+        }
+        return column;
+    }
+
+    private int[] readInts(int n) throws IOException {
+        int[] column = new int[n];
+        for (int i = 0; i < n; i++) {
+            column[i] = in.readInt();
+        }
+        return column;
+    }
+
+    /**
+     * Returns the offset just past the current block: the length of the
+     * complete blocks read so far.
+     */
+    long getBlockEnd() {
+        return blockEnd;
+    }
+
+    /**
+     * Returns the CRC-32 of the current block's bytes, or 0 before the first block.
+     */
+    long getBlockChecksum() {
+        return blockChecksum;
+    }
+
+    /**
+     * Returns the number of games in the current block.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getSeed(int i) {
+        return seeds[i];
+    }
+
+    /**
+     * Returns the player who moved first in game i, 1 or 2.
+     */
+    public int getFirstPlayer(int i) {
+        return firstPlayers[i];
+    }
+
+    /**
+     * Returns a player's name.
+     *
+     * @param player 1 or 2
+     * @param i The game's position in the block
+     */
+    public String getName(int player, int i) {
+        return names[nameIndexes[player - 1][i]];
+    }
+
+    /**
+     * Returns a player's final score.
+     *
+     * @param player 1 or 2
+     * @param i The game's position in the block
+     */
+    public int getScore(int player, int i) {
+        return scores[player - 1][i];
+    }
+
+    /**
+     * Returns the number of rounds game i lasted.
+     */
+    public int getTurns(int i) {
+        return turns[i];
+    }
+
+    /**
+     * Returns how many cards of a type a player bought.
+     *
+     * @param player 1 or 2
+     * @param type The card type
+     * @param i The game's position in the block
+     */
+    public int getCardsBought(int player, Card.Type type, int i) {
+        return bought[player - 1][type.ordinal()][i];
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Counts the bytes read through it, so the reader knows where each block ends.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package edu.brandeis.cosi103a.groupb.Rating;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import edu.brandeis.cosi.atg.api.cards.Card;
+
+/**
+ * Writes one record per finished game to an append-only binary file, for
+ * analysis of large tournaments without rerunning them.
+ *
+ * Records are buffered and written in blocks of up to BLOCK_SIZE games.
+ * Within a block the data is stored column by column (all seeds, then all
+ * first-player flags, and so on), so a reader that needs only a few columns
+ * reads them as contiguous arrays. Each block is self-contained: it carries
+ * its own table of player names and card types, so files from several runs
+ * can be appended to one another. A run that is killed loses at most the
+ * games still in the buffer, and GameRecordReader stops at a block that was
+ * cut short. A sink opened on a file first drops such a block, so that its
+ * own blocks follow a complete one.
+ *
+ * Block layout (big-endian, as written by DataOutputStream):
+ * <pre>
+ *   int    MAGIC
+ *   int    number of games n
+ *   short  number of names, then each name (writeUTF)
+ *   short  number of card types t, then each type's name (writeUTF)
+ *   long[n]   seed
+ *   byte[n]   first player to move (1 or 2)
+ *   short[n]  player 1 name index, short[n] player 2 name index
+ *   int[n]    player 1 score, int[n] player 2 score
+ *   int[n]    rounds played
+ *   short[t][n] cards of each type bought by player 1, then the same for player 2
+ * </pre>
+ *
+ * record() is synchronized, so parallel game batches can share one sink.
+ *
+ * A sink opened on a file can report how long the file is (position()) and
+ * the checksum of its last block (checksum()), and cut it back to an earlier
+ * length (truncate()). A tournament checkpoint saves both, so that games
+ * replayed after a resume are not recorded twice, and so that a file that has
+ * since been changed, or that other runs have appended to, is not cut.
+ */
+public class GameRecordSink implements Closeable, Flushable {
+    /** First bytes of every block ("GRB1"). */
+    public static final int MAGIC = 0x47524231;
+
+    /** Games buffered before a block is written. */
+    public static final int BLOCK_SIZE = 4096;
+
+    private static final Card.Type[] CARD_TYPES = Card.Type.values();
+
+    private final DataOutputStream out;
+    private final Path path;            // null when writing to a stream
+    private final FileChannel channel;  // null when writing to a stream
+    private final CRC32 crc = new CRC32();
+    private long lastChecksum = 0;      // CRC-32 of the last complete block in the file
+
+    // Columns of the block being filled
+    private final long[] seeds = new long[BLOCK_SIZE];
+    private final byte[] firstPlayers = new byte[BLOCK_SIZE];
+    private final short[] player1Names = new short[BLOCK_SIZE];
+    private final short[] player2Names = new short[BLOCK_SIZE];
+    private final int[] player1Scores = new int[BLOCK_SIZE];
+    private final int[] player2Scores = new int[BLOCK_SIZE];
+    private final int[] turns = new int[BLOCK_SIZE];
+    private final short[][] player1Bought = new short[CARD_TYPES.length][BLOCK_SIZE];
+    private final short[][] player2Bought = new short[CARD_TYPES.length][BLOCK_SIZE];
+    private final Map<String, Short> nameIndex = new LinkedHashMap<>();
+    private int size = 0;
+    private long recordsWritten = 0;
+
+    /**
+     * Opens a sink that appends to a file, creating it if needed. A block at
+     * the end of the file that a killed run left half written is dropped.
+     *
+     * @param path The file to append to
+     * @throws IOException If the file cannot be opened, or is not a record file
+     */
+    public GameRecordSink(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            long end = 0;
+            try (GameRecordReader reader = new GameRecordReader(Files.newInputStream(path))) {
+                while (reader.nextBlock()) {
+                    end = reader.getBlockEnd();
+                    lastChecksum = reader.getBlockChecksum();
+                }
+            }
+            if (channel.size() > end) {
+                channel.truncate(end);
+            }
+            channel.position(end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+    }
+
+    /**
+     * Creates a sink that writes to a stream.
+     *
+     * @param stream Where the blocks are written; closed by close()
+     */
+    public GameRecordSink(OutputStream stream) {
+        this.path = null;
+        this.channel = null;
+        this.out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(stream, 1 << 16), crc));
+    }
+
+    /**
+     * Adds the record of one finished game.
+     *
+     * @param seed The seed the game was dealt from
+     * @param firstPlayer The player who moved first, 1 or 2
+     * @param player1 Player 1's name
+     * @param player2 Player 2's name
+     * @param player1Score Player 1's final score
+     * @param player2Score Player 2's final score
+     * @param rounds Rounds played
+     * @param player1CardsBought Cards bought by player 1, indexed by Card.Type ordinal
+     * @param player2CardsBought Cards bought by player 2, indexed by Card.Type ordinal
+     * @throws IOException If a full block could not be written
+     */
+    public synchronized void record(long seed, int firstPlayer, String player1, String player2,
+                                    int player1Score, int player2Score, int rounds,
+                                    int[] player1CardsBought, int[] player2CardsBought) throws IOException {
+        seeds[size] = seed;
+        firstPlayers[size] = (byte) firstPlayer;
+        player1Names[size] = indexOf(player1);
+        player2Names[size] = indexOf(player2);
+        player1Scores[size] = player1Score;
+        player2Scores[size] = player2Score;
+        turns[size] = rounds;
+        for (int t = 0; t < CARD_TYPES.length; t++) {
+            player1Bought[t][size] = (short) player1CardsBought[t];
+            player2Bought[t][size] = (short) player2CardsBought[t];
+        }
+        size++;
+        if (size == BLOCK_SIZE || nameIndex.size() == Short.MAX_VALUE) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Returns the number of records handed to the sink so far.
+     */
+    public synchronized long getRecordCount() {
+        return recordsWritten + size;
+    }
+
+    /**
+     * Writes the buffered records as a (possibly short) block and flushes the file.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (size > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered records (see flush()) and returns the length of the
+     * file, which is always at the end of a block.
+     *
+     * @return The length in bytes, or -1 if the sink writes to a stream
+     * @throws IOException If the records could not be written
+     */
+    public synchronized long position() throws IOException {
+        flush();
+        return channel == null ? -1 : channel.size();
+    }
+
+    /**
+     * Writes the buffered records (see flush()) and returns the CRC-32 of the
+     * last block in the file, which together with position() identifies the
+     * file's contents.
+     *
+     * @return The checksum, or 0 if no block has been written
+     * @throws IOException If the records could not be written
+     */
+    public synchronized long checksum() throws IOException {
+        flush();
+        return lastChecksum;
+    }
+
+    /**
+     * Drops everything written after an earlier position(), along with any
+     * buffered records, provided the file still ends a block with the
+     * checksum() saved with that position there, and every game recorded
+     * after it passes a check. Nothing is cut otherwise.
+     *
+     * @param position A length returned by position() on this file
+     * @param checksum The checksum() returned with it
+     * @param ownBlock Tells whether a block written after the position may be dropped
+     * @return True if the file was cut back (or already ended there), false if it did not match
+     * @throws IOException If the sink writes to a stream, or the file cannot be read or cut
+     */
+    public synchronized boolean truncate(long position, long checksum, Predicate<GameRecordReader> ownBlock)
+            throws IOException {
+        if (channel == null) {
+            throw new IOException("Records written to a stream cannot be truncated");
+        }
+        size = 0;
+        nameIndex.clear();
+        out.flush();
+        try (GameRecordReader reader = new GameRecordReader(Files.newInputStream(path))) {
+            boolean matches = position == 0 && checksum == 0;
+            while (!matches && reader.getBlockEnd() < position && reader.nextBlock()) {
+                matches = reader.getBlockEnd() == position && reader.getBlockChecksum() == checksum;
+            }
+            if (!matches) {
+                return false;
+            }
+            while (reader.nextBlock()) {
+                if (!ownBlock.test(reader)) {
+                    return false;
+                }
+            }
+        }
+        if (channel.size() > position) {
+            channel.truncate(position);
+        }
+        channel.position(channel.size());
+        lastChecksum = checksum;
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private short indexOf(String name) {
+        return nameIndex.computeIfAbsent(name, n -> (short) nameIndex.size());
+    }
+
+    private void writeBlock() throws IOException {
+        crc.reset();
+        out.writeInt(MAGIC);
+        out.writeInt(size);
+        out.writeShort(nameIndex.size());
+        for (String name : nameIndex.keySet()) {
+            out.writeUTF(name);
+        }
+        out.writeShort(CARD_TYPES.length);
+        for (Card.Type type : CARD_TYPES) {
+            out.writeUTF(type.name());
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeLong(seeds[i]);
+        }
+        out.write(firstPlayers, 0, size);
+        writeShorts(player1Names);
+        writeShorts(player2Names);
+        writeInts(player1Scores);
+        writeInts(player2Scores);
+        writeInts(turns);
+        for (short[] column : player1Bought) {
+            writeShorts(column);
+        }
+        for (short[] column : player2Bought) {
+            writeShorts(column);
+        }
+        lastChecksum = crc.getValue();
+        recordsWritten += size;
+        size = 0;
+        nameIndex.clear();
+    }
+
+    private void writeShorts(short[] column) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.writeShort(column[i]);
+        }
+    }
+
+    private void writeInts(int[] column) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.writeInt(column[i]);
+        }
+    }
+}
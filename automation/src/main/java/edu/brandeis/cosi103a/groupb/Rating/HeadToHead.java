@@ -0,0 +1,159 @@
+package edu.brandeis.cosi103a.groupb.Rating;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Results of every pairing in a tournament: wins, losses, ties, point
+ * differential and game length.
+ *
+ * The counts are kept in flat arrays indexed by the players' registration
+ * order (cell i * n + j describes player i against player j), so the matrix
+ * stays small and cheap to update even with hundreds of players. Batches of
+ * games add their totals as they finish; the methods are synchronized so
+ * that parallel batches can do so safely.
+ */
+public class HeadToHead {
+    private final List<String> names;
+    private final int n;
+    private final int[] wins;                // Games player i won against player j
+    private final int[] ties;                // Games tied, stored in both cells
+    private final long[] pointDifferential;  // Player i's points minus player j's, summed
+    private final long[] turns;              // Rounds played, stored in both cells
+
+    /**
+     * Creates an empty matrix.
+     *
+     * @param names The players' names, in registration order
+     */
+    public HeadToHead(List<String> names) {
+        this.names = List.copyOf(names);
+        this.n = names.size();
+        this.wins = new int[n * n];
+        this.ties = new int[n * n];
+        this.pointDifferential = new long[n * n];
+        this.turns = new long[n * n];
+    }
+
+    /**
+     * Adds the totals of a batch of games between two players.
+     *
+     * @param i The first player's index
+     * @param j The second player's index
+     * @param winsI Games the first player won
+     * @param winsJ Games the second player won
+     * @param tiesIJ Games tied
+     * @param differentialI The first player's points minus the second's, summed over the games
+     * @param turnSum Rounds played, summed over the games
+     */
+    public synchronized void record(int i, int j, int winsI, int winsJ, int tiesIJ, long differentialI, long turnSum) {
+        wins[i * n + j] += winsI;
+        wins[j * n + i] += winsJ;
+        ties[i * n + j] += tiesIJ;
+        ties[j * n + i] += tiesIJ;
+        pointDifferential[i * n + j] += differentialI;
+        pointDifferential[j * n + i] -= differentialI;
+        turns[i * n + j] += turnSum;
+        turns[j * n + i] += turnSum;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public String getName(int i) {
+        return names.get(i);
+    }
+
+    public synchronized int getWins(int i, int j) {
+        return wins[i * n + j];
+    }
+
+    public synchronized int getLosses(int i, int j) {
+        return wins[j * n + i];
+    }
+
+    public synchronized int getTies(int i, int j) {
+        return ties[i * n + j];
+    }
+
+    public synchronized int getGames(int i, int j) {
+        return wins[i * n + j] + wins[j * n + i] + ties[i * n + j];
+    }
+
+    /**
+     * Returns player i's average points minus player j's, per game between them.
+     */
+    public synchronized double getMeanPointDifferential(int i, int j) {
+        int games = getGames(i, j);
+        return games == 0 ? 0 : (double) pointDifferential[i * n + j] / games;
+    }
+
+    /**
+     * Returns the average number of rounds in games between the two players.
+     */
+    public synchronized double getMeanGameLength(int i, int j) {
+        int games = getGames(i, j);
+        return games == 0 ? 0 : (double) turns[i * n + j] / games;
+    }
+
+    /**
+     * Writes one CSV row per ordered pair of players who have played each other.
+     *
+     * @param out Where to write the rows
+     * @throws IOException If writing fails
+     */
+    public synchronized void writeCsv(Appendable out) throws IOException {
+        out.append("player,opponent,games,wins,losses,ties,mean_point_diff,mean_rounds\n");
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j || getGames(i, j) == 0) {
+                    continue;
+                }
+                out.append(csvField(names.get(i))).append(',')
+                   .append(csvField(names.get(j))).append(',')
+                   .append(Integer.toString(getGames(i, j))).append(',')
+                   .append(Integer.toString(getWins(i, j))).append(',')
+                   .append(Integer.toString(getLosses(i, j))).append(',')
+                   .append(Integer.toString(getTies(i, j))).append(',')
+                   .append(String.format(Locale.ROOT, "%.4f", getMeanPointDifferential(i, j))).append(',')
+                   .append(String.format(Locale.ROOT, "%.4f", getMeanGameLength(i, j))).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Saves the matrix, for a tournament checkpoint.
+     */
+    synchronized void write(DataOutput out) throws IOException {
+        out.writeInt(n);
+        for (int k = 0; k < n * n; k++) {
+            out.writeInt(wins[k]);
+            out.writeInt(ties[k]);
+            out.writeLong(pointDifferential[k]);
+            out.writeLong(turns[k]);
+        }
+    }
+
+    /**
+     * Replaces the counts with ones saved by write() for the same players.
+     */
+    synchronized void read(DataInput in) throws IOException {
+        if (in.readInt() != n) {
+            throw new IOException("Head-to-head results saved for a different number of players");
+        }
+        for (int k = 0; k < n * n; k++) {
+            wins[k] = in.readInt();
+            ties[k] = in.readInt();
+            pointDifferential[k] = in.readLong();
+            turns[k] = in.readLong();
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
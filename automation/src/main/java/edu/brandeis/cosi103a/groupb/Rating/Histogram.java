@@ -0,0 +1,116 @@
+package edu.brandeis.cosi103a.groupb.Rating;
+
+import java.io.*;
+
+/**
+ * Counts of integer values in a fixed range, one bucket per value.
+ *
+ * The memory used depends only on the range, not on how many values are
+ * recorded, so a histogram of a million games is as small as one of ten.
+ * Values outside the range are counted in the bucket at the nearer end.
+ * Histograms with the same range can be merged, so each worker thread can
+ * keep its own and add them together afterwards.
+ */
+public class Histogram {
+    private final int min;
+    private final long[] counts;
+    private long total = 0;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param min Smallest value with its own bucket
+     * @param max Largest value with its own bucket
+     */
+    public Histogram(int min, int max) {
+        if (max < min) {
+            throw new IllegalArgumentException("max must not be less than min");
+        }
+        this.min = min;
+        this.counts = new long[max - min + 1];
+    }
+
+    /**
+     * Counts one value.
+     *
+     * @param value The value
+     */
+    public void record(int value) {
+        int bucket = Math.max(0, Math.min(counts.length - 1, value - min));
+        counts[bucket]++;
+        total++;
+    }
+
+    /**
+     * Adds another histogram's counts to this one.
+     *
+     * @param other A histogram with the same range
+     */
+    public void merge(Histogram other) {
+        if (other.min != min || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Histograms have different ranges");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     */
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * Returns how many times a value was recorded.
+     *
+     * @param value A value within the range
+     */
+    public long getCount(int value) {
+        return counts[value - min];
+    }
+
+    /**
+     * Returns the smallest value such that at least the given fraction of the
+     * recorded values are less than or equal to it.
+     *
+     * @param fraction Between 0 and 1, for example 0.5 for the median
+     * @return The percentile, or 0 if nothing has been recorded
+     */
+    public int getPercentile(double fraction) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return min + i;
+            }
+        }
+        return min + counts.length - 1;
+    }
+
+    /**
+     * Saves the counts, for a tournament checkpoint.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(total);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    /**
+     * Replaces the counts with ones saved by write() from a histogram with the same range.
+     */
+    void read(DataInput in) throws IOException {
+        total = in.readLong();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readLong();
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package edu.brandeis.cosi103a.groupb.Rating;
 
+import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.gson.*;
 
 import edu.brandeis.cosi.atg.api.*;
 import edu.brandeis.cosi103a.groupb.Game.*;
 import edu.brandeis.cosi103a.groupb.Player.AtgPlayer;
+import edu.brandeis.cosi103a.groupb.Player.MctsPlayer;
 
 /**
  * A harness for comparing different automated players by simulating games and
@@ -16,6 +22,22 @@ import edu.brandeis.cosi103a.groupb.Player.AtgPlayer;
  * games between each pair, and collects performance statistics for comparison.
  */
 public class PlayerRatingHarness {
+    // Games of one pairing handed to the executor as a single task
+    private static final int GAMES_PER_BATCH = 64;
+
+    // Deals each undecided pairing plays between checks of the stopping rule
+    private static final int DEALS_PER_ROUND = 16;
+
+    // Batches run between checkpoints in fixed mode
+    private static final int BATCHES_PER_WAVE = 64;
+
+    // First bytes of a checkpoint file ("RHCP") and its format version
+    private static final int CHECKPOINT_MAGIC = 0x52484350;
+    private static final int CHECKPOINT_VERSION = 8;
+
+    // Failed games kept for replay in each pairing
+    private static final int MAX_FAILED_GAMES = 10;
+
     // List of player configurations available for the tournament
     private List<PlayerConfig> availablePlayers = new ArrayList<>();
     
@@ -25,6 +47,43 @@ public class PlayerRatingHarness {
     // Flag to control console output during simulations
     private boolean silentMode = false;
 
+    // Seed from which every game's seed is derived
+    private long seed = new SplittableRandom().nextLong();
+
+    // Runs the game batches; null runs them one after another on the calling thread
+    private Executor executor;
+
+    // First exception thrown by a batch in the current round; the other batches stop when it is set
+    private volatile Throwable batchFailure;
+
+    // Play every deal twice, once from each seat
+    private boolean pairedGames = false;
+
+    // Stops decided pairings early; null plays the full number of games
+    private StoppingRule stoppingRule;
+
+    // Results of each pairing in the last tournament
+    private List<Matchup> matchups = new ArrayList<>();
+
+    // Elo and Glicko-2 ratings, updated in deal order after each round of batches
+    private RatingTable ratings = new RatingTable();
+
+    // Wins, ties, point differential and game length of every pairing, added as each batch finishes
+    private HeadToHead headToHead = new HeadToHead(List.of());
+
+    // Longest a game may run, in milliseconds; 0 for no limit
+    private long gameTimeLimitMillis = 0;
+
+    // Receives a record of every finished game; null to keep only the totals
+    private GameRecordSink gameRecordSink;
+
+    // File the tournament's progress is saved to; null for no checkpoints
+    private Path checkpointFile;
+
+    // Least time between two checkpoints, and when the last one was written
+    private long checkpointIntervalMillis;
+    private long lastCheckpointMillis;
+
     /**
      * Add a player configuration to the list of available players.
      * 
@@ -44,54 +103,793 @@ public class PlayerRatingHarness {
         this.silentMode = silent;
     }
 
+    /**
+     * Set the seed the games are dealt from. Two tournaments with the same seed,
+     * players and number of games deal the same games, whether they run
+     * sequentially or in parallel.
+     * 
+     * @param seed The tournament seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Get the seed the games are dealt from.
+     * 
+     * @return The tournament seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the executor that runs the games. Games are handed over in batches,
+     * each batch collecting its own statistics, which are merged once all
+     * batches have finished. Pass null to run every game on the calling thread.
+     * Console output from parallel games is interleaved, so parallel runs
+     * should normally use silent mode.
+     * 
+     * @param executor The executor for game batches, or null for sequential play
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Set paired mode. In paired mode every deal is played twice with the same
+     * seed, the second time with the players' seats swapped, so that the luck
+     * of the deal and of the first move cancels out within each pair. Each
+     * pair's combined result is recorded in PlayerStats.getPairedScore().
+     * The number of games per pairing is rounded up to an even number.
+     * 
+     * @param paired True to play seat-swapped pairs, false for single games
+     */
+    public void setPairedGames(boolean paired) {
+        this.pairedGames = paired;
+    }
+
+    /**
+     * Set adaptive mode. With a stopping rule, each pairing stops as soon as
+     * the rule can tell which player is stronger, and the games it did not
+     * need go to the pairings that are still undecided. The total number of
+     * games stays within the fixed-mode budget, but a close pairing can play
+     * more than the fixed number of games. Pass null to play the full
+     * number of games in every pairing.
+     * 
+     * @param stoppingRule The rule for stopping pairings early, or null
+     */
+    public void setStoppingRule(StoppingRule stoppingRule) {
+        this.stoppingRule = stoppingRule;
+    }
+
+    /**
+     * Set a time limit for each game. A game that runs longer is abandoned at
+     * the next decision and counted as a timeout for the player who was to
+     * decide.
+     * 
+     * @param millis The limit in milliseconds, or 0 for no limit
+     */
+    public void setGameTimeLimit(long millis) {
+        this.gameTimeLimitMillis = millis;
+    }
+
+    /**
+     * Get the games of the last tournament that ended with a rule violation,
+     * an exception or a timeout: up to ten per pairing, in the order they were
+     * dealt. Replaying a game with GameEngine.createEngine(player1, player2,
+     * observer, seed) deals it again.
+     * 
+     * @return The failed games
+     */
+    public List<FailedGame> getFailedGames() {
+        List<FailedGame> failed = new ArrayList<>();
+        for (Matchup matchup : matchups) {
+            failed.addAll(matchup.failedGames);
+        }
+        return failed;
+    }
+
+    /**
+     * Set a sink that receives a record of every finished game: its seed, who
+     * moved first, the players, their scores, the number of rounds and the
+     * cards each player bought. The caller owns the sink and closes it after
+     * the tournament. Set it before the tournament starts. With a checkpoint,
+     * the length of the record file and the checksum of its last block are
+     * saved at every checkpoint, and on resume the file is cut back to that
+     * length, so games replayed after a resume are recorded only once. The
+     * resume fails instead if the file no longer matches, or if games after
+     * that length are not ones the tournament is about to replay. A sink
+     * writing to a stream cannot be cut back, so it cannot be combined with
+     * resuming from a checkpoint.
+     * 
+     * @param sink The sink for game records, or null to keep only the totals
+     */
+    public void setGameRecordSink(GameRecordSink sink) {
+        this.gameRecordSink = sink;
+    }
+
+    /**
+     * Set a checkpoint file. While the tournament runs, its progress (player
+     * statistics, ratings, head-to-head results and the next deal of every
+     * pairing) is saved there between rounds of games, at most once per
+     * interval. If the file exists when a tournament starts, the tournament
+     * resumes from it, with the seed it was started with, and only plays the
+     * games it had not finished. The file is deleted once the tournament has
+     * finished, so running the same tournament again starts a new one.
+     * 
+     * @param file The checkpoint file, or null for no checkpoints
+     * @param intervalMillis Least time between two checkpoints, in milliseconds
+     */
+    public void setCheckpoint(Path file, long intervalMillis) {
+        this.checkpointFile = file;
+        this.checkpointIntervalMillis = intervalMillis;
+    }
+
     /**
      * Run a tournament where each pair of players plays the specified number of games.
+     * In adaptive mode this is the average number of games per pairing.
      * 
      * @param numGames The number of games to simulate for each pair of players
      * @return A map of player names to their statistics
+     * @throws UncheckedIOException If the checkpoint file or a game record cannot be read or written
+     * @throws CheckpointMismatchException If the checkpoint file belongs to a different tournament
      */
     public Map<String, PlayerStats> runTournament(int numGames) {
         // Reset statistics
         playerStats.clear();
         
-        // Initialize statistics for each player
+        // Initialize statistics and ratings for each player
+        ratings = new RatingTable();
+        List<String> names = new ArrayList<>();
         for (PlayerConfig config : availablePlayers) {
             playerStats.put(config.name, new PlayerStats());
+            ratings.addPlayer(config.name);
+            names.add(config.name);
         }
-        
-        // Run games for each pair of players
+        headToHead = new HeadToHead(names);
+
+        matchups = new ArrayList<>();
         for (int i = 0; i < availablePlayers.size(); i++) {
             for (int j = i + 1; j < availablePlayers.size(); j++) {
-                PlayerConfig player1Config = availablePlayers.get(i);
-                PlayerConfig player2Config = availablePlayers.get(j);
-                
-                if (!silentMode) {
-                    System.out.println("\n========================================");
-                    System.out.println("Running " + numGames + " games between " + 
-                                      player1Config.name + " and " + player2Config.name);
-                    System.out.println("========================================");
+                matchups.add(new Matchup(matchups.size(), i, j, availablePlayers.get(i), availablePlayers.get(j)));
+            }
+        }
+        
+        // Split the deals of every pair of players into batches; in paired mode each deal is two games
+        int gamesPerDeal = pairedGames ? 2 : 1;
+        int numDeals = (numGames + gamesPerDeal - 1) / gamesPerDeal;
+        int dealsPerBatch = GAMES_PER_BATCH / gamesPerDeal;
+
+        // Pick up where an interrupted run of this tournament stopped
+        if (checkpointFile != null && Files.exists(checkpointFile)) {
+            readCheckpoint(numGames);
+        }
+        lastCheckpointMillis = System.currentTimeMillis();
+
+        if (stoppingRule == null) {
+            List<GameBatch> batches = new ArrayList<>();
+            for (Matchup matchup : matchups) {
+                for (int start = matchup.nextDeal; start < numDeals; start += dealsPerBatch) {
+                    batches.add(new GameBatch(matchup, start, Math.min(start + dealsPerBatch, numDeals), numDeals));
                 }
-                
-                // Run the games between this pair
-                for (int game = 0; game < numGames; game++) {
-                    if (!silentMode) {
-                        System.out.println("\nGame " + (game + 1) + " of " + numGames);
-                    }
-                    runGame(player1Config, player2Config);
+            }
+            // With checkpoints, run in waves so that there is a consistent state to save between them
+            int waveSize = checkpointFile == null ? Math.max(batches.size(), 1) : BATCHES_PER_WAVE;
+            for (int start = 0; start < batches.size(); start += waveSize) {
+                runBatches(batches.subList(start, Math.min(start + waveSize, batches.size())));
+                checkpoint(numGames);
+            }
+            deleteCheckpoint();
+            return playerStats;
+        }
+
+        // Adaptive mode: play in rounds, sharing what is left of the budget among the undecided pairings
+        long budget = (long) numDeals * matchups.size();
+        for (Matchup matchup : matchups) {
+            budget -= matchup.nextDeal;
+        }
+        while (budget > 0) {
+            List<Matchup> open = new ArrayList<>();
+            for (Matchup matchup : matchups) {
+                if (matchup.decision == 0) {
+                    open.add(matchup);
                 }
             }
+            if (open.isEmpty()) {
+                break;
+            }
+            long share = Math.min(DEALS_PER_ROUND, (budget + open.size() - 1) / open.size());
+            List<GameBatch> batches = new ArrayList<>();
+            for (Matchup matchup : open) {
+                int deals = (int) Math.min(share, budget);
+                if (deals == 0) {
+                    break;
+                }
+                // A pairing may use all of the budget the others have not played, so that is its cap
+                int maxDeals = (int) Math.min(Integer.MAX_VALUE, matchup.nextDeal + budget);
+                batches.add(new GameBatch(matchup, matchup.nextDeal, matchup.nextDeal + deals, maxDeals));
+                matchup.nextDeal += deals;
+                budget -= deals;
+            }
+            runBatches(batches);
+            for (Matchup matchup : open) {
+                matchup.decision = stoppingRule.decide(matchup.results, matchup.scoreSum);
+                if (matchup.decision != 0) {
+                    printFinished(matchup, gamesPerDeal);
+                }
+            }
+            checkpoint(numGames);
         }
+        for (Matchup matchup : matchups) {
+            if (matchup.decision == 0) {
+                printFinished(matchup, gamesPerDeal);
+            }
+        }
+        deleteCheckpoint();
         
         return playerStats;
     }
+
+    /**
+     * Prints how many games a pairing actually played once the stopping rule
+     * has ended it, or the budget has run out.
+     */
+    private void printFinished(Matchup matchup, int gamesPerDeal) {
+        if (silentMode) {
+            return;
+        }
+        String outcome = matchup.decision > 0 ? matchup.player1Config.name + " stronger"
+                       : matchup.decision < 0 ? matchup.player2Config.name + " stronger"
+                       : "undecided";
+        System.out.println("\nPlayed " + matchup.nextDeal * gamesPerDeal + " games between " +
+                          matchup.player1Config.name + " and " + matchup.player2Config.name + ": " + outcome);
+    }
+
+    /**
+     * Get the players' Elo and Glicko-2 ratings from the last tournament.
+     * While a tournament is running these are updated after every round of
+     * games, one game at a time in the order the games were dealt, so that
+     * parallel and sequential runs give the same ratings.
+     * 
+     * @return The rating table
+     */
+    public RatingTable getRatings() {
+        return ratings;
+    }
+
+    /**
+     * Get the results of every pairing in the last tournament. While a
+     * tournament is running, each batch of games is added as it finishes.
+     * 
+     * @return The head-to-head matrix, indexed in the order players were registered
+     */
+    public HeadToHead getHeadToHead() {
+        return headToHead;
+    }
+
+    /**
+     * Write the head-to-head results of the last tournament to a CSV file.
+     * 
+     * @param path The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void exportHeadToHead(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            headToHead.writeCsv(writer);
+        }
+    }
+
+    /**
+     * Runs a set of batches on the executor (or the calling thread) and merges
+     * their statistics once all have finished. If a batch throws, the batches
+     * that have not started are skipped, the running ones stop after their
+     * current game, and the exception is rethrown as it was thrown, with or
+     * without an executor.
+     */
+    private void runBatches(List<GameBatch> batches) {
+        batchFailure = null;
+        if (executor == null) {
+            for (GameBatch batch : batches) {
+                batch.run();
+            }
+        } else {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[batches.size()];
+            for (int b = 0; b < batches.size(); b++) {
+                GameBatch batch = batches.get(b);
+                futures[b] = CompletableFuture.runAsync(() -> {
+                    if (batchFailure != null) {
+                        return;
+                    }
+                    try {
+                        batch.run();
+                    } catch (RuntimeException | Error e) {
+                        synchronized (this) {
+                            if (batchFailure == null) {
+                                batchFailure = e;
+                            }
+                        }
+                    }
+                }, executor);
+            }
+            // Each task returns only once its batch has stopped, so no game is still running after this
+            CompletableFuture.allOf(futures).join();
+            Throwable failure = batchFailure;
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+
+        // Merge in batch order; the totals and ratings do not depend on which batch finished first
+        for (GameBatch batch : batches) {
+            for (RatedGame game : batch.ratedGames) {
+                ratings.recordGame(game.player1, game.player2, game.score);
+            }
+            playerStats.get(batch.player1Config.name).merge(batch.player1Stats);
+            playerStats.get(batch.player2Config.name).merge(batch.player2Stats);
+            batch.matchup.results += batch.results;
+            batch.matchup.scoreSum += batch.scoreSum;
+            batch.matchup.nextDeal = Math.max(batch.matchup.nextDeal, batch.to);
+            batch.matchup.violations += batch.violations;
+            batch.matchup.exceptions += batch.exceptions;
+            batch.matchup.timeouts += batch.timeouts;
+            batch.matchup.engineErrors += batch.engineErrors;
+            for (FailedGame failed : batch.failedGames) {
+                if (batch.matchup.failedGames.size() < MAX_FAILED_GAMES) {
+                    batch.matchup.failedGames.add(failed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the tournament's progress if checkpoints are enabled and the
+     * interval has passed. Only called between rounds, when no batch is running.
+     */
+    private void checkpoint(int numGames) {
+        if (checkpointFile == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastCheckpointMillis < checkpointIntervalMillis) {
+            return;
+        }
+        try {
+            writeCheckpoint(numGames);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write checkpoint " + checkpointFile, e);
+        }
+        lastCheckpointMillis = now;
+    }
+
+    /**
+     * Deletes the checkpoint of a finished tournament, so that it is not
+     * resumed by the next run.
+     */
+    private void deleteCheckpoint() {
+        if (checkpointFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete checkpoint " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file next to it and then moves it
+     * into place, so that a run killed while writing leaves the previous
+     * checkpoint intact.
+     */
+    private void writeCheckpoint(int numGames) throws IOException {
+        Path absolute = checkpointFile.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeLong(seed);
+                out.writeInt(numGames);
+                out.writeBoolean(pairedGames);
+                out.writeBoolean(stoppingRule != null);
+                if (stoppingRule != null) {
+                    out.writeDouble(stoppingRule.getAlpha());
+                    out.writeDouble(stoppingRule.getBeta());
+                    out.writeDouble(stoppingRule.getMargin());
+                    out.writeInt(stoppingRule.getMinGames());
+                }
+                out.writeLong(gameTimeLimitMillis);
+                out.writeInt(availablePlayers.size());
+                for (PlayerConfig config : availablePlayers) {
+                    out.writeUTF(config.name);
+                    playerStats.get(config.name).write(out);
+                }
+                for (Matchup matchup : matchups) {
+                    out.writeInt(matchup.nextDeal);
+                    out.writeInt(matchup.results);
+                    out.writeDouble(matchup.scoreSum);
+                    out.writeInt(matchup.decision);
+                    out.writeInt(matchup.violations);
+                    out.writeInt(matchup.exceptions);
+                    out.writeInt(matchup.timeouts);
+                    out.writeInt(matchup.engineErrors);
+                    out.writeInt(matchup.failedGames.size());
+                    for (FailedGame failed : matchup.failedGames) {
+                        failed.write(out);
+                    }
+                }
+                ratings.write(out);
+                headToHead.write(out);
+                out.writeLong(gameRecordSink == null ? -1 : gameRecordSink.position());
+                out.writeLong(gameRecordSink == null ? 0 : gameRecordSink.checksum());
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Restores the progress saved by writeCheckpoint() into the freshly reset
+     * tournament state.
+     */
+    private void readCheckpoint(int numGames) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                throw new CheckpointMismatchException(checkpointFile + " is not a tournament checkpoint");
+            }
+            long savedSeed = in.readLong();
+            boolean matches = in.readInt() == numGames
+                && in.readBoolean() == pairedGames
+                && in.readBoolean() == (stoppingRule != null);
+            if (matches && stoppingRule != null) {
+                matches = in.readDouble() == stoppingRule.getAlpha()
+                    && in.readDouble() == stoppingRule.getBeta()
+                    && in.readDouble() == stoppingRule.getMargin()
+                    && in.readInt() == stoppingRule.getMinGames();
+            }
+            matches = matches
+                && in.readLong() == gameTimeLimitMillis
+                && in.readInt() == availablePlayers.size();
+            for (int i = 0; matches && i < availablePlayers.size(); i++) {
+                matches = in.readUTF().equals(availablePlayers.get(i).name);
+                if (matches) {
+                    playerStats.get(availablePlayers.get(i).name).read(in);
+                }
+            }
+            if (!matches) {
+                throw new CheckpointMismatchException(checkpointFile + " was saved by a tournament with different settings");
+            }
+            seed = savedSeed;
+            for (Matchup matchup : matchups) {
+                matchup.nextDeal = in.readInt();
+                matchup.results = in.readInt();
+                matchup.scoreSum = in.readDouble();
+                matchup.decision = in.readInt();
+                matchup.violations = in.readInt();
+                matchup.exceptions = in.readInt();
+                matchup.timeouts = in.readInt();
+                matchup.engineErrors = in.readInt();
+                int failedCount = in.readInt();
+                for (int k = 0; k < failedCount; k++) {
+                    matchup.failedGames.add(FailedGame.read(in));
+                }
+            }
+            ratings.read(in);
+            headToHead.read(in);
+            long recordPosition = in.readLong();
+            long recordChecksum = in.readLong();
+            if (gameRecordSink != null && recordPosition >= 0) {
+                // Drop the records of games played after the checkpoint; they are about to be replayed
+                if (!gameRecordSink.truncate(recordPosition, recordChecksum, block -> replaysBlock(block, numGames))) {
+                    throw new CheckpointMismatchException("The game record file has changed since " + checkpointFile
+                                                    + " was saved, or holds games of another run after it");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read checkpoint " + checkpointFile, e);
+        }
+    }
+
+    /**
+     * Tells whether every game in a block of records is one that the resumed
+     * tournament is about to replay: a game between the players of one of its
+     * pairings, dealt from one of the deals that pairing has not finished.
+     */
+    private boolean replaysBlock(GameRecordReader block, int numGames) {
+        int gamesPerDeal = pairedGames ? 2 : 1;
+        long numDeals = (numGames + gamesPerDeal - 1) / gamesPerDeal;
+        // In adaptive mode a pairing may go on to use all of the budget the others have not played
+        long budget = numDeals * matchups.size();
+        for (Matchup matchup : matchups) {
+            budget -= matchup.nextDeal;
+        }
+
+        Map<Matchup, Set<Long>> seeds = new HashMap<>();
+        for (int i = 0; i < block.size(); i++) {
+            Matchup found = null;
+            for (Matchup matchup : matchups) {
+                String first = matchup.player1Config.name;
+                String second = matchup.player2Config.name;
+                if ((block.getName(1, i).equals(first) && block.getName(2, i).equals(second))
+                    || (block.getName(1, i).equals(second) && block.getName(2, i).equals(first))) {
+                    found = matchup;
+                    break;
+                }
+            }
+            if (found == null) {
+                return false;
+            }
+            seeds.computeIfAbsent(found, m -> new HashSet<>()).add(block.getSeed(i));
+        }
+        for (Map.Entry<Matchup, Set<Long>> entry : seeds.entrySet()) {
+            Matchup matchup = entry.getKey();
+            Set<Long> unmatched = entry.getValue();
+            long lastDeal = stoppingRule == null ? numDeals : matchup.nextDeal + budget;
+            for (long deal = matchup.nextDeal; deal < lastDeal && !unmatched.isEmpty(); deal++) {
+                unmatched.remove(gameSeed(matchup.pairing, (int) deal));
+            }
+            if (!unmatched.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Derives the seed of one game from the tournament seed, so that a game's
+     * deal depends only on its pairing and number, not on the order games run in.
+     */
+    private long gameSeed(int pairing, int game) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) pairing << 32) + game + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The results of one pair of players in the current tournament.
+     * Only updated on the tournament's own thread, between rounds of batches.
+     */
+    private static class Matchup {
+        final int pairing;
+        final int player1Index;
+        final int player2Index;
+        final PlayerConfig player1Config;
+        final PlayerConfig player2Config;
+        int nextDeal = 0;       // First deal not yet handed to a batch
+        int results = 0;        // Games, or pairs in paired mode, with a result
+        double scoreSum = 0;    // Sum of the first player's results
+        int decision = 0;       // Stopping rule outcome: 1 or -1 once decided
+        int violations = 0;     // Games abandoned after a rule violation
+        int exceptions = 0;     // Games abandoned after an exception in a player's decision
+        int timeouts = 0;       // Games abandoned for running too long
+        int engineErrors = 0;   // Games abandoned after an exception outside the players' decisions
+        final List<FailedGame> failedGames = new ArrayList<>();
+
+        Matchup(int pairing, int player1Index, int player2Index,
+                PlayerConfig player1Config, PlayerConfig player2Config) {
+            this.pairing = pairing;
+            this.player1Index = player1Index;
+            this.player2Index = player2Index;
+            this.player1Config = player1Config;
+            this.player2Config = player2Config;
+        }
+    }
+
+    /**
+     * A run of consecutive deals between one pair of players, with its own
+     * statistics so that batches running in parallel share nothing.
+     */
+    private class GameBatch implements Runnable {
+        final Matchup matchup;
+        final int pairing;
+        final PlayerConfig player1Config;
+        final PlayerConfig player2Config;
+        final int from;
+        final int to;
+        final int maxDeals;     // Most deals the pairing can play: exact in fixed mode, a cap in adaptive mode
+        final PlayerStats player1Stats = new PlayerStats();
+        final PlayerStats player2Stats = new PlayerStats();
+        int results = 0;
+        double scoreSum = 0;
+        // Head-to-head totals, from the first player's side
+        int player1Wins = 0;
+        int player2Wins = 0;
+        int ties = 0;
+        long pointDifferential = 0;
+        long turns = 0;
+        // Games that failed
+        int violations = 0;
+        int exceptions = 0;
+        int timeouts = 0;
+        int engineErrors = 0;
+        final List<FailedGame> failedGames = new ArrayList<>();
+        // Finished games in deal order, rated when the batch is merged
+        final List<RatedGame> ratedGames = new ArrayList<>();
+
+        GameBatch(Matchup matchup, int from, int to, int maxDeals) {
+            this.matchup = matchup;
+            this.pairing = matchup.pairing;
+            this.player1Config = matchup.player1Config;
+            this.player2Config = matchup.player2Config;
+            this.from = from;
+            this.to = to;
+            this.maxDeals = maxDeals;
+        }
+
+        @Override
+        public void run() {
+            // With a stopping rule the pairing may end early; the games played are printed when it does
+            String of = stoppingRule == null ? " of " : " of up to ";
+            if (!silentMode && from == 0) {
+                System.out.println("\n========================================");
+                System.out.println("Running " + (stoppingRule == null ? "" : "up to ")
+                                  + (pairedGames ? maxDeals * 2L : maxDeals) + " games between " +
+                                  player1Config.name + " and " + player2Config.name);
+                System.out.println("========================================");
+            }
+
+            // Run the games between this pair, unless another batch has already failed
+            for (int deal = from; deal < to && batchFailure == null; deal++) {
+                long seed = gameSeed(pairing, deal);
+                if (!pairedGames) {
+                    if (!silentMode) {
+                        System.out.println("\nGame " + (deal + 1) + of + maxDeals);
+                    }
+                    GameResult result = play(player1Config, player2Config, seed, player1Stats, player2Stats);
+                    if (result != null) {
+                        results++;
+                        scoreSum += result.score;
+                        tally(result.score, result.pointDifferential, result.turns);
+                    }
+                    continue;
+                }
+                if (!silentMode) {
+                    System.out.println("\nPair " + (deal + 1) + of + maxDeals);
+                }
+                GameResult first = play(player1Config, player2Config, seed, player1Stats, player2Stats);
+                // Same deal with the seats swapped
+                GameResult second = play(player2Config, player1Config, seed, player2Stats, player1Stats);
+                if (first != null) {
+                    tally(first.score, first.pointDifferential, first.turns);
+                }
+                if (second != null) {
+                    tally(1 - second.score, -second.pointDifferential, second.turns);
+                }
+                if (first != null && second != null) {
+                    double pairScore = (first.score + (1 - second.score)) / 2;
+                    player1Stats.recordPair(pairScore);
+                    player2Stats.recordPair(1 - pairScore);
+                    results++;
+                    scoreSum += pairScore;
+                }
+            }
+
+            headToHead.record(matchup.player1Index, matchup.player2Index,
+                              player1Wins, player2Wins, ties, pointDifferential, turns);
+        }
+
+        /**
+         * Runs one game, counting it here if it fails.
+         * 
+         * @return The game's result, or null if it did not finish
+         */
+        private GameResult play(PlayerConfig first, PlayerConfig second, long seed,
+                                PlayerStats firstStats, PlayerStats secondStats) {
+            GameResult result = runGame(first, second, seed, firstStats, secondStats);
+            if (result == null) {
+                return null;
+            }
+            if (result.failure == null) {
+                ratedGames.add(new RatedGame(first.name, second.name, result.score));
+                return result;
+            }
+            switch (result.failure.getKind()) {
+                case VIOLATION:
+                    violations++;
+                    break;
+                case EXCEPTION:
+                    exceptions++;
+                    break;
+                case TIMEOUT:
+                    timeouts++;
+                    break;
+                case ENGINE_ERROR:
+                    engineErrors++;
+                    break;
+            }
+            if (failedGames.size() < MAX_FAILED_GAMES) {
+                failedGames.add(result.failure);
+            }
+            return null;
+        }
+
+        /**
+         * Adds one finished game to the batch's head-to-head totals.
+         */
+        private void tally(double player1Score, int player1Differential, int gameTurns) {
+            if (player1Score == 1) {
+                player1Wins++;
+            } else if (player1Score == 0) {
+                player2Wins++;
+            } else {
+                ties++;
+            }
+            pointDifferential += player1Differential;
+            turns += gameTurns;
+        }
+    }
+
+    /**
+     * A finished game waiting to be applied to the ratings.
+     */
+    private static class RatedGame {
+        final String player1;
+        final String player2;
+        final double score;             // The first player's result
+
+        RatedGame(String player1, String player2, double score) {
+            this.player1 = player1;
+            this.player2 = player2;
+            this.score = score;
+        }
+    }
+
+    /**
+     * The outcome of one game, from the first player's side. A game that
+     * failed has only the failure set.
+     */
+    private static class GameResult {
+        final double score;             // 1 for a win, 0.5 for a tie, 0 for a loss
+        final int player1Score;
+        final int player2Score;
+        final int pointDifferential;    // First player's score minus the second's
+        final int turns;                // Rounds played
+        final FailedGame failure;       // Why the game did not finish, or null
+
+        GameResult(double score, int player1Score, int player2Score, int turns) {
+            this.score = score;
+            this.player1Score = player1Score;
+            this.player2Score = player2Score;
+            this.pointDifferential = player1Score - player2Score;
+            this.turns = turns;
+            this.failure = null;
+        }
+
+        GameResult(FailedGame failure) {
+            this.score = 0;
+            this.player1Score = 0;
+            this.player2Score = 0;
+            this.pointDifferential = 0;
+            this.turns = 0;
+            this.failure = failure;
+        }
+    }
     
     /**
      * Run a single game between two players and update their statistics.
+     * The first player is constructed first, which fixes their seat for a
+     * given seed: swapping the two players with the same seed swaps their
+     * seats and keeps the deal.
      * 
      * @param player1Config Configuration for the first player
      * @param player2Config Configuration for the second player
+     * @param gameSeed The seed the game is dealt from
+     * @param player1Stats Statistics to update for the first player
+     * @param player2Stats Statistics to update for the second player
+     * @return The first player's result, the failure if the game was abandoned,
+     *         or null if its results could not be matched to the players
      */
-    private void runGame(PlayerConfig player1Config, PlayerConfig player2Config) {
+    private GameResult runGame(PlayerConfig player1Config, PlayerConfig player2Config, long gameSeed,
+                               PlayerStats player1Stats, PlayerStats player2Stats) {
         // Create fresh instances of players for this game
         AtgPlayer player1 = player1Config.playerSupplier.get();
         AtgPlayer player2 = player2Config.playerSupplier.get();
@@ -101,20 +899,97 @@ public class PlayerRatingHarness {
                                new SilentGameObserver() : 
                                new ConsoleGameObserver();
         
-        // Create the game engine
-        Engine gameEngine = GameEngine.createEngine(player1, player2, observer);
+        // Create the game engine (with its diagnostics switched off in silent mode)
+        GameEngine gameEngine = (GameEngine) GameEngine.createEngine(player1, player2, observer, gameSeed);
+        gameEngine.setTraceSink(silentMode ? TraceSink.SILENT : TraceSink.CONSOLE);
+        gameEngine.setTimeLimit(gameTimeLimitMillis);
         
+        // Run the game
+        ImmutableList<Player.ScorePair> results = null;
+        FailureKind failure = null;
+        Exception cause = null;
+        AtgPlayer atFault = null;
         try {
-            // Run the game
-            ImmutableList<Player.ScorePair> results = gameEngine.play();
-            
-            // Process results
-            processGameResults(results, player1, player2, player1Config, player2Config);
-            
+            results = gameEngine.play();
         } catch (PlayerViolationException e) {
+            failure = FailureKind.VIOLATION;
+            cause = e;
+            atFault = gameEngine.getLastDecider();
+        } catch (GameTimeoutException e) {
+            failure = FailureKind.TIMEOUT;
+            cause = e;
+            atFault = gameEngine.getLastDecider();
+        } catch (PlayerFailureException e) {
+            failure = FailureKind.EXCEPTION;
+            cause = e;
+            atFault = e.getPlayer();
+        } catch (RuntimeException e) {
+            // Not thrown by either player's decision, so charged to neither
+            failure = FailureKind.ENGINE_ERROR;
+            cause = e;
+        }
+        countSearches(player1, player1Stats);
+        countSearches(player2, player2Stats);
+
+        if (failure != null) {
+            // Blame the player whose decision the game stopped at, if there is one
+            String faultName = null;
+            if (atFault == player1 || atFault == player2) {
+                boolean secondAtFault = atFault == player2;
+                PlayerStats faultStats = secondAtFault ? player2Stats : player1Stats;
+                faultName = secondAtFault ? player2Config.name : player1Config.name;
+                switch (failure) {
+                    case VIOLATION:
+                        faultStats.violations++;
+                        break;
+                    case EXCEPTION:
+                        faultStats.exceptions++;
+                        break;
+                    case TIMEOUT:
+                        faultStats.timeouts++;
+                        break;
+                    default:
+                        break;
+                }
+            }
             if (!silentMode) {
-                System.out.println("Game ended with an error: " + e.getMessage());
+                System.out.println("Game ended with an error: " + cause);
             }
+            return new GameResult(new FailedGame(gameSeed, player1Config.name, player2Config.name,
+                                                 faultName, failure, String.valueOf(cause.getMessage())));
+        }
+            
+        // Process results
+        GameResult result = processGameResults(results, player1, player2, player1Stats, player2Stats,
+                                               gameEngine.getTurnCount());
+        if (result != null && gameRecordSink != null) {
+            writeGameRecord(gameEngine, player1Config, player2Config, result);
+        }
+        return result;
+    }
+    
+    /**
+     * Adds the rollouts an MCTS player ran in one game, finished or not, to its statistics.
+     */
+    private static void countSearches(AtgPlayer player, PlayerStats stats) {
+        if (player instanceof MctsPlayer mcts) {
+            stats.rollouts += mcts.getRolloutCount();
+            stats.searchNanos += mcts.getSearchNanos();
+        }
+    }
+
+    /**
+     * Hand one finished game to the game record sink.
+     */
+    private void writeGameRecord(GameEngine gameEngine, PlayerConfig player1Config, PlayerConfig player2Config,
+                                 GameResult result) {
+        try {
+            gameRecordSink.record(gameEngine.getSeed(), gameEngine.getFirstPlayer(),
+                                  player1Config.name, player2Config.name,
+                                  result.player1Score, result.player2Score, result.turns,
+                                  gameEngine.getCardsBought(1), gameEngine.getCardsBought(2));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write game record", e);
         }
     }
     
@@ -124,14 +999,16 @@ public class PlayerRatingHarness {
      * @param results The game results
      * @param player1 First player instance
      * @param player2 Second player instance
-     * @param player1Config First player configuration
-     * @param player2Config Second player configuration
+     * @param player1Stats First player's statistics
+     * @param player2Stats Second player's statistics
+     * @param turns Rounds the game lasted
+     * @return The first player's result, or null if the results could not be matched to the players
      */
-    private void processGameResults(ImmutableList<Player.ScorePair> results, 
+    private GameResult processGameResults(ImmutableList<Player.ScorePair> results, 
                                    AtgPlayer player1, AtgPlayer player2,
-                                   PlayerConfig player1Config, PlayerConfig player2Config) {
+                                   PlayerStats player1Stats, PlayerStats player2Stats, int turns) {
         if (results.size() < 2) {
-            return;  // Not enough results to process
+            return null;  // Not enough results to process
         }
         
         Player.ScorePair p1Result = null;
@@ -151,14 +1028,17 @@ public class PlayerRatingHarness {
             int p2PointDifferential = p2Result.getScore() - p1Result.getScore();
             
             // Update player 1 stats
-            updatePlayerStats(playerStats.get(player1Config.name), p1Result.getScore(), p1PointDifferential);
+            updatePlayerStats(player1Stats, p1Result.getScore(), p1PointDifferential, turns);
             
             // Update player 2 stats
-            updatePlayerStats(playerStats.get(player2Config.name), p2Result.getScore(), p2PointDifferential);
+            updatePlayerStats(player2Stats, p2Result.getScore(), p2PointDifferential, turns);
             
             // Determine and announce winner
-            announceWinner(p1Result, p2Result, player1, player2);
+            announceWinner(p1Result, p2Result, player1, player2, player1Stats, player2Stats);
+            double score = p1PointDifferential > 0 ? 1 : p1PointDifferential == 0 ? 0.5 : 0;
+            return new GameResult(score, p1Result.getScore(), p2Result.getScore(), turns);
         }
+        return null;
     }
     
     /**
@@ -167,11 +1047,15 @@ public class PlayerRatingHarness {
      * @param stats The player's statistics object
      * @param score The score achieved in this game
      * @param pointDifferential Point difference against opponent
+     * @param turns Rounds the game lasted
      */
-    private void updatePlayerStats(PlayerStats stats, int score, int pointDifferential) {
+    private void updatePlayerStats(PlayerStats stats, int score, int pointDifferential, int turns) {
         stats.gamesPlayed++;
         stats.totalScore += score;
         stats.totalPointDifferential += pointDifferential;
+        stats.scoreHistogram.record(score);
+        stats.differentialHistogram.record(pointDifferential);
+        stats.turnsHistogram.record(turns);
         
         // Update biggest win and worst loss
         if (pointDifferential > 0 && pointDifferential > stats.biggestWin) {
@@ -188,11 +1072,12 @@ public class PlayerRatingHarness {
      * @param p2Result Second player's score pair
      * @param player1 First player instance
      * @param player2 Second player instance
+     * @param stats1 First player's statistics
+     * @param stats2 Second player's statistics
      */
     private void announceWinner(Player.ScorePair p1Result, Player.ScorePair p2Result,
-                               AtgPlayer player1, AtgPlayer player2) {
-        PlayerStats stats1 = playerStats.get(player1.getName());
-        PlayerStats stats2 = playerStats.get(player2.getName());
+                               AtgPlayer player1, AtgPlayer player2,
+                               PlayerStats stats1, PlayerStats stats2) {
         
         if (p1Result.getScore() > p2Result.getScore()) {
             stats1.wins++;
@@ -227,23 +1112,29 @@ public class PlayerRatingHarness {
         report.append("                PLAYER RATINGS                   \n");
         report.append("=================================================\n");
         
-        // Sort players by win rate
+        // Sort players by Glicko-2 rating, which accounts for the strength of each opponent
+        Map<String, RatingTable.Rating> currentRatings = ratings.getRatings();
         List<Map.Entry<String, PlayerStats>> sortedPlayers = new ArrayList<>(playerStats.entrySet());
         sortedPlayers.sort((e1, e2) -> {
-            double winRate1 = e1.getValue().getWinRate();
-            double winRate2 = e2.getValue().getWinRate();
-            return Double.compare(winRate2, winRate1); // Descending order
+            double rating1 = currentRatings.get(e1.getKey()).getGlicko();
+            double rating2 = currentRatings.get(e2.getKey()).getGlicko();
+            return Double.compare(rating2, rating1); // Descending order
         });
         
-        report.append(String.format("%-15s %-7s %-7s %-7s %-7s %-10s %-12s %-12s %-10s %-10s\n", 
-                                   "Player", "Games", "Wins", "Ties", "Losses", "Win Rate", 
+        report.append(String.format("%-15s %-9s %-7s %-7s %-7s %-7s %-7s %-7s %-10s %-12s %-12s %-10s %-10s\n", 
+                                   "Player", "Rating", "+/-", "Elo", "Games", "Wins", "Ties", "Losses", "Win Rate", 
                                    "Avg Score", "Avg Diff", "Best Win", "Worst Loss"));
-        report.append("------------------------------------------------------------------------------------------------------\n");
+        report.append("------------------------------------------------------------------------------------------------------------------------------\n");
         
         for (Map.Entry<String, PlayerStats> entry : sortedPlayers) {
             PlayerStats stats = entry.getValue();
-            report.append(String.format("%-15s %-7d %-7d %-7d %-7d %-10.2f %-12.2f %-+12.2f %-10d %-10d\n",
+            RatingTable.Rating rating = currentRatings.get(entry.getKey());
+            // The +/- column is two rating deviations, roughly a 95% interval
+            report.append(String.format("%-15s %-9.0f %-7.0f %-7.0f %-7d %-7d %-7d %-7d %-10.2f %-12.2f %-+12.2f %-10d %-10d\n",
                                    entry.getKey(),
+                                   rating.getGlicko(),
+                                   2 * rating.getDeviation(),
+                                   rating.getElo(),
                                    stats.gamesPlayed,
                                    stats.wins,
                                    stats.ties,
@@ -254,16 +1145,246 @@ public class PlayerRatingHarness {
                                    stats.biggestWin,
                                    stats.worstLoss));
         }
+
+        // Paired mode: mean result per seat-swapped pair
+        if (pairedGames) {
+            report.append(String.format("\n%-15s %-7s %-12s\n", "Player", "Pairs", "Pair Score"));
+            report.append("-------------------------------------\n");
+            for (Map.Entry<String, PlayerStats> entry : sortedPlayers) {
+                PlayerStats stats = entry.getValue();
+                report.append(String.format("%-15s %-7d %-12.2f\n",
+                                       entry.getKey(),
+                                       stats.getPairsPlayed(),
+                                       stats.getPairedScore() * 100));
+            }
+        }
+
+        // Spread of each player's results: 10th, 50th and 90th percentiles
+        report.append(String.format("\n%-15s %-16s %-16s %-16s\n", "Player", "Score p10/50/90", "Diff p10/50/90", "Rounds p10/50/90"));
+        report.append("-----------------------------------------------------------------\n");
+        for (Map.Entry<String, PlayerStats> entry : sortedPlayers) {
+            PlayerStats stats = entry.getValue();
+            report.append(String.format("%-15s %-16s %-16s %-16s\n",
+                                   entry.getKey(),
+                                   percentiles(stats.getScoreHistogram()),
+                                   percentiles(stats.getPointDifferentialHistogram()),
+                                   percentiles(stats.getTurnsHistogram())));
+        }
+
+        // Search effort of the MCTS players; the speed is per second of one player's search time
+        if (sortedPlayers.stream().anyMatch(entry -> entry.getValue().rollouts > 0)) {
+            report.append(String.format("\n%-15s %-12s %-12s\n", "Player", "Rollouts", "Rollouts/s"));
+            report.append("---------------------------------------\n");
+            for (Map.Entry<String, PlayerStats> entry : sortedPlayers) {
+                PlayerStats stats = entry.getValue();
+                if (stats.rollouts > 0) {
+                    report.append(String.format("%-15s %-12d %-12.0f\n",
+                                           entry.getKey(), stats.rollouts, stats.getRolloutsPerSecond()));
+                }
+            }
+        }
+        
+        // Each pairing's result with a 95% confidence interval
+        report.append("\n=================================================\n");
+        report.append("                   MATCHUPS                      \n");
+        report.append("=================================================\n");
+        report.append(String.format("%-15s %-15s %-9s %-10s %-18s %-10s\n",
+                                   "Player", "Opponent", pairedGames ? "Pairs" : "Games", "Score", "95% CI", "Result"));
+        report.append("------------------------------------------------------------------------------\n");
+        for (Matchup matchup : matchups) {
+            double[] interval = StoppingRule.confidenceInterval(matchup.results, matchup.scoreSum);
+            String result;
+            if (stoppingRule == null) {
+                result = "fixed";
+            } else if (matchup.decision > 0) {
+                result = matchup.player1Config.name + " stronger";
+            } else if (matchup.decision < 0) {
+                result = matchup.player2Config.name + " stronger";
+            } else {
+                result = "undecided";
+            }
+            report.append(String.format("%-15s %-15s %-9d %-10.2f %-18s %-10s\n",
+                                   matchup.player1Config.name,
+                                   matchup.player2Config.name,
+                                   matchup.results,
+                                   matchup.results == 0 ? 0 : matchup.scoreSum / matchup.results * 100,
+                                   String.format("[%.1f, %.1f]", interval[0] * 100, interval[1] * 100),
+                                   result));
+        }
         
+        // Games abandoned after a violation, an exception or a timeout
+        report.append("\n=================================================\n");
+        report.append("                 FAILED GAMES                    \n");
+        report.append("=================================================\n");
+        List<FailedGame> failedGames = getFailedGames();
+        if (failedGames.isEmpty()) {
+            report.append("None\n");
+        } else {
+            report.append(String.format("%-15s %-11s %-11s %-9s\n", "Player", "Violations", "Exceptions", "Timeouts"));
+            report.append("-----------------------------------------------\n");
+            for (Map.Entry<String, PlayerStats> entry : sortedPlayers) {
+                PlayerStats stats = entry.getValue();
+                report.append(String.format("%-15s %-11d %-11d %-9d\n",
+                                       entry.getKey(), stats.violations, stats.exceptions, stats.timeouts));
+            }
+            report.append(String.format("\n%-15s %-15s %-11s %-11s %-9s %-13s\n",
+                                   "Player", "Opponent", "Violations", "Exceptions", "Timeouts", "Engine errors"));
+            report.append("-----------------------------------------------------------------------------\n");
+            for (Matchup matchup : matchups) {
+                if (matchup.violations + matchup.exceptions + matchup.timeouts + matchup.engineErrors > 0) {
+                    report.append(String.format("%-15s %-15s %-11d %-11d %-9d %-13d\n",
+                                           matchup.player1Config.name, matchup.player2Config.name,
+                                           matchup.violations, matchup.exceptions, matchup.timeouts,
+                                           matchup.engineErrors));
+                }
+            }
+            report.append("\nFirst failed games (replay with the same players, in this order, and seed):\n");
+            for (FailedGame failed : failedGames) {
+                String fault = failed.getPlayerAtFault() == null ? "" : " by " + failed.getPlayerAtFault();
+                report.append(String.format("  %s vs %s, seed %d: %s%s (%s)\n",
+                                       failed.getPlayer1(), failed.getPlayer2(), failed.getSeed(),
+                                       failed.getKind().name().toLowerCase(), fault,
+                                       failed.getMessage()));
+            }
+        }
+
         report.append("\n=================================================\n");
         report.append("             HEAD-TO-HEAD RESULTS                \n");
         report.append("=================================================\n");
         
-        // TODO: Implement head-to-head statistics if desired
+        report.append(String.format("%-15s %-15s %-7s %-7s %-7s %-7s %-10s %-10s\n",
+                                   "Player", "Opponent", "Games", "Wins", "Losses", "Ties", "Avg Diff", "Avg Rounds"));
+        report.append("------------------------------------------------------------------------------\n");
+        for (int i = 0; i < headToHead.size(); i++) {
+            for (int j = 0; j < headToHead.size(); j++) {
+                if (i == j || headToHead.getGames(i, j) == 0) {
+                    continue;
+                }
+                report.append(String.format("%-15s %-15s %-7d %-7d %-7d %-7d %-+10.2f %-10.1f\n",
+                                       headToHead.getName(i),
+                                       headToHead.getName(j),
+                                       headToHead.getGames(i, j),
+                                       headToHead.getWins(i, j),
+                                       headToHead.getLosses(i, j),
+                                       headToHead.getTies(i, j),
+                                       headToHead.getMeanPointDifferential(i, j),
+                                       headToHead.getMeanGameLength(i, j)));
+            }
+        }
         
         return report.toString();
     }
     
+    /**
+     * Formats the 10th, 50th and 90th percentiles of a histogram for the report.
+     */
+    private static String percentiles(Histogram histogram) {
+        return histogram.getPercentile(0.1) + "/" + histogram.getPercentile(0.5) + "/" + histogram.getPercentile(0.9);
+    }
+
+    /**
+     * Generate a CSV summary of the last tournament, one row per player in
+     * rating order, for scripts that collect the results of batch runs.
+     * 
+     * @return The CSV text, starting with a header row
+     */
+    public String generateCsvSummary() {
+        StringBuilder csv = new StringBuilder();
+        csv.append("player,rating,deviation,elo,games,wins,ties,losses,win_rate,avg_score,avg_diff,pairs,pair_score,"
+                   + "violations,exceptions,timeouts,rollouts,rollouts_per_second\n");
+        for (Map.Entry<String, RatingTable.Rating> entry : ratings.getRatings().entrySet()) {
+            PlayerStats stats = playerStats.get(entry.getKey());
+            RatingTable.Rating rating = entry.getValue();
+            csv.append(String.format(Locale.ROOT, "%s,%.1f,%.1f,%.1f,%d,%d,%d,%d,%.4f,%.4f,%.4f,%d,%.4f,%d,%d,%d,%d,%.1f\n",
+                                     entry.getKey(),
+                                     rating.getGlicko(),
+                                     rating.getDeviation(),
+                                     rating.getElo(),
+                                     stats.gamesPlayed,
+                                     stats.wins,
+                                     stats.ties,
+                                     stats.getLosses(),
+                                     stats.getWinRate(),
+                                     stats.getAverageScore(),
+                                     stats.getAveragePointDifferential(),
+                                     stats.getPairsPlayed(),
+                                     stats.getPairedScore(),
+                                     stats.violations,
+                                     stats.exceptions,
+                                     stats.timeouts,
+                                     stats.rollouts,
+                                     stats.getRolloutsPerSecond()));
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Generate a JSON summary of the last tournament: the seed, every
+     * player's statistics and ratings in rating order, and each pairing's result.
+     * 
+     * @return The JSON text
+     */
+    public String generateJsonSummary() {
+        JsonObject summary = new JsonObject();
+        summary.addProperty("seed", seed);
+        summary.addProperty("pairedGames", pairedGames);
+        summary.addProperty("adaptive", stoppingRule != null);
+
+        JsonArray players = new JsonArray();
+        for (Map.Entry<String, RatingTable.Rating> entry : ratings.getRatings().entrySet()) {
+            PlayerStats stats = playerStats.get(entry.getKey());
+            RatingTable.Rating rating = entry.getValue();
+            JsonObject player = new JsonObject();
+            player.addProperty("name", entry.getKey());
+            player.addProperty("rating", rating.getGlicko());
+            player.addProperty("deviation", rating.getDeviation());
+            player.addProperty("elo", rating.getElo());
+            player.addProperty("games", stats.gamesPlayed);
+            player.addProperty("wins", stats.wins);
+            player.addProperty("ties", stats.ties);
+            player.addProperty("losses", stats.getLosses());
+            player.addProperty("winRate", stats.getWinRate());
+            player.addProperty("averageScore", stats.getAverageScore());
+            player.addProperty("averagePointDifferential", stats.getAveragePointDifferential());
+            if (pairedGames) {
+                player.addProperty("pairs", stats.getPairsPlayed());
+                player.addProperty("pairScore", stats.getPairedScore());
+            }
+            player.addProperty("violations", stats.violations);
+            player.addProperty("exceptions", stats.exceptions);
+            player.addProperty("timeouts", stats.timeouts);
+            if (stats.rollouts > 0) {
+                player.addProperty("rollouts", stats.rollouts);
+                player.addProperty("rolloutsPerSecond", stats.getRolloutsPerSecond());
+            }
+            players.add(player);
+        }
+        summary.add("players", players);
+
+        JsonArray pairings = new JsonArray();
+        for (Matchup matchup : matchups) {
+            JsonObject pairing = new JsonObject();
+            pairing.addProperty("player", matchup.player1Config.name);
+            pairing.addProperty("opponent", matchup.player2Config.name);
+            pairing.addProperty("results", matchup.results);
+            pairing.addProperty("score", matchup.results == 0 ? 0 : matchup.scoreSum / matchup.results);
+            pairing.addProperty("decision", matchup.decision);
+            pairing.addProperty("violations", matchup.violations);
+            pairing.addProperty("exceptions", matchup.exceptions);
+            pairing.addProperty("timeouts", matchup.timeouts);
+            pairing.addProperty("engineErrors", matchup.engineErrors);
+            JsonArray failedSeeds = new JsonArray();
+            for (FailedGame failed : matchup.failedGames) {
+                failedSeeds.add(failed.getSeed());
+            }
+            pairing.add("failedSeeds", failedSeeds);
+            pairings.add(pairing);
+        }
+        summary.add("matchups", pairings);
+
+        return new GsonBuilder().setPrettyPrinting().create().toJson(summary);
+    }
+    
     /**
      * Configuration for a player in the tournament.
      */
@@ -283,6 +1404,87 @@ public class PlayerRatingHarness {
         }
     }
     
+    /**
+     * Why a game was abandoned. ENGINE_ERROR is an exception thrown outside
+     * the players' decisions, which is charged to neither player.
+     */
+    public enum FailureKind {
+        VIOLATION, EXCEPTION, TIMEOUT, ENGINE_ERROR
+    }
+
+    /**
+     * A game that did not finish, with what is needed to replay it.
+     */
+    public static class FailedGame {
+        private final long seed;
+        private final String player1;
+        private final String player2;
+        private final String playerAtFault;
+        private final FailureKind kind;
+        private final String message;
+
+        FailedGame(long seed, String player1, String player2, String playerAtFault, FailureKind kind, String message) {
+            this.seed = seed;
+            this.player1 = player1;
+            this.player2 = player2;
+            this.playerAtFault = playerAtFault;
+            this.kind = kind;
+            this.message = message;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Get the player constructed first, which fixes the seats for the seed.
+         * 
+         * @return The first player's name
+         */
+        public String getPlayer1() {
+            return player1;
+        }
+
+        public String getPlayer2() {
+            return player2;
+        }
+
+        /**
+         * Get the player whose decision the game stopped at.
+         * 
+         * @return The player's name, or null if neither player was at fault
+         */
+        public String getPlayerAtFault() {
+            return playerAtFault;
+        }
+
+        public FailureKind getKind() {
+            return kind;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeLong(seed);
+            out.writeUTF(player1);
+            out.writeUTF(player2);
+            out.writeUTF(playerAtFault == null ? "" : playerAtFault);
+            out.writeByte(kind.ordinal());
+            out.writeUTF(message.length() > 1000 ? message.substring(0, 1000) : message);
+        }
+
+        static FailedGame read(DataInput in) throws IOException {
+            long seed = in.readLong();
+            String player1 = in.readUTF();
+            String player2 = in.readUTF();
+            String playerAtFault = in.readUTF();
+            return new FailedGame(seed, player1, player2, playerAtFault.isEmpty() ? null : playerAtFault,
+                                  FailureKind.values()[in.readByte()], in.readUTF());
+        }
+    }
+    
     /**
      * Statistics tracked for each player.
      */
@@ -294,6 +1496,145 @@ public class PlayerRatingHarness {
         int totalPointDifferential = 0;    // Sum of all point differences (positive when winning, negative when losing)
         int biggestWin = 0;                // Largest margin of victory
         int worstLoss = 0;                 // Largest margin of defeat
+        int pairsPlayed = 0;               // Seat-swapped pairs completed in paired mode
+        double totalPairScore = 0;         // Sum of pair results, each between 0 and 1
+        int violations = 0;                // Games abandoned after this player broke the rules
+        int exceptions = 0;                // Games abandoned after an exception in this player's decision
+        int timeouts = 0;                  // Games abandoned for time while this player was to decide
+        long rollouts = 0;                 // MCTS rollouts run in this player's searches
+        long searchNanos = 0;              // Time spent in those searches
+        // Distributions per game, about 2 KB each however many games are played
+        final Histogram scoreHistogram = new Histogram(-64, 191);
+        final Histogram differentialHistogram = new Histogram(-128, 127);
+        final Histogram turnsHistogram = new Histogram(0, 255);
+
+        /**
+         * Add another set of statistics for the same player to this one.
+         * 
+         * @param other Statistics from another batch of games
+         */
+        void merge(PlayerStats other) {
+            gamesPlayed += other.gamesPlayed;
+            wins += other.wins;
+            ties += other.ties;
+            totalScore += other.totalScore;
+            totalPointDifferential += other.totalPointDifferential;
+            biggestWin = Math.max(biggestWin, other.biggestWin);
+            worstLoss = Math.min(worstLoss, other.worstLoss);
+            pairsPlayed += other.pairsPlayed;
+            totalPairScore += other.totalPairScore;
+            violations += other.violations;
+            exceptions += other.exceptions;
+            timeouts += other.timeouts;
+            rollouts += other.rollouts;
+            searchNanos += other.searchNanos;
+            scoreHistogram.merge(other.scoreHistogram);
+            differentialHistogram.merge(other.differentialHistogram);
+            turnsHistogram.merge(other.turnsHistogram);
+        }
+
+        /**
+         * Save these statistics to a checkpoint.
+         */
+        void write(DataOutput out) throws IOException {
+            out.writeInt(gamesPlayed);
+            out.writeInt(wins);
+            out.writeInt(ties);
+            out.writeDouble(totalScore);
+            out.writeInt(totalPointDifferential);
+            out.writeInt(biggestWin);
+            out.writeInt(worstLoss);
+            out.writeInt(pairsPlayed);
+            out.writeDouble(totalPairScore);
+            out.writeInt(violations);
+            out.writeInt(exceptions);
+            out.writeInt(timeouts);
+            out.writeLong(rollouts);
+            out.writeLong(searchNanos);
+            scoreHistogram.write(out);
+            differentialHistogram.write(out);
+            turnsHistogram.write(out);
+        }
+
+        /**
+         * Restore statistics saved by write().
+         */
+        void read(DataInput in) throws IOException {
+            gamesPlayed = in.readInt();
+            wins = in.readInt();
+            ties = in.readInt();
+            totalScore = in.readDouble();
+            totalPointDifferential = in.readInt();
+            biggestWin = in.readInt();
+            worstLoss = in.readInt();
+            pairsPlayed = in.readInt();
+            totalPairScore = in.readDouble();
+            violations = in.readInt();
+            exceptions = in.readInt();
+            timeouts = in.readInt();
+            rollouts = in.readLong();
+            searchNanos = in.readLong();
+            scoreHistogram.read(in);
+            differentialHistogram.read(in);
+            turnsHistogram.read(in);
+        }
+
+        /**
+         * Record the combined result of a seat-swapped pair of games.
+         * 
+         * @param pairScore The player's mean result over the two games (0.0 to 1.0)
+         */
+        void recordPair(double pairScore) {
+            pairsPlayed++;
+            totalPairScore += pairScore;
+        }
+
+        /**
+         * Get the number of seat-swapped pairs played.
+         * 
+         * @return Number of pairs, 0 unless paired mode was used
+         */
+        public int getPairsPlayed() {
+            return pairsPlayed;
+        }
+
+        /**
+         * Get the mean result per seat-swapped pair, counting a win as 1 and a
+         * tie as 0.5. Seat advantage cancels out within each pair, so this
+         * settles faster than the win rate.
+         * 
+         * @return Mean pair result (0.0 to 1.0)
+         */
+        public double getPairedScore() {
+            return pairsPlayed == 0 ? 0 : totalPairScore / pairsPlayed;
+        }
+
+        /**
+         * Get the number of games played.
+         * 
+         * @return Number of games
+         */
+        public int getGamesPlayed() {
+            return gamesPlayed;
+        }
+
+        /**
+         * Get the number of games won.
+         * 
+         * @return Number of wins
+         */
+        public int getWins() {
+            return wins;
+        }
+
+        /**
+         * Get the number of games tied.
+         * 
+         * @return Number of ties
+         */
+        public int getTies() {
+            return ties;
+        }
 
         /**
          * Get the number of games lost.
@@ -332,6 +1673,78 @@ public class PlayerRatingHarness {
         public double getAveragePointDifferential() {
             return gamesPlayed == 0 ? 0 : (double) totalPointDifferential / gamesPlayed;
         }
+
+        /**
+         * Get the number of games abandoned because this player broke the rules.
+         * 
+         * @return Number of violations
+         */
+        public int getViolations() {
+            return violations;
+        }
+
+        /**
+         * Get the number of games abandoned because this player's decision threw an exception.
+         * 
+         * @return Number of exceptions
+         */
+        public int getExceptions() {
+            return exceptions;
+        }
+
+        /**
+         * Get the number of games abandoned for time while this player was to decide.
+         * 
+         * @return Number of timeouts
+         */
+        public int getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * Get the number of rollouts run in this player's searches; 0 unless it is an MCTS player.
+         * 
+         * @return Number of rollouts
+         */
+        public long getRollouts() {
+            return rollouts;
+        }
+
+        /**
+         * Get the speed of this player's searches.
+         * 
+         * @return Rollouts per second of search time, or 0 if it never searched
+         */
+        public double getRolloutsPerSecond() {
+            return searchNanos == 0 ? 0 : rollouts * 1e9 / searchNanos;
+        }
+
+        /**
+         * Get the distribution of the player's final scores.
+         * 
+         * @return Scores per game, from -64 to 191
+         */
+        public Histogram getScoreHistogram() {
+            return scoreHistogram;
+        }
+
+        /**
+         * Get the distribution of the player's point differentials.
+         * 
+         * @return Point differentials per game, from -128 to 127
+         */
+        public Histogram getPointDifferentialHistogram() {
+            return differentialHistogram;
+        }
+
+        /**
+         * Get the distribution of game lengths.
+         * 
+         * @return Rounds per game, from 0 to 255
+         */
+        public Histogram getTurnsHistogram() {
+            return turnsHistogram;
+        }
     }
     
     /**
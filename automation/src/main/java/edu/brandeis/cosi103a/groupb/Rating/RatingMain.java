@@ -1,7 +1,14 @@
 package edu.brandeis.cosi103a.groupb.Rating;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import edu.brandeis.cosi103a.groupb.Player.*;
 import edu.brandeis.cosi103a.groupb.Rating.PlayerRatingHarness.PlayerStats;
@@ -10,19 +17,48 @@ import edu.brandeis.cosi103a.groupb.Rating.PlayerRatingHarness.PlayerStats;
  * Main class for running the player rating harness.
  * This class provides a user interface for the automated player rating system
  * that simulates games between different AI strategies and compares their performance.
+ *
+ * Run without arguments it asks for its settings interactively. With
+ * arguments it runs unattended (see USAGE) and exits with status 0 once the
+ * summary is written, 1 if it or another output file could not be written, 2
+ * for bad arguments, or 3 if the tournament could not run: the checkpoint
+ * does not fit the arguments, or a player could not be created.
  */
 public class RatingMain {
+    private static final String USAGE = String.join("\n",
+        "Usage: RatingMain [options]",
+        "  --players A,B,...   Players to rate (default: all of " + String.join(", ", availablePlayers().keySet()) + ")",
+        "  --games N           Games per pairing (default: 100)",
+        "  --threads N         Games run in parallel (default: 1)",
+        "  --seed N            Tournament seed (default: random)",
+        "  --paired            Play every deal from both seats",
+        "  --adaptive          Stop pairings once the stronger player is known",
+        "  --format F          Summary format: text, csv or json (default: text)",
+        "  --out PATH          Write the summary to PATH instead of standard output",
+        "  --head-to-head PATH Also write the head-to-head results as CSV",
+        "  --timeout MILLIS    Abandon games that run longer than this (default: no limit)",
+        "  --records PATH      Append a record of every game to PATH (see GameRecordSink)",
+        "  --checkpoint PATH   Save progress to PATH every minute, and resume from it if it exists;",
+        "                      it is deleted once the tournament finishes");
+
+    // Least time between two checkpoints in batch mode
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 60_000;
+
     /**
      * Main entry point for the rating harness application.
      * 
-     * @param args Command line arguments (not used)
+     * @param args Command line arguments; none for interactive mode, otherwise see USAGE
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(runBatch(args));
+        }
+
         Scanner scanner = new Scanner(System.in);
         PlayerRatingHarness harness = new PlayerRatingHarness();
         
         // Register available players
-        registerAvailablePlayers(harness);
+        registerAvailablePlayers(harness, availablePlayers().keySet());
         
         // Display welcome message
         displayWelcomeMessage();
@@ -42,10 +78,187 @@ public class RatingMain {
         
         // Display the results report
         System.out.println(harness.generateReport());
+
+        // Report search speed so MCTS budgets can be sized to the hardware
+        if (MctsPlayer.getProcessRollouts() > 0) {
+            System.out.printf("MCTS (all players and games in this run): %d rollouts, %.0f rollouts/second%n",
+                MctsPlayer.getProcessRollouts(), MctsPlayer.getProcessRolloutsPerSecond());
+        }
         
         scanner.close();
     }
     
+    /**
+     * Runs a tournament without asking for input, configured by command line arguments.
+     * 
+     * @param args Command line arguments, see USAGE
+     * @return The exit status: 0 on success, 1 if an output file failed, 2 for bad arguments,
+     *         3 if the tournament could not run
+     */
+    public static int runBatch(String[] args) {
+        Set<String> roster = availablePlayers().keySet();
+        int numGames = 100;
+        int threads = 1;
+        Long seed = null;
+        boolean paired = false;
+        boolean adaptive = false;
+        String format = "text";
+        Path out = null;
+        Path headToHeadOut = null;
+        Path checkpoint = null;
+        Path records = null;
+        long timeoutMillis = 0;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--players":
+                        roster = new LinkedHashSet<>(Arrays.asList(value(args, ++i).split(",")));
+                        break;
+                    case "--games":
+                        numGames = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--paired":
+                        paired = true;
+                        break;
+                    case "--adaptive":
+                        adaptive = true;
+                        break;
+                    case "--format":
+                        format = value(args, ++i);
+                        break;
+                    case "--out":
+                        out = Path.of(value(args, ++i));
+                        break;
+                    case "--head-to-head":
+                        headToHeadOut = Path.of(value(args, ++i));
+                        break;
+                    case "--timeout":
+                        timeoutMillis = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--records":
+                        records = Path.of(value(args, ++i));
+                        break;
+                    case "--checkpoint":
+                        checkpoint = Path.of(value(args, ++i));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (numGames <= 0 || threads <= 0) {
+                throw new IllegalArgumentException("--games and --threads must be positive");
+            }
+            if (timeoutMillis < 0) {
+                throw new IllegalArgumentException("--timeout must not be negative");
+            }
+            if (!Set.of("text", "csv", "json").contains(format)) {
+                throw new IllegalArgumentException("Unknown format: " + format);
+            }
+            if (roster.size() < 2) {
+                throw new IllegalArgumentException("At least two players are needed");
+            }
+            for (String name : roster) {
+                if (!availablePlayers().containsKey(name)) {
+                    throw new IllegalArgumentException("Unknown player: " + name);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        registerAvailablePlayers(harness, roster);
+        harness.setSilentMode(true);
+        harness.setPairedGames(paired);
+        harness.setGameTimeLimit(timeoutMillis);
+        if (seed != null) {
+            harness.setSeed(seed);
+        }
+        if (adaptive) {
+            harness.setStoppingRule(new StoppingRule());
+        }
+        if (checkpoint != null) {
+            harness.setCheckpoint(checkpoint, CHECKPOINT_INTERVAL_MILLIS);
+        }
+
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        harness.setExecutor(executor);
+        GameRecordSink sink = null;
+        try {
+            if (records != null) {
+                sink = new GameRecordSink(records);
+                harness.setGameRecordSink(sink);
+            }
+            harness.runTournament(numGames);
+            if (sink != null) {
+                sink.close();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // The checkpoint or game record file could not be read or written
+            System.err.println(e.getMessage());
+            return 1;
+        } catch (CheckpointMismatchException e) {
+            System.err.println(e.getMessage());
+            return 3;
+        } catch (RuntimeException e) {
+            // Failures inside a game are counted in the summary, so this came from outside one
+            System.err.println("The tournament failed: " + e);
+            return 3;
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+
+        String summary;
+        switch (format) {
+            case "csv":
+                summary = harness.generateCsvSummary();
+                break;
+            case "json":
+                summary = harness.generateJsonSummary();
+                break;
+            default:
+                summary = harness.generateReport();
+        }
+
+        try {
+            if (out == null) {
+                System.out.print(summary);
+                System.out.flush();
+            } else {
+                Files.writeString(out, summary);
+            }
+            if (headToHeadOut != null) {
+                harness.exportHeadToHead(headToHeadOut);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write results: " + e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value following an option, or fails if there is none.
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
     /**
      * Displays the welcome message and description of the harness.
      */
@@ -59,37 +272,59 @@ public class RatingMain {
     }
     
     /**
-     * Register all available automated players with the harness.
-     * This is where new player types or variants should be added.
+     * Register the chosen automated players with the harness, in the order
+     * they are listed in availablePlayers().
      * 
      * @param harness The PlayerRatingHarness to register players with
+     * @param roster Names of the players to register
      */
-    private static void registerAvailablePlayers(PlayerRatingHarness harness) {
+    private static void registerAvailablePlayers(PlayerRatingHarness harness, Set<String> roster) {
+        for (Map.Entry<String, Supplier<AtgPlayer>> entry : availablePlayers().entrySet()) {
+            if (roster.contains(entry.getKey())) {
+                harness.registerPlayer(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * All automated players that can be rated, by name.
+     * This is where new player types or variants should be added.
+     * 
+     * @return Player names mapped to suppliers of new instances
+     */
+    private static Map<String, Supplier<AtgPlayer>> availablePlayers() {
+        Map<String, Supplier<AtgPlayer>> players = new LinkedHashMap<>();
+
         // Standard BigMoney with default settings
-        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        players.put("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
         
         // BigMoney variant with a parameterized name
-        harness.registerPlayer("AggressiveBM", () -> new BigMoneyPlayer("AggressiveBM") {
+        players.put("AggressiveBM", () -> new BigMoneyPlayer("AggressiveBM") {
             // An example of how you could override behavior for variants
             // Here we could override methods to change behavior if needed
         });
         
         // ReyEye player
-        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        players.put("RedEye", () -> new RedEyePlayer("RedEye"));
         
         // ReyEye variant with different parameters
-        harness.registerPlayer("CautiousRE", () -> new RedEyePlayer("CautiousRE") {
+        players.put("CautiousRE", () -> new RedEyePlayer("CautiousRE") {
             // An example of how you could override behavior for variants
             // Here we could override methods to change behavior if needed
         });
 
         // Add FinalBossBot player
-        harness.registerPlayer("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
+        players.put("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
         
         // Add a FinalBossBot variant for testing different parameters if needed
-        harness.registerPlayer("LegendaryFB", () -> new FinalBossPlayer("LegendaryFB") {
+        players.put("LegendaryFB", () -> new FinalBossPlayer("LegendaryFB") {
             // Could override methods to create a more aggressive variant
         });
+
+        // Monte-Carlo search player with the default rollout budget
+        players.put("MCTS", () -> new MctsPlayer("MCTS"));
+
+        return players;
     }
     
     /**
@@ -0,0 +1,262 @@
+package edu.brandeis.cosi103a.groupb.Rating;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Elo and Glicko-2 ratings for the players in a tournament, updated after
+ * every game.
+ *
+ * Win rates depend on who a player happened to meet; ratings take the
+ * strength of each opponent into account. Glicko-2 also tracks how certain
+ * each rating is (the rating deviation, RD), which shrinks as a player plays
+ * more games. Each game is treated as its own Glicko-2 rating period.
+ *
+ * Games may be recorded from several threads at once. Updates are applied
+ * one at a time, in the order the games finish, so in a parallel tournament
+ * the final ratings can differ slightly from run to run.
+ */
+public class RatingTable {
+    public static final double INITIAL_RATING = 1500;
+    public static final double INITIAL_DEVIATION = 350;
+    public static final double INITIAL_VOLATILITY = 0.06;
+
+    // Ratio between the Glicko and Glicko-2 scales
+    private static final double SCALE = 173.7178;
+    private static final double CONVERGENCE = 0.000001;
+
+    private final double kFactor;
+    private final double tau;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Creates a rating table with an Elo K-factor of 16 and a Glicko-2
+     * volatility constraint (tau) of 0.5.
+     */
+    public RatingTable() {
+        this(16, 0.5);
+    }
+
+    /**
+     * Creates a rating table.
+     *
+     * @param kFactor Largest Elo change from a single game
+     * @param tau Glicko-2 system constant; smaller values let volatility change less
+     */
+    public RatingTable(double kFactor, double tau) {
+        this.kFactor = kFactor;
+        this.tau = tau;
+    }
+
+    /**
+     * Adds a player at the initial ratings, or does nothing if they are already in the table.
+     *
+     * @param name The player's name
+     */
+    public synchronized void addPlayer(String name) {
+        entries.computeIfAbsent(name, n -> new Entry());
+    }
+
+    /**
+     * Updates both players' ratings with the result of one game.
+     *
+     * @param first The first player's name
+     * @param second The second player's name
+     * @param firstScore The first player's result: 1 for a win, 0.5 for a tie, 0 for a loss
+     */
+    public synchronized void recordGame(String first, String second, double firstScore) {
+        Entry a = entries.computeIfAbsent(first, n -> new Entry());
+        Entry b = entries.computeIfAbsent(second, n -> new Entry());
+
+        // Elo
+        double expected = 1 / (1 + Math.pow(10, (b.elo - a.elo) / 400));
+        double eloChange = kFactor * (firstScore - expected);
+        a.elo += eloChange;
+        b.elo -= eloChange;
+
+        // Glicko-2, both players updated from their ratings before the game
+        double mu1 = a.mu, phi1 = a.phi;
+        double mu2 = b.mu, phi2 = b.phi;
+        a.updateGlicko(mu2, phi2, firstScore);
+        b.updateGlicko(mu1, phi1, 1 - firstScore);
+
+        a.games++;
+        b.games++;
+    }
+
+    /**
+     * Returns a player's current ratings.
+     *
+     * @param name The player's name
+     * @return The player's ratings, or null if they are not in the table
+     */
+    public synchronized Rating getRating(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? null : entry.snapshot();
+    }
+
+    /**
+     * Returns every player's current ratings, best Glicko-2 rating first.
+     *
+     * @return Player names mapped to their ratings
+     */
+    public synchronized Map<String, Rating> getRatings() {
+        List<Map.Entry<String, Entry>> sorted = new ArrayList<>(entries.entrySet());
+        sorted.sort((e1, e2) -> Double.compare(e2.getValue().mu, e1.getValue().mu));
+        Map<String, Rating> ratings = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> entry : sorted) {
+            ratings.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return ratings;
+    }
+
+    /**
+     * Saves every player's ratings, for a tournament checkpoint.
+     */
+    synchronized void write(DataOutput out) throws IOException {
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry e = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeDouble(e.elo);
+            out.writeDouble(e.mu);
+            out.writeDouble(e.phi);
+            out.writeDouble(e.sigma);
+            out.writeInt(e.games);
+        }
+    }
+
+    /**
+     * Replaces the ratings with ones saved by write().
+     */
+    synchronized void read(DataInput in) throws IOException {
+        entries.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Entry e = new Entry();
+            entries.put(in.readUTF(), e);
+            e.elo = in.readDouble();
+            e.mu = in.readDouble();
+            e.phi = in.readDouble();
+            e.sigma = in.readDouble();
+            e.games = in.readInt();
+        }
+    }
+
+    /**
+     * Mutable ratings of one player. Glicko-2 values are kept on the internal scale.
+     */
+    private final class Entry {
+        double elo = INITIAL_RATING;
+        double mu = 0;
+        double phi = INITIAL_DEVIATION / SCALE;
+        double sigma = INITIAL_VOLATILITY;
+        int games = 0;
+
+        /**
+         * One Glicko-2 rating period with a single game (Glickman, "Example of the Glicko-2 system").
+         */
+        void updateGlicko(double opponentMu, double opponentPhi, double score) {
+            double g = 1 / Math.sqrt(1 + 3 * opponentPhi * opponentPhi / (Math.PI * Math.PI));
+            double e = 1 / (1 + Math.exp(-g * (mu - opponentMu)));
+            double v = 1 / (g * g * e * (1 - e));
+            double delta = v * g * (score - e);
+
+            sigma = newVolatility(delta, v);
+            double phiStar = Math.sqrt(phi * phi + sigma * sigma);
+            phi = 1 / Math.sqrt(1 / (phiStar * phiStar) + 1 / v);
+            mu += phi * phi * g * (score - e);
+        }
+
+        /**
+         * Solves for the new volatility with the Illinois method (step 5 of the algorithm).
+         */
+        private double newVolatility(double delta, double v) {
+            double a = Math.log(sigma * sigma);
+            double phi2 = phi * phi;
+            double delta2 = delta * delta;
+            double lowA = a;
+            double highB;
+            if (delta2 > phi2 + v) {
+                highB = Math.log(delta2 - phi2 - v);
+            } else {
+                int k = 1;
+                while (volatilityFunction(a - k * tau, a, delta2, phi2, v) < 0) {
+                    k++;
+                }
+                highB = a - k * tau;
+            }
+            double fA = volatilityFunction(lowA, a, delta2, phi2, v);
+            double fB = volatilityFunction(highB, a, delta2, phi2, v);
+            while (Math.abs(highB - lowA) > CONVERGENCE) {
+                double c = lowA + (lowA - highB) * fA / (fB - fA);
+                double fC = volatilityFunction(c, a, delta2, phi2, v);
+                if (fC * fB <= 0) {
+                    lowA = highB;
+                    fA = fB;
+                } else {
+                    fA /= 2;
+                }
+                highB = c;
+                fB = fC;
+            }
+            return Math.exp(lowA / 2);
+        }
+
+        private double volatilityFunction(double x, double a, double delta2, double phi2, double v) {
+            double ex = Math.exp(x);
+            double denominator = phi2 + v + ex;
+            return ex * (delta2 - phi2 - v - ex) / (2 * denominator * denominator) - (x - a) / (tau * tau);
+        }
+
+        Rating snapshot() {
+            return new Rating(elo, INITIAL_RATING + mu * SCALE, phi * SCALE, sigma, games);
+        }
+    }
+
+    /**
+     * A player's ratings at one point in time.
+     */
+    public static final class Rating {
+        private final double elo;
+        private final double glicko;
+        private final double deviation;
+        private final double volatility;
+        private final int games;
+
+        Rating(double elo, double glicko, double deviation, double volatility, int games) {
+            this.elo = elo;
+            this.glicko = glicko;
+            this.deviation = deviation;
+            this.volatility = volatility;
+            this.games = games;
+        }
+
+        public double getElo() {
+            return elo;
+        }
+
+        /**
+         * Returns the Glicko-2 rating on the familiar Elo-like scale.
+         */
+        public double getGlicko() {
+            return glicko;
+        }
+
+        /**
+         * Returns the Glicko-2 rating deviation. The true rating lies within
+         * two deviations of getGlicko() with about 95% confidence.
+         */
+        public double getDeviation() {
+            return deviation;
+        }
+
+        public double getVolatility() {
+            return volatility;
+        }
+
+        public int getGames() {
+            return games;
+        }
+    }
+}
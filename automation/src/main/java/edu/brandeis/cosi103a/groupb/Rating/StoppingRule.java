@@ -0,0 +1,130 @@
+package edu.brandeis.cosi103a.groupb.Rating;
+
+/**
+ * A sequential probability ratio test (SPRT) that decides when a pairing has
+ * played enough games to tell which player is stronger.
+ *
+ * Each game (or seat-swapped pair) gives the first player a result x between
+ * 0 and 1: 1 for a win, 0.5 for a tie, 0 for a loss. The test compares the
+ * hypothesis that the first player's expected result is 0.5 + margin against
+ * 0.5 - margin. It stops as soon as the evidence for either one passes the
+ * bound set by the error rates, so lopsided pairings finish after a few dozen
+ * games while close ones keep playing.
+ */
+public class StoppingRule {
+    // z for a two-sided 95% confidence interval
+    private static final double Z_95 = 1.959963984540054;
+
+    private final double alpha;
+    private final double beta;
+    private final double margin;
+    private final int minGames;
+
+    // Log-likelihood ratio contributed by a result of 1 and of 0
+    private final double winWeight;
+    private final double lossWeight;
+    private final double upperBound;
+    private final double lowerBound;
+
+    /**
+     * Creates a stopping rule.
+     *
+     * @param alpha Chance of wrongly deciding the first player is stronger
+     * @param beta Chance of wrongly deciding the second player is stronger
+     * @param margin Half-width of the indifference zone around an even matchup, for example 0.05
+     * @param minGames Results to collect before the test may stop a pairing
+     */
+    public StoppingRule(double alpha, double beta, double margin, int minGames) {
+        if (alpha <= 0 || alpha >= 0.5 || beta <= 0 || beta >= 0.5) {
+            throw new IllegalArgumentException("Error rates must be between 0 and 0.5");
+        }
+        if (margin <= 0 || margin >= 0.5) {
+            throw new IllegalArgumentException("Margin must be between 0 and 0.5");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.margin = margin;
+        this.minGames = Math.max(minGames, 1);
+        double better = 0.5 + margin;
+        double worse = 0.5 - margin;
+        this.winWeight = Math.log(better / worse);
+        this.lossWeight = Math.log((1 - better) / (1 - worse));
+        this.upperBound = Math.log((1 - beta) / alpha);
+        this.lowerBound = Math.log(beta / (1 - alpha));
+    }
+
+    /**
+     * Creates the default rule: 5% error rates, a margin of 0.05 (a 55% versus
+     * 45% expected result) and at least 20 results.
+     */
+    public StoppingRule() {
+        this(0.05, 0.05, 0.05, 20);
+    }
+
+    /**
+     * Returns the log-likelihood ratio of the results so far; positive values
+     * favour the first player.
+     *
+     * @param results Number of results
+     * @param scoreSum Sum of the first player's results
+     * @return The log-likelihood ratio
+     */
+    public double logLikelihoodRatio(int results, double scoreSum) {
+        return scoreSum * winWeight + (results - scoreSum) * lossWeight;
+    }
+
+    /**
+     * Applies the test.
+     *
+     * @param results Number of results
+     * @param scoreSum Sum of the first player's results
+     * @return 1 if the first player is stronger, -1 if the second is, 0 to keep playing
+     */
+    public int decide(int results, double scoreSum) {
+        if (results < minGames) {
+            return 0;
+        }
+        double llr = logLikelihoodRatio(results, scoreSum);
+        if (llr >= upperBound) {
+            return 1;
+        } else if (llr <= lowerBound) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a 95% Wilson score interval for the mean result.
+     *
+     * @param results Number of results
+     * @param scoreSum Sum of the results
+     * @return The lower and upper ends of the interval, or [0, 1] with no results
+     */
+    public static double[] confidenceInterval(int results, double scoreSum) {
+        if (results == 0) {
+            return new double[] {0, 1};
+        }
+        double n = results;
+        double p = scoreSum / n;
+        double z2 = Z_95 * Z_95;
+        double centre = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double halfWidth = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+        return new double[] {Math.max(0, centre - halfWidth), Math.min(1, centre + halfWidth)};
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public double getBeta() {
+        return beta;
+    }
+
+    public double getMargin() {
+        return margin;
+    }
+
+    public int getMinGames() {
+        return minGames;
+    }
+}
@@ -116,6 +116,8 @@ public class GameController {
                 return new BigMoneyPlayer(name);
             case "redeye":
                 return new RedEyePlayer(name);
+            case "mcts":
+                return new MctsPlayer(name);
             default:
                 return new BigMoneyPlayer(name); // Default
         }
@@ -214,11 +216,11 @@ public class GameController {
     }
 
     // Helper method to calculate a player's score
-    private int calculateScore(AtgPlayer player, GameEngine engine) {
+    private int calculateScore(AtgPlayer player, ScoreProvider engine) {
         // Since the score calculation is in the GameEngine class, we'll try to use it
         try {
-            // Use the static method to get current scores
-            List<Player.ScorePair> scores = GameEngine.getCurrentScores();
+            // Ask this game's engine for its current scores
+            List<Player.ScorePair> scores = engine.getCurrentScores();
             
             // Find the score for this player
             for (Player.ScorePair score : scores) {
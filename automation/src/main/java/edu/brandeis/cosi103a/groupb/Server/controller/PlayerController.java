@@ -12,7 +12,7 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/players")
 public class PlayerController {
-    private static final List<String> PLAYER_TYPES = List.of("bigmoney", "redeye","finalboss");
+    private static final List<String> PLAYER_TYPES = List.of("bigmoney", "redeye","finalboss", "mcts");
     
     @GetMapping
     public List<PlayerResponse> getPlayerTypes() {
@@ -1,7 +1,6 @@
 package edu.brandeis.cosi103a.groupb;
 
 import java.io.ByteArrayInputStream;
-import java.lang.reflect.Field;
 import java.util.*;
 
 
@@ -236,7 +235,7 @@ public class BigMoneyPlayerTest {
         // Create an observer (or use a dummy implementation)
         GameObserver observer = new ConsoleGameObserver();
         
-        // Initialize GameEngine with both players so that currentEngine is set.
+        // Initialize GameEngine with both players so that the player can see its scores.
         Engine engine = GameEngine.createEngine(player, opponent, observer);
         
         // Force the opponent to have a higher victory score.
@@ -255,11 +254,6 @@ public class BigMoneyPlayerTest {
         // Set money to 8 so both buy options are affordable.
         GameState state = new GameState(player.getName(), dummyHand, GameState.TurnPhase.BUY, 1, 8, 1, controlledDeck);
         
-        // Force the GameEngine's gameState to our controlled state (using reflection).
-        Field gameStateField = engine.getClass().getDeclaredField("gameState");
-        gameStateField.setAccessible(true);
-        gameStateField.set(engine, state);
-        
         // Prepare the decision options for BUY phase.
         List<Decision> options = new ArrayList<>();
         options.add(new BuyDecision(Card.Type.FRAMEWORK));
@@ -5,12 +5,21 @@ import java.util.*;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue; //Use java reflection to test private method
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.Test;
 
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import edu.brandeis.cosi.atg.api.*;
 import edu.brandeis.cosi.atg.api.cards.Card;
+import edu.brandeis.cosi.atg.api.decisions.Decision;
+import edu.brandeis.cosi.atg.api.decisions.EndPhaseDecision;
+import edu.brandeis.cosi.atg.api.decisions.PlayCardDecision;
+import edu.brandeis.cosi.atg.api.event.Event;
+import edu.brandeis.cosi103a.groupb.Decks.CardCodes;
+import edu.brandeis.cosi103a.groupb.Decks.DiscardDeck;
+import edu.brandeis.cosi103a.groupb.Decks.DrawDeck;
 import edu.brandeis.cosi103a.groupb.Decks.PlayerDeck;
 import edu.brandeis.cosi103a.groupb.Game.*;
 import edu.brandeis.cosi103a.groupb.Player.*;
@@ -54,9 +63,7 @@ public class EngineTest {
      */
     @Test
     void testInitializeDeck() throws Exception {
-        Field deckField = gameEngine.getClass().getDeclaredField("deck");
-        deckField.setAccessible(true);
-        GameDeck deck = (GameDeck) deckField.get(gameEngine);
+        GameDeck deck = ((GameEngine) gameEngine).getDeck();
 
         assertEquals(60, deck.getNumAvailable(Card.Type.BITCOIN));
         assertEquals(40, deck.getNumAvailable(Card.Type.ETHEREUM));
@@ -72,6 +79,35 @@ public class EngineTest {
         }
     }
 
+    /**
+     * Tests that taking a card from the supply keeps the game deck counts in sync.
+     *
+     * Expected behavior:
+     * - The drawn card has the requested type
+     * - The game deck reports one fewer card of that type
+     * - Drawing from an empty pile throws an IllegalStateException
+     */
+    @Test
+    void testDrawCardFromGameDeck() throws Exception {
+        Method drawCard = gameEngine.getClass().getDeclaredMethod("drawCardFromGameDeck", Card.Type.class);
+        drawCard.setAccessible(true);
+
+        Card card = (Card) drawCard.invoke(gameEngine, Card.Type.FRAMEWORK);
+        assertEquals(Card.Type.FRAMEWORK, card.getType());
+        assertEquals(7, ((GameEngine) gameEngine).getDeck().getNumAvailable(Card.Type.FRAMEWORK));
+
+        for (int i = 0; i < 7; i++) {
+            drawCard.invoke(gameEngine, Card.Type.FRAMEWORK);
+        }
+        assertEquals(0, ((GameEngine) gameEngine).getDeck().getNumAvailable(Card.Type.FRAMEWORK));
+        try {
+            drawCard.invoke(gameEngine, Card.Type.FRAMEWORK);
+            assertTrue(false);
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
     /**
      * Tests that player game states are properly initialized.
      * 
@@ -107,9 +143,6 @@ public class EngineTest {
      */
     @Test
     void testPhasesAgainAndAgain() throws Exception {
-        Field mainDeck = gameEngine.getClass().getDeclaredField("deck"); 
-        mainDeck.setAccessible(true);
-
         Method initializeGameState = gameEngine.getClass().getDeclaredMethod("initializeGameState", AtgPlayer.class);
         initializeGameState.setAccessible(true);
         initializeGameState.invoke(gameEngine, player1);
@@ -249,9 +282,7 @@ public class EngineTest {
         ImmutableList<AtgPlayer.ScorePair> scorePair = (ImmutableList<AtgPlayer.ScorePair>) computeScores.invoke(gameEngine);
         int score = scorePair.get(0).getScore(); // Only one player in the test so far
 
-        Field mainDeck = gameEngine.getClass().getDeclaredField("deck"); 
-        mainDeck.setAccessible(true);
-        GameDeck deck = (GameDeck) mainDeck.get(gameEngine);
+        GameDeck deck = ((GameEngine) gameEngine).getDeck();
 
         int money = 0;
         for (Map.Entry<Card.Type, Integer> entry: deck.getCardCounts().entrySet()) {
@@ -277,7 +308,7 @@ public class EngineTest {
     @Test
     void testProcessBacklogEffect() throws Exception {
         // Use reflection to get the private method.
-        Method backlogMethod = gameEngine.getClass().getDeclaredMethod("processBacklogEffect", AtgPlayer.class, GameState.class);
+        Method backlogMethod = gameEngine.getClass().getDeclaredMethod("processBacklogEffect", AtgPlayer.class);
         backlogMethod.setAccessible(true);
         
         // Initialize game state for player1.
@@ -291,7 +322,8 @@ public class EngineTest {
         
         // For testing, assume player's discarding phase immediately ends (i.e. no card is trashed/discarded).
         // In this dummy scenario the number of actions should be increased by 1.
-        GameState afterState = (GameState) backlogMethod.invoke(gameEngine, player1, beforeState);
+        backlogMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
         
         // Verify that available actions increased by 1.
         assertEquals(beforeState.getAvailableActions() + 1, afterState.getAvailableActions());
@@ -315,12 +347,13 @@ public class EngineTest {
         GameState beforeState = ((GameEngine)gameEngine).getGameState();
         
         // Use reflection to invoke processHackEffect.
-        Method hackMethod = gameEngine.getClass().getDeclaredMethod("processHackEffect", AtgPlayer.class, GameState.class);
+        Method hackMethod = gameEngine.getClass().getDeclaredMethod("processHackEffect", AtgPlayer.class);
         hackMethod.setAccessible(true);
         
         // In our testing environment, ensure that opponent (player2) does not reveal a MONITORING card.
         // (This may be done via a dummy makeDecision method or by setting player2's hand appropriately.)
-        GameState afterState = (GameState) hackMethod.invoke(gameEngine, player1, beforeState);
+        hackMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
         
         // Verify that player1's spendable money is increased by 2.
         assertEquals(beforeState.getSpendableMoney() + 2, afterState.getSpendableMoney());
@@ -346,9 +379,10 @@ public class EngineTest {
         
         GameState beforeState = ((GameEngine)gameEngine).getGameState();
         
-        Method dailyScrumMethod = gameEngine.getClass().getDeclaredMethod("processDailyScrumEffect", AtgPlayer.class, GameState.class);
+        Method dailyScrumMethod = gameEngine.getClass().getDeclaredMethod("processDailyScrumEffect", AtgPlayer.class);
         dailyScrumMethod.setAccessible(true);
-        GameState afterState = (GameState) dailyScrumMethod.invoke(gameEngine, player1, beforeState);
+        dailyScrumMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
         
         // Verify active player's hand has increased (by 4 cards drawn) and available buys increased.
         // Exact numbers may depend on previous state; adjust assertions accordingly.
@@ -373,9 +407,10 @@ public class EngineTest {
 
         GameState beforeState = ((GameEngine) gameEngine).getGameState();
 
-        Method ipoMethod = gameEngine.getClass().getDeclaredMethod("processIpoEffect", AtgPlayer.class, GameState.class);
+        Method ipoMethod = gameEngine.getClass().getDeclaredMethod("processIpoEffect", AtgPlayer.class);
         ipoMethod.setAccessible(true);
-        GameState afterState = (GameState) ipoMethod.invoke(gameEngine, player1, beforeState);
+        ipoMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
 
         // Check that available actions increased by 1 and money increased by 2.
         assertEquals(beforeState.getAvailableActions() + 1, afterState.getAvailableActions());
@@ -398,9 +433,10 @@ public class EngineTest {
 
         GameState beforeState = ((GameEngine) gameEngine).getGameState();
 
-        Method crMethod = gameEngine.getClass().getDeclaredMethod("processCodeReviewEffect", AtgPlayer.class, GameState.class);
+        Method crMethod = gameEngine.getClass().getDeclaredMethod("processCodeReviewEffect", AtgPlayer.class);
         crMethod.setAccessible(true);
-        GameState afterState = (GameState) crMethod.invoke(gameEngine, player1, beforeState);
+        crMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
 
         // Check that available actions increased by 2.
         assertEquals(beforeState.getAvailableActions() + 2, afterState.getAvailableActions());
@@ -427,9 +463,10 @@ public class EngineTest {
 
         GameState beforeState = ((GameEngine) gameEngine).getGameState();
 
-        Method techDebtMethod = gameEngine.getClass().getDeclaredMethod("processTechDebtEffect", AtgPlayer.class, GameState.class);
+        Method techDebtMethod = gameEngine.getClass().getDeclaredMethod("processTechDebtEffect", AtgPlayer.class);
         techDebtMethod.setAccessible(true);
-        GameState afterState = (GameState) techDebtMethod.invoke(gameEngine, player1, beforeState);
+        techDebtMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
 
         // Check bonus: +1 action and +1 money and one card is drawn.
         assertEquals(beforeState.getAvailableActions() + 1, afterState.getAvailableActions());
@@ -453,9 +490,10 @@ public class EngineTest {
         GameState beforeState = ((GameEngine) gameEngine).getGameState();
 
         // Invoke processRefactorEffect via reflection.
-        Method refactorMethod = gameEngine.getClass().getDeclaredMethod("processRefactorEffect", AtgPlayer.class, GameState.class);
+        Method refactorMethod = gameEngine.getClass().getDeclaredMethod("processRefactorEffect", AtgPlayer.class);
         refactorMethod.setAccessible(true);
-        GameState afterState = (GameState) refactorMethod.invoke(gameEngine, player1, beforeState);
+        refactorMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
 
         // For testing purposes, verify that available actions and spendable money remain consistent.
         assertEquals(beforeState.getAvailableActions(), afterState.getAvailableActions());
@@ -478,9 +516,10 @@ public class EngineTest {
 
         GameState beforeState = ((GameEngine) gameEngine).getGameState();
 
-        Method parMethod = gameEngine.getClass().getDeclaredMethod("processParallelizationEffect", AtgPlayer.class, GameState.class);
+        Method parMethod = gameEngine.getClass().getDeclaredMethod("processParallelizationEffect", AtgPlayer.class);
         parMethod.setAccessible(true);
-        GameState afterState = (GameState) parMethod.invoke(gameEngine, player1, beforeState);
+        parMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
 
         // In this test we simply assert the turn phase remains unchanged.
         assertEquals(beforeState.getTurnPhase(), afterState.getTurnPhase());
@@ -505,9 +544,10 @@ public class EngineTest {
         GameState beforeState = ((GameEngine)gameEngine).getGameState();
         
         // Invoke the Evergreen Test effect.
-        Method evergreenMethod = gameEngine.getClass().getDeclaredMethod("processEvergreenTestEffect", AtgPlayer.class, GameState.class);
+        Method evergreenMethod = gameEngine.getClass().getDeclaredMethod("processEvergreenTestEffect", AtgPlayer.class);
         evergreenMethod.setAccessible(true);
-        GameState afterState = (GameState) evergreenMethod.invoke(gameEngine, player1, beforeState);
+        evergreenMethod.invoke(gameEngine, player1);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
 
         assertEquals(afterState.getCurrentPlayerHand().getUnplayedCards().size(), beforeState.getCurrentPlayerHand().getUnplayedCards().size() + 2);
 
@@ -548,9 +588,10 @@ public class EngineTest {
         GameState beforeState = ((GameEngine) gameEngine).getGameState();
         
         // Invoke the EVERGREEN_TEST effect from player1.
-        Method evergreenMethod = gameEngine.getClass().getDeclaredMethod("processEvergreenTestEffect", AtgPlayer.class, GameState.class);
+        Method evergreenMethod = gameEngine.getClass().getDeclaredMethod("processEvergreenTestEffect", AtgPlayer.class);
         evergreenMethod.setAccessible(true);
-        GameState afterState = (GameState) evergreenMethod.invoke(gameEngine, player2, beforeState);
+        evergreenMethod.invoke(gameEngine, player2);
+        GameState afterState = ((GameEngine) gameEngine).getGameState();
         
         // Check that player1's hand unplayed card count increased by 2 (as per the card effect).
         int expectedCount = beforeState.getCurrentPlayerHand().getUnplayedCards().size() + 2;
@@ -565,4 +606,506 @@ public class EngineTest {
         }
         assertEquals(0, bugCount);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that two engines created with the same seed play the same game.
+     * 
+     * Expected behavior:
+     * - Every event reported to the observer is the same in both games
+     * - The final scores are the same in both games
+     */
+    @Test
+    void testSeededEngineIsReproducible() throws Exception {
+        List<String> firstEvents = new ArrayList<>();
+        List<String> secondEvents = new ArrayList<>();
+
+        Engine first = GameEngine.createEngine(new BigMoneyPlayer("Nancy"), new BigMoneyPlayer("Abby"),
+                (state, event) -> firstEvents.add(event.getDescription()), 42L);
+        List<Player.ScorePair> firstScores = first.play();
+
+        Engine second = GameEngine.createEngine(new BigMoneyPlayer("Nancy"), new BigMoneyPlayer("Abby"),
+                (state, event) -> secondEvents.add(event.getDescription()), 42L);
+        List<Player.ScorePair> secondScores = second.play();
+
+        assertEquals(firstEvents, secondEvents);
+        assertEquals(firstScores.size(), secondScores.size());
+        for (int i = 0; i < firstScores.size(); i++) {
+            assertEquals(firstScores.get(i).player.getName(), secondScores.get(i).player.getName());
+            assertEquals(firstScores.get(i).getScore(), secondScores.get(i).getScore());
+        }
+        assertEquals(42L, ((GameEngine) second).getSeed());
+    }
+
+    /**
+     * Tests that each engine reports the scores of its own game only.
+     * 
+     * Expected behavior:
+     * - A player asks the engine of its own game for scores, even when
+     *   another engine was created after it
+     */
+    @Test
+    void testEnginesKeepSeparateScores() {
+        BigMoneyPlayer firstGamePlayer = new BigMoneyPlayer("Nancy");
+        BigMoneyPlayer firstGameOpponent = new BigMoneyPlayer("Abby");
+        GameEngine firstGame = new GameEngine(firstGamePlayer, firstGameOpponent, observer, createDeck());
+
+        BigMoneyPlayer secondGamePlayer = new BigMoneyPlayer("Nancy");
+        BigMoneyPlayer secondGameOpponent = new BigMoneyPlayer("Abby");
+        GameEngine secondGame = new GameEngine(secondGamePlayer, secondGameOpponent, observer, createDeck());
+
+        // The opponent leads in the first game, the player leads in the second.
+        firstGameOpponent.getDiscardDeck().addCard(new Card(Card.Type.METHOD, 0));
+        secondGamePlayer.getDiscardDeck().addCard(new Card(Card.Type.METHOD, 1));
+
+        assertEquals(1, firstGame.getCurrentScores().get(0).getScore());
+        assertEquals(firstGameOpponent, firstGame.getCurrentScores().get(0).player);
+        assertEquals(secondGamePlayer, secondGame.getCurrentScores().get(0).player);
+        assertTrue(!firstGamePlayer.isWinning());
+        assertTrue(secondGamePlayer.isWinning());
+    }
+
+    private GameDeck createDeck() {
+        Map<Card.Type, Integer> counts = new HashMap<>();
+        counts.put(Card.Type.BITCOIN, 60);
+        counts.put(Card.Type.METHOD, 14);
+        counts.put(Card.Type.FRAMEWORK, 8);
+        return new GameDeck(ImmutableMap.copyOf(counts));
+    }
+
+    /**
+     * Tests that the running victory point totals follow cards as they move.
+     * 
+     * Expected behavior:
+     * - Each player's score matches a full recount of their cards
+     * - The active player scores 3 points for the starting METHOD cards
+     * - Moving the discard deck into the draw deck keeps the totals in step
+     * - A BUG card lowers the score by 1
+     */
+    @Test
+    void testRunningScoreTotals() throws Exception {
+        Method initializeGameState = gameEngine.getClass().getDeclaredMethod("initializeGameState", AtgPlayer.class);
+        initializeGameState.setAccessible(true);
+        initializeGameState.invoke(gameEngine, player1);
+        initializeGameState.invoke(gameEngine, player2);
+        Method calculateScore = gameEngine.getClass().getDeclaredMethod("calculateScore", AtgPlayer.class);
+        calculateScore.setAccessible(true);
+        Method recountScore = gameEngine.getClass().getDeclaredMethod("recountScore", AtgPlayer.class);
+        recountScore.setAccessible(true);
+
+        assertEquals(3, calculateScore.invoke(gameEngine, player2));
+        assertEquals(recountScore.invoke(gameEngine, player1), calculateScore.invoke(gameEngine, player1));
+
+        player2.getDiscardDeck().addCard(new Card(Card.Type.BUG, 0));
+        player2.getDiscardDeck().moveDeck(player2.getDrawDeck());
+        assertEquals(0, player2.getDiscardDeck().getVictoryPoints());
+        assertEquals(2, calculateScore.invoke(gameEngine, player2));
+        assertEquals(recountScore.invoke(gameEngine, player2), calculateScore.invoke(gameEngine, player2));
+    }
+
+    /**
+     * Tests that an engine with a silent trace sink writes nothing to the console.
+     * 
+     * Expected behavior:
+     * - A full game between two BigMoney players produces no console output
+     */
+    @Test
+    void testSilentTraceSink() throws Exception {
+        GameEngine engine = (GameEngine) GameEngine.createEngine(new BigMoneyPlayer("Nancy"), new BigMoneyPlayer("Abby"),
+                (state, event) -> { }, 7L);
+        engine.setTraceSink(TraceSink.SILENT);
+
+        java.io.PrintStream originalOut = System.out;
+        java.io.ByteArrayOutputStream captured = new java.io.ByteArrayOutputStream();
+        System.setOut(new java.io.PrintStream(captured));
+        try {
+            engine.play();
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertEquals(0, captured.size());
+    }
+
+    /**
+     * Tests that a decision asked of the opponent during an attack is charged
+     * to the opponent, whether it is a MONITORING reaction or a forced discard.
+     * 
+     * Expected behavior:
+     * - When the reacting opponent throws, the PlayerFailureException and
+     *   getLastDecider() name the opponent
+     * - The same holds when the opponent throws while discarding down to 3
+     * - An expired time limit stops the game at the opponent's reaction
+     */
+    @Test
+    void testOpponentDecisionsAreTracked() throws Exception {
+        AtgPlayer active = new BigMoneyPlayer("Nancy");
+        AtgPlayer opponent = new BigMoneyPlayer("Abby") {
+            @Override
+            public Decision makeDecision(GameState state, ImmutableList<Decision> options, Optional<Event> reason) {
+                throw new IllegalStateException("reaction bug");
+            }
+        };
+        GameEngine engine = (GameEngine) GameEngine.createEngine(active, opponent, (state, event) -> { }, 5L);
+        engine.setTraceSink(TraceSink.SILENT);
+        Method initState = GameEngine.class.getDeclaredMethod("initializeGameState", AtgPlayer.class);
+        initState.setAccessible(true);
+        initState.invoke(engine, active);
+        Method hack = GameEngine.class.getDeclaredMethod("processHackEffect", AtgPlayer.class);
+        hack.setAccessible(true);
+        Method evergreen = GameEngine.class.getDeclaredMethod("processEvergreenTestEffect", AtgPlayer.class);
+        evergreen.setAccessible(true);
+
+        // MONITORING reaction to EVERGREEN_TEST
+        opponent.setHand(new Hand(ImmutableList.of(), ImmutableList.of(new Card(Card.Type.MONITORING, 0))));
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class, () -> evergreen.invoke(engine, active));
+        PlayerFailureException failure = (PlayerFailureException) thrown.getCause();
+        assertTrue(failure.getPlayer() == opponent);
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        assertTrue(engine.getLastDecider() == opponent);
+
+        // Forced discard after HACK, with no MONITORING to reveal
+        ImmutableList.Builder<Card> bigHand = ImmutableList.builder();
+        for (int i = 0; i < 5; i++) {
+            bigHand.add(new Card(Card.Type.BITCOIN, 100 + i));
+        }
+        opponent.setHand(new Hand(ImmutableList.of(), bigHand.build()));
+        decide(engine, active);
+        thrown = assertThrows(InvocationTargetException.class, () -> hack.invoke(engine, active));
+        failure = (PlayerFailureException) thrown.getCause();
+        assertTrue(failure.getPlayer() == opponent);
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        assertTrue(engine.getLastDecider() == opponent);
+
+        // The time limit is checked before the reaction is asked for
+        opponent.setHand(new Hand(ImmutableList.of(), ImmutableList.of(new Card(Card.Type.MONITORING, 0))));
+        engine.setTimeLimit(1);
+        Thread.sleep(5);
+        thrown = assertThrows(InvocationTargetException.class, () -> evergreen.invoke(engine, active));
+        assertTrue(thrown.getCause() instanceof GameTimeoutException);
+    }
+
+    /**
+     * Tests that a card a player makes up, with an index no dealt card has,
+     * is rejected where it enters the engine.
+     * 
+     * Expected behavior:
+     * - Playing a made-up card fails with a PlayerViolationException naming the player
+     * - So does starting a turn with a made-up card in hand
+     * - Decks report the same card with a clear IllegalArgumentException
+     */
+    @Test
+    void testUndealtCardsAreRejected() throws Exception {
+        Card forged = new Card(Card.Type.BITCOIN, CardCodes.MAX_INDEX + 1);
+        AtgPlayer forger = new BigMoneyPlayer("Forger") {
+            @Override
+            public Decision makeDecision(GameState state, ImmutableList<Decision> options, Optional<Event> reason) {
+                if (state.getTurnPhase() == GameState.TurnPhase.MONEY) {
+                    return new PlayCardDecision(forged);
+                }
+                return super.makeDecision(state, options, reason);
+            }
+        };
+        GameEngine engine = (GameEngine) GameEngine.createEngine(forger, new BigMoneyPlayer("Abby"), (state, event) -> { }, 3L);
+        engine.setTraceSink(TraceSink.SILENT);
+        PlayerViolationException violation = assertThrows(PlayerViolationException.class, engine::play);
+        assertTrue(violation.getMessage().contains("Forger"));
+        assertTrue(violation.getMessage().contains("never dealt"));
+        assertTrue(engine.getLastDecider() == forger);
+
+        AtgPlayer holder = new BigMoneyPlayer("Holder");
+        GameEngine other = (GameEngine) GameEngine.createEngine(holder, new BigMoneyPlayer("Abby"), (state, event) -> { }, 3L);
+        other.setTraceSink(TraceSink.SILENT);
+        holder.setHand(new Hand(ImmutableList.of(), ImmutableList.of(forged)));
+        Method processTurn = GameEngine.class.getDeclaredMethod("processTurn", AtgPlayer.class);
+        processTurn.setAccessible(true);
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class, () -> processTurn.invoke(other, holder));
+        assertTrue(thrown.getCause() instanceof PlayerViolationException);
+        assertTrue(thrown.getCause().getMessage().contains("Holder"));
+
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class, () -> new DiscardDeck().addCard(forged));
+        assertTrue(rejected.getMessage().contains("cannot be encoded"));
+    }
+
+    /**
+     * Asks the active player for a decision, so getLastDecider() names them.
+     */
+    private static void decide(GameEngine engine, AtgPlayer player) throws Exception {
+        Method decide = GameEngine.class.getDeclaredMethod("decide", AtgPlayer.class, ImmutableList.class);
+        decide.setAccessible(true);
+        decide.invoke(engine, player, ImmutableList.of(new EndPhaseDecision(GameState.TurnPhase.ACTION)));
+        assertTrue(engine.getLastDecider() == player);
+    }
+
+    /**
+     * Tests that the game state can be read from another thread while a game is played.
+     * 
+     * Expected behavior:
+     * - Polling the state, scores and supply while the game runs never fails
+     * - Every state seen by the other thread is a finished, immutable one
+     * - After the game, the other thread sees the final scores
+     */
+    @Test
+    void testGameStateFromAnotherThread() throws Exception {
+        GameEngine engine = (GameEngine) GameEngine.createEngine(new BigMoneyPlayer("Nancy"), new BigMoneyPlayer("Abby"),
+                (state, event) -> { }, 11L);
+        engine.setTraceSink(TraceSink.SILENT);
+        List<Player.ScorePair> result = new ArrayList<>();
+        Thread game = new Thread(() -> {
+            try {
+                result.addAll(engine.play());
+            } catch (PlayerViolationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        game.start();
+        int polls = 0;
+        while (game.isAlive()) {
+            GameState state = engine.getGameState();
+            if (state != null) {
+                assertTrue(Set.of("Nancy", "Abby").contains(state.getCurrentPlayerName()));
+                assertEquals(ImmutableList.copyOf(state.getCurrentPlayerHand().getUnplayedCards()),
+                        state.getCurrentPlayerHand().getUnplayedCards());
+                assertTrue(state.getDeck().getCardTypes().size() > 0);
+            }
+            engine.getCurrentScores();
+            engine.getDeck();
+            polls++;
+        }
+        game.join();
+        assertTrue(polls > 0);
+        assertEquals(2, result.size());
+        assertEquals(result.get(0).getScore(), engine.getCurrentScores().get(0).getScore());
+        assertEquals(result.get(1).getScore(), engine.getCurrentScores().get(1).getScore());
+    }
+
+    /**
+     * Tests that a forked game can be played out without affecting the original.
+     * 
+     * Expected behavior:
+     * - The fork can be played to the end with stand-in players
+     * - The fork starts from the same supply as the original
+     * - The original game plays exactly as it would have without the fork
+     */
+    @Test
+    void testForkPlaysOutIndependently() throws Exception {
+        List<String> plainEvents = new ArrayList<>();
+        GameEngine.createEngine(new BigMoneyPlayer("Nancy"), new BigMoneyPlayer("Abby"),
+                (state, event) -> plainEvents.add(event.getDescription()), 11L).play();
+
+        List<String> forkedEvents = new ArrayList<>();
+        List<List<Player.ScorePair>> forkResults = new ArrayList<>();
+        BigMoneyPlayer forkingPlayer = new BigMoneyPlayer("Nancy") {
+            private GameEngine engine;
+
+            @Override
+            public void setScoreProvider(ScoreProvider scoreProvider) {
+                super.setScoreProvider(scoreProvider);
+                if (engine == null) {
+                    engine = (GameEngine) scoreProvider;
+                }
+            }
+
+            @Override
+            public edu.brandeis.cosi.atg.api.decisions.Decision makeDecision(GameState state,
+                    ImmutableList<edu.brandeis.cosi.atg.api.decisions.Decision> options,
+                    Optional<edu.brandeis.cosi.atg.api.event.Event> reason) {
+                if (state.getTurnPhase() == GameState.TurnPhase.BUY && forkResults.isEmpty()) {
+                    GameEngine fork = engine.fork(new BigMoneyPlayer("Nancy"), new BigMoneyPlayer("Abby"), 99L);
+                    assertEquals(engine.getDeck().getCardCounts(), fork.getDeck().getCardCounts());
+                    try {
+                        forkResults.add(fork.playOut());
+                    } catch (PlayerViolationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return super.makeDecision(state, options, reason);
+            }
+        };
+        GameEngine.createEngine(forkingPlayer, new BigMoneyPlayer("Abby"),
+                (state, event) -> forkedEvents.add(event.getDescription()), 11L).play();
+
+        assertEquals(1, forkResults.size());
+        assertEquals(2, forkResults.get(0).size());
+        assertEquals(plainEvents, forkedEvents);
+    }
+
+    /**
+     * Tests the basic deck operations on a deck that outgrows its initial array.
+     * 
+     * Expected behavior:
+     * - Cards are drawn in the reverse of the order they were added
+     * - getCards() is a read-only view that follows later changes
+     * - copyFrom() copies the cards in order, whether the copy is larger or smaller
+     * - Counts by type and category follow every add, draw, copy and move
+     */
+    @Test
+    void testPlayerDeckOperations() {
+        DrawDeck deck = new DrawDeck();
+        List<Card> cardsView = deck.getCards();
+        for (int i = 0; i < 40; i++) {
+            deck.addCard(new Card(i % 4 == 0 ? Card.Type.METHOD : Card.Type.BITCOIN, i));
+        }
+        assertEquals(40, deck.size());
+        assertEquals(40, cardsView.size());
+        assertEquals(10, deck.getVictoryPoints());
+        assertEquals(10, deck.getCount(Card.Type.METHOD));
+        assertEquals(30, deck.getCount(Card.Type.BITCOIN));
+        assertEquals(30, deck.getCount(Card.Type.Category.MONEY));
+        assertEquals(0, deck.getCount(Card.Type.Category.ACTION));
+        assertEquals(0, cardsView.get(0).getId());
+        assertThrows(UnsupportedOperationException.class, () -> cardsView.add(new Card(Card.Type.BUG, 99)));
+
+        DiscardDeck copy = new DiscardDeck();
+        copy.addCard(new Card(Card.Type.BUG, 100));
+        copy.copyFrom(deck);
+        assertEquals(deck.getCards(), copy.getCards());
+        assertEquals(10, copy.getCount(Card.Type.Category.VICTORY));
+        assertEquals(0, copy.getCount(Card.Type.BUG));
+
+        DrawDeck moved = new DrawDeck();
+        copy.moveDeck(moved);
+        assertEquals(0, copy.getCount(Card.Type.METHOD));
+        assertEquals(10, moved.getCount(Card.Type.METHOD));
+        assertEquals(30, moved.getCount(Card.Type.Category.MONEY));
+
+        for (int i = 39; i >= 0; i--) {
+            assertEquals(i, deck.drawCard().getId());
+        }
+        assertTrue(deck.isEmpty());
+        assertTrue(cardsView.isEmpty());
+        assertEquals(null, deck.drawCard());
+        assertEquals(0, deck.getVictoryPoints());
+        assertEquals(0, deck.getCount(Card.Type.Category.MONEY));
+
+        // Copying a smaller deck over a larger one leaves only the smaller deck's cards
+        moved.copyFrom(deck);
+        assertEquals(0, moved.size());
+        assertEquals(0, moved.getVictoryPoints());
+        assertEquals(0, moved.getCount(Card.Type.BITCOIN));
+    }
+
+    /**
+     * Tests moving a discard deck into a draw deck.
+     * 
+     * Expected behavior:
+     * - Into an empty deck, every card arrives and the source is left empty and reusable
+     * - Into a non-empty deck, the moved cards go on top of the cards already there
+     * - Sizes, counts and victory points follow the cards
+     */
+    @Test
+    void testMoveDeck() {
+        DiscardDeck discard = new DiscardDeck();
+        DrawDeck draw = new DrawDeck();
+        for (int i = 0; i < 5; i++) {
+            discard.addCard(new Card(Card.Type.METHOD, i));
+        }
+        discard.moveDeck(draw);
+        assertEquals(5, draw.size());
+        assertEquals(5, draw.getCount(Card.Type.METHOD));
+        assertEquals(5, draw.getVictoryPoints());
+        assertTrue(discard.isEmpty());
+        assertEquals(0, discard.getCount(Card.Type.Category.VICTORY));
+        assertEquals(0, discard.getVictoryPoints());
+
+        discard.addCard(new Card(Card.Type.BITCOIN, 10));
+        discard.addCard(new Card(Card.Type.BUG, 11));
+        discard.moveDeck(draw);
+        assertEquals(7, draw.size());
+        assertEquals(4, draw.getVictoryPoints());
+        assertEquals(1, draw.getCount(Card.Type.Category.MONEY));
+        assertTrue(discard.isEmpty());
+        Set<Integer> top = new HashSet<>();
+        top.add(draw.drawCard().getId());
+        top.add(draw.drawCard().getId());
+        assertEquals(new HashSet<>(Arrays.asList(10, 11)), top);
+        assertEquals(5, draw.size());
+    }
+
+    /**
+     * Tests lazy shuffling of a draw deck.
+     * 
+     * Expected behavior:
+     * - Every order of three cards comes out about equally often, as with a full shuffle
+     * - Cards added on top after a lazy shuffle are drawn first, in order
+     * - A lazy draw deck takes over a moved discard deck and draws every card once
+     */
+    @Test
+    void testLazyShuffle() {
+        DrawDeck deck = new DrawDeck();
+        deck.setLazyShuffle(true);
+        deck.setRandom(new SplittableRandom(5));
+        Map<String, Integer> orders = new HashMap<>();
+        for (int trial = 0; trial < 6000; trial++) {
+            for (int i = 0; i < 3; i++) {
+                deck.addCard(new Card(Card.Type.BITCOIN, i));
+            }
+            deck.shuffle();
+            String order = "" + deck.drawCard().getId() + deck.drawCard().getId() + deck.drawCard().getId();
+            orders.merge(order, 1, Integer::sum);
+        }
+        assertEquals(6, orders.size());
+        for (int count : orders.values()) {
+            assertTrue(count > 880 && count < 1120);  // About 1000 each
+        }
+
+        deck.addCard(new Card(Card.Type.METHOD, 0));
+        deck.addCard(new Card(Card.Type.METHOD, 1));
+        deck.shuffle();
+        deck.addCard(new Card(Card.Type.BUG, 2));
+        deck.addCard(new Card(Card.Type.BUG, 3));
+        assertEquals(3, deck.drawCard().getId());
+        assertEquals(2, deck.drawCard().getId());
+        assertEquals(Card.Type.METHOD, deck.drawCard().getType());
+        assertEquals(Card.Type.METHOD, deck.drawCard().getType());
+
+        DiscardDeck discard = new DiscardDeck();
+        for (int i = 0; i < 20; i++) {
+            discard.addCard(new Card(Card.Type.ETHEREUM, i));
+        }
+        discard.moveDeck(deck);
+        Set<Integer> drawn = new HashSet<>();
+        while (!deck.isEmpty()) {
+            drawn.add(deck.drawCard().getId());
+        }
+        assertEquals(20, drawn.size());
+        assertEquals(0, deck.getCount(Card.Type.ETHEREUM));
+    }
+
+    /**
+     * Tests that cards are packed into short codes and back without loss.
+     *
+     * Expected behavior:
+     * - Every type and index in range round-trips through encode and decode
+     * - Decoding returns the one shared Card for each code
+     * - Indexes outside 0..MAX_INDEX throw an IllegalArgumentException
+     * - Supply piles and decks hand out the shared Card instances
+     */
+    @Test
+    public void testCardCodes() {
+        for (Card.Type type : Card.Type.values()) {
+            for (int index : new int[] {0, 1, 511, CardCodes.MAX_INDEX}) {
+                short code = CardCodes.encode(type, index);
+                Card card = CardCodes.decode(code);
+                assertEquals(type, card.getType());
+                assertEquals(index, card.getId());
+                assertEquals(type, CardCodes.type(code));
+                assertEquals(type.getCategory() == Card.Type.Category.VICTORY ? type.getValue() : 0,
+                        CardCodes.victoryValue(code));
+                assertEquals(code, CardCodes.encode(new Card(type, index)));
+            }
+        }
+        // Decoding never allocates: every code has one shared Card
+        assertTrue(CardCodes.decode(CardCodes.encode(Card.Type.BUG, 7)) == CardCodes.card(Card.Type.BUG, 7));
+        assertThrows(IllegalArgumentException.class, () -> CardCodes.encode(Card.Type.BUG, CardCodes.MAX_INDEX + 1));
+        assertThrows(IllegalArgumentException.class, () -> CardCodes.encode(new Card(Card.Type.BUG, -1)));
+
+        // Cards handed out by supply piles and decks are the shared instances
+        SupplyPile pile = new SupplyPile(Card.Type.FRAMEWORK, 8);
+        Card taken = pile.take();
+        assertTrue(taken == CardCodes.card(Card.Type.FRAMEWORK, taken.getId()));
+        DrawDeck deck = new DrawDeck();
+        deck.addCard(new Card(Card.Type.FRAMEWORK, 3));
+        assertTrue(deck.getCards().get(0) == CardCodes.card(Card.Type.FRAMEWORK, 3));
+        assertEquals(CardCodes.encode(Card.Type.FRAMEWORK, 3), deck.drawCode());
+        assertThrows(IllegalStateException.class, deck::drawCode);
+    }
+}
@@ -16,9 +16,36 @@ import edu.brandeis.cosi.atg.api.event.*;
 import edu.brandeis.cosi.atg.api.GameState.TurnPhase;
 import edu.brandeis.cosi103a.groupb.Player.*;
 import edu.brandeis.cosi103a.groupb.Game.*;
+import edu.brandeis.cosi103a.groupb.Rating.CheckpointMismatchException;
+import edu.brandeis.cosi103a.groupb.Rating.GameRecordReader;
+import edu.brandeis.cosi103a.groupb.Rating.GameRecordSink;
+import edu.brandeis.cosi103a.groupb.Rating.HeadToHead;
+import edu.brandeis.cosi103a.groupb.Rating.Histogram;
+import edu.brandeis.cosi103a.groupb.Rating.PlayerRatingHarness;
+import edu.brandeis.cosi103a.groupb.Rating.PlayerRatingHarness.FailedGame;
+import edu.brandeis.cosi103a.groupb.Rating.PlayerRatingHarness.FailureKind;
+import edu.brandeis.cosi103a.groupb.Rating.PlayerRatingHarness.PlayerStats;
+import edu.brandeis.cosi103a.groupb.Rating.RatingMain;
+import edu.brandeis.cosi103a.groupb.Rating.RatingTable;
+import edu.brandeis.cosi103a.groupb.Rating.StoppingRule;
 import edu.brandeis.cosi.atg.api.Engine;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.lang.reflect.Method;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import com.google.gson.*;
 
 /**
  * Test class for the PlayerRatingHarness implementation.
@@ -258,4 +285,722 @@ public class HarnessTest {
         // Verify that the observer is notified of the play card event
         verify(mockObserver, times(1)).notifyEvent(any(GameState.class), any(PlayCardEvent.class));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a parallel tournament gives exactly the same statistics as a
+     * sequential one with the same seed.
+     */
+    @Test
+    public void testParallelTournamentMatchesSequential() throws Exception {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        harness.registerPlayer("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
+        harness.setSilentMode(true);
+        harness.setSeed(42);
+
+        String sequential = summarize(harness.runTournament(70));
+        String sequentialRatings = summarize(harness.getRatings());
+        String sequentialReport = harness.generateReport();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            harness.setExecutor(executor);
+            String parallel = summarize(harness.runTournament(70));
+            assertEquals(sequential, parallel, "Parallel tournament should match the sequential one");
+            assertEquals(sequentialRatings, summarize(harness.getRatings()),
+                         "Parallel ratings should match the sequential ones");
+            assertEquals(sequentialReport, harness.generateReport());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String summarize(RatingTable ratings) {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, RatingTable.Rating> entry : ratings.getRatings().entrySet()) {
+            RatingTable.Rating rating = entry.getValue();
+            summary.append(entry.getKey()).append(' ').append(rating.getElo()).append(' ').append(rating.getGlicko())
+                   .append(' ').append(rating.getDeviation()).append(' ').append(rating.getVolatility()).append('\n');
+        }
+        return summary.toString();
+    }
+
+    private static String summarize(Map<String, PlayerStats> stats) {
+        StringBuilder summary = new StringBuilder();
+        for (String name : new TreeSet<>(stats.keySet())) {
+            PlayerStats s = stats.get(name);
+            summary.append(name).append(' ').append(s.getLosses()).append(' ').append(s.getWinRate())
+                   .append(' ').append(s.getAverageScore()).append(' ').append(s.getAveragePointDifferential()).append('\n');
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Tests paired mode: each deal is played from both seats, so every game
+     * belongs to exactly one pair, and the pair scores of the two players add
+     * up to one per pair.
+     */
+    @Test
+    public void testPairedGames() {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        harness.setSilentMode(true);
+        harness.setSeed(7);
+        harness.setPairedGames(true);
+
+        // 9 games round up to 5 pairs
+        Map<String, PlayerStats> stats = harness.runTournament(9);
+        PlayerStats bigMoney = stats.get("BigMoney");
+        PlayerStats redEye = stats.get("RedEye");
+
+        assertEquals(5, bigMoney.getPairsPlayed());
+        assertEquals(5, redEye.getPairsPlayed());
+        assertEquals(1.0, bigMoney.getPairedScore() + redEye.getPairedScore(), 1e-9);
+        assertTrue(harness.generateReport().contains("Pair Score"));
+    }
+
+    /**
+     * Tests the sequential probability ratio test: lopsided results stop the
+     * pairing, even results do not, and nothing stops before the minimum.
+     */
+    @Test
+    public void testStoppingRule() {
+        StoppingRule rule = new StoppingRule(0.05, 0.05, 0.1, 20);
+
+        assertEquals(1, rule.decide(30, 25));
+        assertEquals(-1, rule.decide(30, 5));
+        assertEquals(0, rule.decide(30, 15));
+        assertEquals(0, rule.decide(10, 10), "No decision before the minimum number of games");
+
+        double[] interval = StoppingRule.confidenceInterval(100, 70);
+        assertTrue(interval[0] < 0.7 && 0.7 < interval[1]);
+        assertTrue(interval[0] > 0.6 && interval[1] < 0.8);
+    }
+
+    /**
+     * Tests adaptive mode: the tournament stays within the fixed-mode budget,
+     * a lopsided pairing is decided, and the report shows each pairing's
+     * confidence interval.
+     */
+    @Test
+    public void testAdaptiveTournament() {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        harness.registerPlayer("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
+        harness.setSilentMode(true);
+        harness.setSeed(11);
+        harness.setStoppingRule(new StoppingRule());
+
+        Map<String, PlayerStats> stats = harness.runTournament(150);
+
+        int totalGames = 0;
+        for (PlayerStats s : stats.values()) {
+            totalGames += s.getGamesPlayed();
+        }
+        // Every game is counted once for each of its two players
+        assertTrue(totalGames / 2 <= 3 * 150, "Adaptive mode should stay within the budget");
+
+        String report = harness.generateReport();
+        assertTrue(report.contains("MATCHUPS"));
+        assertTrue(report.contains("95% CI"));
+        assertTrue(report.contains("FinalBossBot stronger"), report);
+    }
+
+    /**
+     * Tests the adaptive mode's console output: the header and the progress
+     * lines give the real cap, which is the shared budget the other pairings
+     * have not used, and the games actually played are printed once each
+     * pairing ends.
+     */
+    @Test
+    public void testAdaptiveTournamentReportsGamesPlayed() {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        harness.registerPlayer("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
+        harness.setSeed(11);
+        harness.setStoppingRule(new StoppingRule());
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        Map<String, PlayerStats> stats;
+        System.setOut(new PrintStream(captured));
+        try {
+            stats = harness.runTournament(60);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = captured.toString();
+
+        // The first pairing may use the whole budget of 3 * 60 games
+        assertTrue(output.contains("Running up to 180 games between BigMoney and RedEye"), "Expected the real cap");
+        Matcher progress = Pattern.compile("Game (\\d+) of up to (\\d+)").matcher(output);
+        int mostPlayed = 0;
+        while (progress.find()) {
+            int game = Integer.parseInt(progress.group(1));
+            assertTrue(game <= Integer.parseInt(progress.group(2)), progress.group());
+            mostPlayed = Math.max(mostPlayed, game);
+        }
+        assertTrue(mostPlayed > 60, "Expected a close pairing to use the budget the others left");
+
+        Matcher played = Pattern.compile("Played (\\d+) games between \\S+ and \\S+: (.*)").matcher(output);
+        int totalPlayed = 0;
+        int pairings = 0;
+        while (played.find()) {
+            totalPlayed += Integer.parseInt(played.group(1));
+            pairings++;
+        }
+        assertEquals(3, pairings, "Expected the games played when each pairing ended");
+        int totalGames = 0;
+        for (PlayerStats s : stats.values()) {
+            totalGames += s.getGamesPlayed();
+        }
+        assertEquals(totalGames / 2, totalPlayed);
+        assertTrue(totalPlayed <= 180);
+    }
+
+    /**
+     * Tests the rating updates: a win between equal players moves both Elo
+     * ratings by the same amount in opposite directions, and Glicko-2
+     * deviations shrink as games are played.
+     */
+    @Test
+    public void testRatingTable() {
+        RatingTable table = new RatingTable();
+        table.addPlayer("A");
+        table.addPlayer("B");
+        table.recordGame("A", "B", 1);
+
+        RatingTable.Rating a = table.getRating("A");
+        RatingTable.Rating b = table.getRating("B");
+        assertEquals(1508, a.getElo(), 1e-9);
+        assertEquals(1492, b.getElo(), 1e-9);
+        assertTrue(a.getGlicko() > RatingTable.INITIAL_RATING);
+        assertTrue(b.getGlicko() < RatingTable.INITIAL_RATING);
+        assertTrue(a.getDeviation() < RatingTable.INITIAL_DEVIATION);
+
+        for (int i = 0; i < 50; i++) {
+            table.recordGame("A", "B", 1);
+        }
+        assertEquals(List.of("A", "B"), new ArrayList<>(table.getRatings().keySet()));
+        assertTrue(table.getRating("A").getDeviation() < a.getDeviation());
+        assertEquals(51, table.getRating("A").getGames());
+    }
+
+    /**
+     * Tests that the report is ordered by rating and shows the ratings.
+     */
+    @Test
+    public void testReportSortedByRating() {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        harness.registerPlayer("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
+        harness.setSilentMode(true);
+        harness.setSeed(3);
+        harness.runTournament(40);
+
+        Map<String, RatingTable.Rating> ratings = harness.getRatings().getRatings();
+        String best = ratings.keySet().iterator().next();
+        assertEquals("FinalBossBot", best);
+
+        String report = harness.generateReport();
+        assertTrue(report.contains("Rating"));
+        assertTrue(report.indexOf("FinalBossBot") < report.indexOf("RedEye"));
+    }
+
+    /**
+     * Tests the head-to-head matrix: each pairing's counts agree with the
+     * players' overall statistics, both sides of a pairing mirror each other,
+     * and the CSV export has one row per ordered pair.
+     */
+    @Test
+    public void testHeadToHead() throws Exception {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        harness.registerPlayer("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
+        harness.setSilentMode(true);
+        harness.setSeed(13);
+        harness.setPairedGames(true);
+
+        Map<String, PlayerStats> stats = harness.runTournament(20);
+        HeadToHead headToHead = harness.getHeadToHead();
+
+        assertEquals(3, headToHead.size());
+        for (int i = 0; i < 3; i++) {
+            PlayerStats player = stats.get(headToHead.getName(i));
+            int games = 0, wins = 0, ties = 0;
+            for (int j = 0; j < 3; j++) {
+                if (i == j) {
+                    continue;
+                }
+                assertEquals(20, headToHead.getGames(i, j));
+                assertEquals(headToHead.getWins(i, j), headToHead.getLosses(j, i));
+                assertEquals(-headToHead.getMeanPointDifferential(i, j), headToHead.getMeanPointDifferential(j, i), 1e-9);
+                assertEquals(headToHead.getMeanGameLength(i, j), headToHead.getMeanGameLength(j, i), 1e-9);
+                assertTrue(headToHead.getMeanGameLength(i, j) > 1);
+                games += headToHead.getGames(i, j);
+                wins += headToHead.getWins(i, j);
+                ties += headToHead.getTies(i, j);
+            }
+            assertEquals(player.getGamesPlayed(), games);
+            assertEquals(player.getWins(), wins);
+            assertEquals(player.getTies(), ties);
+        }
+
+        StringBuilder csv = new StringBuilder();
+        headToHead.writeCsv(csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(7, lines.length, "Expected a header and one row per ordered pair");
+        assertTrue(lines[0].startsWith("player,opponent,games,wins,losses,ties"));
+        assertTrue(harness.generateReport().contains("Avg Rounds"));
+    }
+
+    /**
+     * Tests the unattended command line mode: a run writes a JSON summary with
+     * every chosen player, and bad arguments are rejected with status 2.
+     */
+    @Test
+    public void testBatchCommandLine() throws Exception {
+        Path out = Files.createTempFile("ratings", ".json");
+        Path headToHead = Files.createTempFile("head-to-head", ".csv");
+        try {
+            int status = RatingMain.runBatch(new String[] {
+                "--players", "BigMoney,RedEye", "--games", "6", "--threads", "2", "--seed", "42",
+                "--format", "json", "--out", out.toString(), "--head-to-head", headToHead.toString()
+            });
+            assertEquals(0, status);
+
+            JsonObject summary = JsonParser.parseString(Files.readString(out)).getAsJsonObject();
+            assertEquals(42, summary.get("seed").getAsLong());
+            JsonArray players = summary.getAsJsonArray("players");
+            assertEquals(2, players.size());
+            for (JsonElement player : players) {
+                assertEquals(6, player.getAsJsonObject().get("games").getAsInt());
+            }
+            assertEquals(3, Files.readAllLines(headToHead).size());
+        } finally {
+            Files.deleteIfExists(out);
+            Files.deleteIfExists(headToHead);
+        }
+
+        assertEquals(2, RatingMain.runBatch(new String[] {"--players", "BigMoney,Nobody"}));
+        assertEquals(2, RatingMain.runBatch(new String[] {"--games", "many"}));
+        assertEquals(2, RatingMain.runBatch(new String[] {"--format"}));
+    }
+
+    /**
+     * Tests that a batch summary reports the MCTS player's searches, and that
+     * a checkpoint which does not fit the arguments fails with status 3
+     * rather than as an output error.
+     */
+    @Test
+    public void testBatchReportsSearchesAndRefusedCheckpoint() throws Exception {
+        Path out = Files.createTempFile("ratings", ".csv");
+        Path checkpoint = Files.createTempFile("tournament", ".ckpt");
+        try {
+            assertEquals(0, RatingMain.runBatch(new String[] {
+                "--players", "BigMoney,MCTS", "--games", "2", "--seed", "5", "--format", "csv", "--out", out.toString()
+            }));
+            List<String> lines = Files.readAllLines(out);
+            assertTrue(lines.get(0).endsWith(",rollouts,rollouts_per_second"));
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(",");
+                long rollouts = Long.parseLong(fields[16]);
+                double perSecond = Double.parseDouble(fields[17]);
+                if (fields[0].equals("MCTS")) {
+                    assertTrue(rollouts > 0 && perSecond > 0, "Expected the MCTS player's searches: " + line);
+                } else {
+                    assertEquals(0, rollouts, "Only MCTS players search: " + line);
+                }
+            }
+
+            Files.writeString(checkpoint, "not a checkpoint");
+            assertEquals(3, RatingMain.runBatch(new String[] {
+                "--players", "BigMoney,RedEye", "--games", "2", "--checkpoint", checkpoint.toString(),
+                "--out", out.toString()
+            }));
+        } finally {
+            Files.deleteIfExists(out);
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    /**
+     * Tests checkpoints: a tournament that crashes part way through resumes
+     * from its last checkpoint and ends with exactly the results of a run
+     * that was never interrupted, tournaments with other settings refuse the
+     * checkpoint, and it is deleted once the tournament finishes.
+     */
+    @Test
+    public void testCheckpointResume() throws Exception {
+        PlayerRatingHarness reference = checkpointHarness(() -> new RedEyePlayer("RedEye"));
+        ByteArrayOutputStream referenceBytes = new ByteArrayOutputStream();
+        GameRecordSink referenceSink = new GameRecordSink(referenceBytes);
+        reference.setGameRecordSink(referenceSink);
+        String expected = summarize(reference.runTournament(60));
+        referenceSink.close();
+
+        Path checkpoint = Files.createTempFile("tournament", ".ckpt");
+        Files.delete(checkpoint);
+        Path records = Files.createTempFile("tournament", ".records");
+        try {
+            // RedEye fails after 50 games, in the middle of a round, on one of the executor's threads
+            AtomicInteger created = new AtomicInteger();
+            PlayerRatingHarness crashing = checkpointHarness(() -> {
+                if (created.incrementAndGet() > 50) {
+                    throw new IllegalStateException("simulated crash");
+                }
+                return new RedEyePlayer("RedEye");
+            });
+            crashing.setCheckpoint(checkpoint, 0);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try (GameRecordSink sink = new GameRecordSink(records)) {
+                crashing.setGameRecordSink(sink);
+                crashing.setExecutor(executor);
+                // The batch's own exception comes through, not a CompletionException
+                IllegalStateException crash = assertThrows(IllegalStateException.class,
+                                                           () -> crashing.runTournament(60));
+                assertEquals("simulated crash", crash.getMessage());
+            } finally {
+                executor.shutdown();
+            }
+            assertTrue(Files.exists(checkpoint));
+
+            // Tournaments with different settings refuse the checkpoint
+            PlayerRatingHarness moreGames = checkpointHarness(() -> new RedEyePlayer("RedEye"));
+            moreGames.setCheckpoint(checkpoint, 0);
+            assertThrows(CheckpointMismatchException.class, () -> moreGames.runTournament(80));
+            PlayerRatingHarness otherRule = checkpointHarness(() -> new RedEyePlayer("RedEye"));
+            otherRule.setStoppingRule(new StoppingRule(0.01, 0.01, 0.03, 20));
+            otherRule.setCheckpoint(checkpoint, 0);
+            assertThrows(CheckpointMismatchException.class, () -> otherRule.runTournament(60));
+            PlayerRatingHarness timeLimit = checkpointHarness(() -> new RedEyePlayer("RedEye"));
+            timeLimit.setGameTimeLimit(10_000);
+            timeLimit.setCheckpoint(checkpoint, 0);
+            assertThrows(CheckpointMismatchException.class, () -> timeLimit.runTournament(60));
+
+            // A record file that another run appended to, or that was cut, is left alone
+            Path checkpointCopy = Files.createTempFile("tournament", ".ckpt");
+            Path recordsCopy = Files.createTempFile("tournament", ".records");
+            try {
+                Files.copy(records, recordsCopy, StandardCopyOption.REPLACE_EXISTING);
+                try (GameRecordSink sink = new GameRecordSink(recordsCopy)) {
+                    sink.record(99, 1, "BigMoney", "FinalBossBot", 10, 8, 20,
+                                new int[Card.Type.values().length], new int[Card.Type.values().length]);
+                }
+                long appended = Files.size(recordsCopy);
+                Files.copy(checkpoint, checkpointCopy, StandardCopyOption.REPLACE_EXISTING);
+                PlayerRatingHarness afterOtherRun = checkpointHarness(() -> new RedEyePlayer("RedEye"));
+                afterOtherRun.setCheckpoint(checkpointCopy, 0);
+                try (GameRecordSink sink = new GameRecordSink(recordsCopy)) {
+                    afterOtherRun.setGameRecordSink(sink);
+                    assertThrows(CheckpointMismatchException.class, () -> afterOtherRun.runTournament(60));
+                }
+                assertEquals(appended, Files.size(recordsCopy));
+
+                Files.write(recordsCopy, new byte[0]);
+                PlayerRatingHarness afterCut = checkpointHarness(() -> new RedEyePlayer("RedEye"));
+                afterCut.setCheckpoint(checkpointCopy, 0);
+                try (GameRecordSink sink = new GameRecordSink(recordsCopy)) {
+                    afterCut.setGameRecordSink(sink);
+                    assertThrows(CheckpointMismatchException.class, () -> afterCut.runTournament(60));
+                }
+            } finally {
+                Files.deleteIfExists(checkpointCopy);
+                Files.deleteIfExists(recordsCopy);
+            }
+
+            PlayerRatingHarness resumed = checkpointHarness(() -> new RedEyePlayer("RedEye"));
+            resumed.setSeed(1234);  // The checkpoint's seed takes precedence
+            resumed.setCheckpoint(checkpoint, 0);
+            try (GameRecordSink sink = new GameRecordSink(records)) {
+                resumed.setGameRecordSink(sink);
+                assertEquals(expected, summarize(resumed.runTournament(60)));
+            }
+            // Games played after the last checkpoint were dropped from the file before being replayed
+            assertEquals(recordedSeeds(new ByteArrayInputStream(referenceBytes.toByteArray())),
+                         recordedSeeds(Files.newInputStream(records)));
+            assertEquals(reference.getSeed(), resumed.getSeed());
+            assertEquals(reference.getRatings().getRating("RedEye").getGlicko(),
+                         resumed.getRatings().getRating("RedEye").getGlicko(), 1e-9);
+
+            // A finished tournament leaves no checkpoint for the next run to adopt
+            assertFalse(Files.exists(checkpoint));
+        } finally {
+            Files.deleteIfExists(checkpoint);
+            Files.deleteIfExists(records);
+        }
+    }
+
+    /**
+     * Reads the seeds of all games in a record file, sorted.
+     */
+    private static List<Long> recordedSeeds(InputStream stream) throws IOException {
+        List<Long> seeds = new ArrayList<>();
+        try (GameRecordReader reader = new GameRecordReader(stream)) {
+            while (reader.nextBlock()) {
+                for (int i = 0; i < reader.size(); i++) {
+                    seeds.add(reader.getSeed(i));
+                }
+            }
+        }
+        Collections.sort(seeds);
+        return seeds;
+    }
+
+    private static PlayerRatingHarness checkpointHarness(java.util.function.Supplier<AtgPlayer> redEye) {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("RedEye", redEye);
+        harness.setSilentMode(true);
+        harness.setSeed(21);
+        harness.setStoppingRule(new StoppingRule(0.01, 0.01, 0.02, 20));
+        return harness;
+    }
+
+    /**
+     * Tests the game record file: every game is written once, in blocks that
+     * read back with the same scores the statistics were built from.
+     */
+    @Test
+    public void testGameRecords() throws Exception {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("FinalBossBot", () -> new FinalBossPlayer("FinalBossBot"));
+        harness.setSilentMode(true);
+        harness.setSeed(17);
+        harness.setPairedGames(true);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GameRecordSink sink = new GameRecordSink(bytes);
+        harness.setGameRecordSink(sink);
+        Map<String, PlayerStats> stats = harness.runTournament(30);
+        sink.close();
+        assertEquals(30, sink.getRecordCount());
+
+        int games = 0;
+        double bigMoneyScore = 0;
+        Set<Long> seeds = new HashSet<>();
+        try (GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            while (reader.nextBlock()) {
+                for (int i = 0; i < reader.size(); i++) {
+                    games++;
+                    seeds.add(reader.getSeed(i));
+                    assertTrue(reader.getFirstPlayer(i) == 1 || reader.getFirstPlayer(i) == 2);
+                    assertTrue(reader.getTurns(i) > 1);
+                    int player = reader.getName(1, i).equals("BigMoney") ? 1 : 2;
+                    assertEquals("FinalBossBot", reader.getName(3 - player, i));
+                    bigMoneyScore += reader.getScore(player, i);
+                    // BigMoney never buys an action card, and both players buy money
+                    assertEquals(0, reader.getCardsBought(player, Card.Type.HACK, i));
+                    assertTrue(reader.getCardsBought(player, Card.Type.ETHEREUM, i)
+                               + reader.getCardsBought(player, Card.Type.DOGECOIN, i) > 0);
+                }
+            }
+        }
+        assertEquals(30, games);
+        assertEquals(15, seeds.size(), "Each deal is played from both seats");
+        assertEquals(stats.get("BigMoney").getAverageScore() * 30, bigMoneyScore, 1e-6);
+    }
+
+    /**
+     * Tests that a sink opened on a file whose last block was cut short drops
+     * that block, so its own blocks read back after the complete ones, and
+     * that it refuses a file that is not a record file.
+     */
+    @Test
+    public void testGameRecordsAfterPartialBlock() throws Exception {
+        int[] bought = new int[Card.Type.values().length];
+        Path records = Files.createTempFile("records", ".bin");
+        try {
+            try (GameRecordSink sink = new GameRecordSink(records)) {
+                sink.record(1, 1, "BigMoney", "RedEye", 10, 8, 20, bought, bought);
+            }
+            // A run killed while writing its block leaves part of it behind
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            try (GameRecordSink sink = new GameRecordSink(block)) {
+                sink.record(2, 2, "BigMoney", "RedEye", 12, 6, 22, bought, bought);
+            }
+            byte[] bytes = block.toByteArray();
+            Files.write(records, Arrays.copyOf(bytes, bytes.length / 2), StandardOpenOption.APPEND);
+
+            try (GameRecordSink sink = new GameRecordSink(records)) {
+                sink.record(3, 1, "BigMoney", "RedEye", 9, 11, 18, bought, bought);
+            }
+            assertEquals(List.of(1L, 3L), recordedSeeds(Files.newInputStream(records)));
+
+            Files.write(records, "not a record file".getBytes());
+            assertThrows(IOException.class, () -> new GameRecordSink(records));
+        } finally {
+            Files.deleteIfExists(records);
+        }
+    }
+
+    /**
+     * Tests the histograms: percentiles, merging, values outside the range,
+     * and that the tournament fills one entry per game.
+     */
+    @Test
+    public void testHistograms() {
+        Histogram a = new Histogram(0, 9);
+        Histogram b = new Histogram(0, 9);
+        for (int v = 0; v < 5; v++) {
+            a.record(v);
+        }
+        for (int v = 5; v < 10; v++) {
+            b.record(v);
+        }
+        b.record(100);  // Counted as 9
+        b.record(-3);   // Counted as 0
+        a.merge(b);
+
+        assertEquals(12, a.getCount());
+        assertEquals(2, a.getCount(0));
+        assertEquals(2, a.getCount(9));
+        assertEquals(0, a.getPercentile(0));
+        assertEquals(4, a.getPercentile(0.5));  // Sixth of 0, 0, 1, ..., 9, 9
+        assertEquals(9, a.getPercentile(1));
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new Histogram(0, 5)));
+
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("RedEye", () -> new RedEyePlayer("RedEye"));
+        harness.setSilentMode(true);
+        harness.setSeed(19);
+        PlayerStats stats = harness.runTournament(25).get("BigMoney");
+
+        assertEquals(25, stats.getScoreHistogram().getCount());
+        assertEquals(25, stats.getPointDifferentialHistogram().getCount());
+        assertEquals(25, stats.getTurnsHistogram().getCount());
+        Histogram scores = stats.getScoreHistogram();
+        assertTrue(scores.getPercentile(0.1) <= scores.getPercentile(0.5)
+                   && scores.getPercentile(0.5) <= scores.getPercentile(0.9));
+        assertTrue(harness.generateReport().contains("Score p10/50/90"));
+    }
+
+    /**
+     * Tests that failed games are counted against the player at fault, per
+     * player and per pairing, and that the kept seeds replay the failure.
+     */
+    @Test
+    public void testFailedGames() {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        // Plays a card in the buy phase, which the engine rejects
+        harness.registerPlayer("Cheater", () -> new BigMoneyPlayer("Cheater") {
+            @Override
+            public Decision makeDecision(GameState state, ImmutableList<Decision> options, Optional<Event> reason) {
+                if (state.getTurnPhase() == TurnPhase.BUY) {
+                    return new PlayCardDecision(new Card(Card.Type.BITCOIN, 0));
+                }
+                return super.makeDecision(state, options, reason);
+            }
+        });
+        harness.registerPlayer("Crasher", () -> new BigMoneyPlayer("Crasher") {
+            @Override
+            public Decision makeDecision(GameState state, ImmutableList<Decision> options, Optional<Event> reason) {
+                throw new IllegalStateException("strategy bug");
+            }
+        });
+        harness.setSilentMode(true);
+        harness.setSeed(23);
+
+        Map<String, PlayerStats> stats = harness.runTournament(12);
+
+        // Against each other, whoever decides wrongly first ends the game
+        int violations = stats.get("Cheater").getViolations();
+        int exceptions = stats.get("Crasher").getExceptions();
+        assertEquals(36, violations + exceptions);
+        assertTrue(violations >= 12 && exceptions >= 12);
+        assertEquals(0, stats.get("Cheater").getExceptions() + stats.get("Crasher").getViolations());
+        assertEquals(0, stats.get("BigMoney").getViolations() + stats.get("BigMoney").getExceptions());
+        assertEquals(0, stats.get("Cheater").getGamesPlayed());
+
+        List<FailedGame> failed = harness.getFailedGames();
+        assertEquals(30, failed.size(), "Ten failed games are kept per pairing");
+        FailedGame first = failed.get(0);
+        assertEquals("Cheater", first.getPlayerAtFault());
+        assertEquals(FailureKind.VIOLATION, first.getKind());
+        Engine replay = GameEngine.createEngine(new BigMoneyPlayer(first.getPlayer1()),
+            new BigMoneyPlayer(first.getPlayer2()) {
+                @Override
+                public Decision makeDecision(GameState state, ImmutableList<Decision> options, Optional<Event> reason) {
+                    return state.getTurnPhase() == TurnPhase.BUY ? new PlayCardDecision(new Card(Card.Type.BITCOIN, 0))
+                                                                 : super.makeDecision(state, options, reason);
+                }
+            }, mock(GameObserver.class), first.getSeed());
+        assertThrows(PlayerViolationException.class, replay::play);
+
+        String report = harness.generateReport();
+        assertTrue(report.contains("FAILED GAMES"));
+        assertTrue(report.contains("seed " + first.getSeed()));
+    }
+
+    /**
+     * Tests that an exception thrown outside the players' decisions is
+     * reported as an engine error and charged to neither player.
+     */
+    @Test
+    public void testEngineErrorsAreNotCharged() {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        // Breaks the engine the first time it hands over a hand, before anyone has decided
+        harness.registerPlayer("Broken", () -> new BigMoneyPlayer("Broken") {
+            @Override
+            public void setHand(Hand hand) {
+                throw new ArrayIndexOutOfBoundsException("simulated engine bug");
+            }
+        });
+        harness.setSilentMode(true);
+        harness.setSeed(29);
+
+        Map<String, PlayerStats> stats = harness.runTournament(4);
+
+        for (PlayerStats s : stats.values()) {
+            assertEquals(0, s.getViolations() + s.getExceptions() + s.getTimeouts());
+            assertEquals(0, s.getGamesPlayed());
+        }
+        List<FailedGame> failed = harness.getFailedGames();
+        assertEquals(4, failed.size());
+        for (FailedGame game : failed) {
+            assertEquals(FailureKind.ENGINE_ERROR, game.getKind());
+            assertNull(game.getPlayerAtFault());
+        }
+        assertTrue(harness.generateReport().contains("engine_error (simulated engine bug)"));
+        assertTrue(harness.generateJsonSummary().contains("\"engineErrors\": 4"));
+    }
+
+    /**
+     * Tests the game time limit: a slow player's games are abandoned and
+     * counted as timeouts.
+     */
+    @Test
+    public void testGameTimeLimit() {
+        PlayerRatingHarness harness = new PlayerRatingHarness();
+        harness.registerPlayer("BigMoney", () -> new BigMoneyPlayer("BigMoney"));
+        harness.registerPlayer("Sleepy", () -> new BigMoneyPlayer("Sleepy") {
+            @Override
+            public Decision makeDecision(GameState state, ImmutableList<Decision> options, Optional<Event> reason) {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.makeDecision(state, options, reason);
+            }
+        });
+        harness.setSilentMode(true);
+        harness.setSeed(29);
+        harness.setGameTimeLimit(1);
+
+        Map<String, PlayerStats> stats = harness.runTournament(3);
+
+        assertEquals(3, stats.get("Sleepy").getTimeouts() + stats.get("BigMoney").getTimeouts());
+        assertEquals(0, stats.get("Sleepy").getGamesPlayed());
+        assertEquals(FailureKind.TIMEOUT, harness.getFailedGames().get(0).getKind());
+    }
+}
@@ -0,0 +1,230 @@
+package edu.brandeis.cosi103a.groupb;
+
+import com.google.common.collect.*;
+
+import edu.brandeis.cosi.atg.api.*;
+import edu.brandeis.cosi.atg.api.cards.Card;
+import edu.brandeis.cosi.atg.api.decisions.*;
+import edu.brandeis.cosi103a.groupb.Game.GameEngine;
+import edu.brandeis.cosi103a.groupb.Game.TraceSink;
+import edu.brandeis.cosi103a.groupb.Player.AtgPlayer;
+import edu.brandeis.cosi103a.groupb.Player.BigMoneyPlayer;
+import edu.brandeis.cosi103a.groupb.Player.MctsPlayer;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the MctsPlayer implementation.
+ *
+ * The non-search decisions are checked like the other players' strategies;
+ * the search is checked on a position where one purchase always wins.
+ */
+public class MctsPlayerTest {
+
+    /**
+     * Tests that money cards are played during the MONEY phase.
+     */
+    @Test
+    public void testPlaysMoneyCards() {
+        MctsPlayer player = new MctsPlayer("Monte");
+        Hand hand = new Hand(ImmutableList.of(), ImmutableList.of(new Card(Card.Type.BITCOIN, 1)));
+        GameState state = new GameState(player.getName(), hand, GameState.TurnPhase.MONEY, 0, 0, 1, new GameDeck(ImmutableMap.of()));
+
+        List<Decision> options = new ArrayList<>();
+        options.add(new PlayCardDecision(new Card(Card.Type.BITCOIN, 1)));
+        options.add(new EndPhaseDecision(GameState.TurnPhase.MONEY));
+
+        Decision decision = player.makeDecision(state, ImmutableList.copyOf(options), Optional.empty());
+
+        assertTrue(decision instanceof PlayCardDecision, "Expected the money card to be played.");
+    }
+
+    /**
+     * Tests optional discards (as for BACKLOG): victory cards are discarded,
+     * money cards are kept.
+     */
+    @Test
+    public void testDiscardsOnlyVictoryCards() {
+        MctsPlayer player = new MctsPlayer("Monte");
+        Card method = new Card(Card.Type.METHOD, 1);
+        Card bitcoin = new Card(Card.Type.BITCOIN, 2);
+        Hand hand = new Hand(ImmutableList.of(), ImmutableList.of(method, bitcoin));
+        GameState state = new GameState(player.getName(), hand, GameState.TurnPhase.ACTION, 1, 0, 1, new GameDeck(ImmutableMap.of()));
+
+        List<Decision> options = new ArrayList<>();
+        options.add(new DiscardCardDecision(bitcoin));
+        options.add(new DiscardCardDecision(method));
+        options.add(new EndPhaseDecision(GameState.TurnPhase.DISCARD));
+        Decision decision = player.makeDecision(state, ImmutableList.copyOf(options), Optional.empty());
+        assertTrue(decision instanceof DiscardCardDecision discard && discard.getCard().equals(method),
+            "Expected the victory card to be discarded first.");
+
+        options.remove(1);
+        decision = player.makeDecision(state, ImmutableList.copyOf(options), Optional.empty());
+        assertTrue(decision instanceof EndPhaseDecision, "Expected money cards to be kept.");
+    }
+
+    /**
+     * Tests the search on a position where buying the last FRAMEWORK wins the
+     * game outright, while waiting lets an opponent with a strong money deck
+     * catch up. Also checks that the search runs exactly the configured number
+     * of rollouts.
+     */
+    @Test
+    public void testSearchTakesWinningPurchase() {
+        MctsPlayer player = new MctsPlayer("Monte", 400, 0, ForkJoinPool.commonPool());
+        int id = 0;
+        for (int i = 0; i < 7; i++) {
+            player.getDrawDeck().addCard(new Card(Card.Type.BITCOIN, id++));
+        }
+        for (int i = 0; i < 3; i++) {
+            player.getDrawDeck().addCard(new Card(Card.Type.METHOD, id++));
+        }
+        for (int i = 0; i < 4; i++) {
+            player.getDiscardDeck().addCard(new Card(Card.Type.FRAMEWORK, id++));
+        }
+
+        // Standard supply after both starting decks were dealt; the opponent holds
+        // the other three FRAMEWORKs and ten DOGECOINs
+        Map<Card.Type, Integer> counts = new HashMap<>(GameEngine.createGameDeck().getCardCounts());
+        counts.put(Card.Type.BITCOIN, counts.get(Card.Type.BITCOIN) - 14);
+        counts.put(Card.Type.METHOD, counts.get(Card.Type.METHOD) - 6);
+        counts.put(Card.Type.DOGECOIN, counts.get(Card.Type.DOGECOIN) - 10);
+        counts.put(Card.Type.FRAMEWORK, 1);
+        Hand hand = new Hand(ImmutableList.of(), ImmutableList.of());
+        GameState state = new GameState(player.getName(), hand, GameState.TurnPhase.BUY, 0, 8, 1,
+            new GameDeck(ImmutableMap.copyOf(counts)));
+
+        List<Decision> options = new ArrayList<>();
+        options.add(new BuyDecision(Card.Type.DOGECOIN));
+        options.add(new BuyDecision(Card.Type.FRAMEWORK));
+        options.add(new EndPhaseDecision(GameState.TurnPhase.BUY));
+
+        MctsPlayer.resetProcessTotals();
+        Decision decision = player.makeDecision(state, ImmutableList.copyOf(options), Optional.empty());
+
+        assertTrue(decision instanceof BuyDecision buy && buy.getCardType() == Card.Type.FRAMEWORK,
+            "Buying the last FRAMEWORK wins the game and should be chosen.");
+        assertEquals(400, player.getRolloutCount(), "Expected the full rollout budget to be used.");
+        assertTrue(player.getRolloutsPerSecond() > 0, "Expected the search speed to be recorded.");
+        assertEquals(400, MctsPlayer.getProcessRollouts());
+        assertTrue(MctsPlayer.getProcessRolloutsPerSecond() > 0, "Expected the process speed to be recorded.");
+    }
+
+    /**
+     * Tests how the search tree steps the model between BUY decisions: a
+     * purchase with buys left stays with the same player, and the game only
+     * ends once their turn is over.
+     */
+    @Test
+    public void testModelStepsBetweenPurchases() throws Exception {
+        MctsPlayer player = new MctsPlayer("Monte", 10, 0, ForkJoinPool.commonPool(), 1L);
+        Map<Card.Type, Integer> counts = new HashMap<>(GameEngine.createGameDeck().getCardCounts());
+        counts.put(Card.Type.FRAMEWORK, 2);
+        Hand hand = new Hand(ImmutableList.of(), ImmutableList.of());
+        GameState state = new GameState(player.getName(), hand, GameState.TurnPhase.BUY, 0, 16, 2,
+            new GameDeck(ImmutableMap.copyOf(counts)));
+        Method buildRoot = MctsPlayer.class.getDeclaredMethod("buildRoot", GameState.class);
+        buildRoot.setAccessible(true);
+        Object model = buildRoot.invoke(player, state);
+        Class<?> modelClass = model.getClass();
+        Method legalPurchases = modelClass.getDeclaredMethod("legalPurchases", int[].class);
+        Method applyPurchase = modelClass.getDeclaredMethod("applyPurchase", int.class, RandomGenerator.class);
+        Method isOver = modelClass.getDeclaredMethod("isOver");
+        Field current = modelClass.getDeclaredField("current");
+        legalPurchases.setAccessible(true);
+        applyPurchase.setAccessible(true);
+        isOver.setAccessible(true);
+        current.setAccessible(true);
+        SplittableRandom random = new SplittableRandom(1);
+
+        int[] legal = new int[Card.Type.values().length + 1];
+        int count = (int) legalPurchases.invoke(model, legal);
+        assertEquals(-1, legal[0], "Buying nothing should always be legal.");
+        assertTrue(Arrays.stream(legal, 0, count).anyMatch(t -> t == Card.Type.FRAMEWORK.ordinal()));
+
+        applyPurchase.invoke(model, Card.Type.FRAMEWORK.ordinal(), random);
+        assertEquals(0, current.getInt(model), "A buy was left, so the same player should decide again.");
+        applyPurchase.invoke(model, Card.Type.FRAMEWORK.ordinal(), random);
+        assertTrue((boolean) isOver.invoke(model), "The last FRAMEWORK was bought, so the game should be over.");
+        assertEquals(1, current.getInt(model));
+    }
+
+    /**
+     * Tests that a game with an MCTS player replays exactly from the engine's
+     * seed, with no seed given to the player.
+     */
+    @Test
+    public void testSeededGameReplays() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            List<String> games = new ArrayList<>();
+            for (int run = 0; run < 2; run++) {
+                GameEngine engine = (GameEngine) GameEngine.createEngine(new MctsPlayer("Monte", 40, 0, pool),
+                    new BigMoneyPlayer("Nancy"), (state, event) -> { }, 99L);
+                engine.setTraceSink(TraceSink.SILENT);
+                List<Player.ScorePair> scores = engine.play();
+                games.add(scores.get(0).getScore() + ":" + scores.get(1).getScore() + ":" + engine.getTurnCount()
+                    + ":" + Arrays.toString(engine.getCardsBought(1)));
+            }
+            assertEquals(games.get(0), games.get(1), "Expected the same game from the same seed.");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests the opponent's deck in the search: a BUG given to the opponent is
+     * in it, and a card this player trashes is not.
+     */
+    @Test
+    public void testOpponentModelCountsBugsAndTrashes() throws Exception {
+        MctsPlayer player = new MctsPlayer("Monte", 10, 0, ForkJoinPool.commonPool(), 1L);
+        AtgPlayer opponent = new BigMoneyPlayer("Nancy");
+        GameEngine engine = (GameEngine) GameEngine.createEngine(player, opponent, (state, event) -> { }, 3L);
+        engine.setTraceSink(TraceSink.SILENT);
+        Method initState = GameEngine.class.getDeclaredMethod("initializeGameState", AtgPlayer.class);
+        initState.setAccessible(true);
+        initState.invoke(engine, opponent);
+        initState.invoke(engine, player);
+        assertEquals(10, opponentDeckSize(player, engine));
+
+        // EVERGREEN_TEST gives the opponent (who has no MONITORING) a BUG
+        Method evergreen = GameEngine.class.getDeclaredMethod("processEvergreenTestEffect", AtgPlayer.class);
+        evergreen.setAccessible(true);
+        evergreen.invoke(engine, player);
+        assertEquals(1, engine.getBugsReceived(engine.getPlayerNumber(opponent)));
+        assertEquals(11, opponentDeckSize(player, engine));
+
+        // REFACTOR: the card this player trashes does not turn up in the opponent's deck
+        Method refactor = GameEngine.class.getDeclaredMethod("processRefactorEffect", AtgPlayer.class);
+        refactor.setAccessible(true);
+        refactor.invoke(engine, player);
+        int trashed = Arrays.stream(engine.getCardsTrashed(engine.getPlayerNumber(player))).sum();
+        assertEquals(1, trashed);
+        assertEquals(11, opponentDeckSize(player, engine));
+    }
+
+    /**
+     * Builds the search's model of the current position and returns the number
+     * of cards it deals the opponent.
+     */
+    private static int opponentDeckSize(MctsPlayer player, GameEngine engine) throws Exception {
+        Method buildRoot = MctsPlayer.class.getDeclaredMethod("buildRoot", GameState.class);
+        buildRoot.setAccessible(true);
+        Object model = buildRoot.invoke(player, engine.getGameState());
+        Field sides = model.getClass().getDeclaredField("sides");
+        sides.setAccessible(true);
+        Object opponentSide = Array.get(sides.get(model), 1);
+        Field drawSize = opponentSide.getClass().getDeclaredField("drawSize");
+        drawSize.setAccessible(true);
+        return drawSize.getInt(opponentSide);
+    }
+}